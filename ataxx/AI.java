@@ -1,8 +1,11 @@
 package ataxx;
 
 import java.util.ArrayList;
-
-import static ataxx.PieceColor.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /** A Player that computes its own moves.
  *  @author Melissa Ly
@@ -12,107 +15,859 @@ class AI extends Player {
 
     /** Maximum minimax \\search depth before going to static evaluation. */
     private static final int MAX_DEPTH = 5;
+    /** Greatest depth to which any search may go. */
+    static final int MAX_PLY = 64;
+    /** Limits on the searches made for moves in a Game. */
+    private static final SearchLimits GAME_LIMITS =
+        new SearchLimits(MAX_DEPTH, 0, 0);
+    /** Nanoseconds in a millisecond. */
+    private static final long NANOS_PER_MILLI = 1_000_000;
+    /** The clock is checked once every TIME_CHECK_MASK + 1 nodes. */
+    private static final long TIME_CHECK_MASK = 1023;
     /** A positsion magnitude indicating a win (for red if positive, blue
      *  if negative). */
-    private static final int WINNING_VALUE = Integer.MAX_VALUE - 1;
+    static final int WINNING_VALUE = Integer.MAX_VALUE - 1;
     /** A magnitude greater than a normal value. */
     private static final int INFTY = Integer.MAX_VALUE;
+    /** Half-width of the initial aspiration window around the value
+     *  from the previous iteration. */
+    private static final int ASPIRATION_WINDOW = 2;
+    /** Greatest number of plies searched by quiesce(). */
+    private static final int QUIESCENCE_DEPTH = 4;
+    /** Least number of pieces a move must flip to be searched by
+     *  quiesce(). */
+    private static final int QUIESCENCE_FLIPS = 4;
+    /** Margin by which a move in quiesce() must be able to exceed alpha
+     *  by its gain alone not to be pruned. */
+    private static final int DELTA_MARGIN = 2;
+    /** Greatest value of gain(): an extend that captures eight pieces. */
+    private static final int MAX_GAIN = 17;
+    /** Returned by repetition() for a position that does not repeat one
+     *  earlier in the search. */
+    private static final int NOT_REPEATED = Integer.MIN_VALUE;
+    /** Number of buckets in the cache made for a search for several
+     *  best moves when there is no shared cache. */
+    private static final int MULTI_PV_BUCKETS = 1 << 16;
 
     /** A new AI for GAME that will play MYCOLOR. */
     AI(Game game, PieceColor myColor) {
         super(game, myColor);
+        _cache = AnalysisCache.shared();
+        _tablebase = Tablebase.shared();
+    }
+
+    /** A new AI, not attached to any Game, that searches positions in
+     *  which MYCOLOR is to move.  Used by Engine.  Unlike a Game's AI, it
+     *  uses neither the process's shared cache nor its shared tablebase
+     *  unless given them (see useCache and useTablebase). */
+    AI(PieceColor myColor) {
+        super(null, myColor);
+    }
+
+    /** Look up and record analyses in CACHE (none if null) rather than
+     *  in the cache I used before. */
+    void useCache(AnalysisCache cache) {
+        _cache = cache;
+    }
+
+    /** Look up the values of positions near the end of the game in
+     *  TABLEBASE (none if null) rather than in the table I used
+     *  before. */
+    void useTablebase(Tablebase tablebase) {
+        _tablebase = tablebase;
     }
 
     @Override
     Move myMove() {
         _lastFoundMove = null;
-        Move move = findMove();
-        return move;
+        Executor executor = game().searchExecutor();
+        if (executor == null) {
+            return findMove();
+        }
+        return CompletableFuture.supplyAsync(this::findMove, executor).join();
     }
 
     /** Return a move for me from the current position, assuming there
-     *  is a move. */
+     *  is a move.  Record its latency in the process metrics, and report
+     *  statistics on the search if my game asks for them. */
     private Move findMove() {
-        Board b = new Board(board());
-        if (myColor() == RED) {
-            findMove(b, MAX_DEPTH, true, 1, -INFTY, INFTY);
-        } else {
-            findMove(b, MAX_DEPTH, true, -1, -INFTY, INFTY);
+        EngineEvents.SearchEvent event = null;
+        if (EngineEvents.recording()) {
+            event = new EngineEvents.SearchEvent();
+            event.begin();
+        }
+        SearchStats stats = game().timing() ? new SearchStats() : null;
+        long start = System.nanoTime();
+        SearchResult result = search(board(), GAME_LIMITS,
+                                     game().searchListener(), stats);
+        Metrics.metrics().recordSearch(result.nodes(),
+                                       System.nanoTime() - start);
+        if (stats != null) {
+            game().reportTiming(myColor(), stats);
+        }
+        if (event != null && event.shouldCommit()) {
+            event.color = myColor().toString();
+            event.depth = result.depth();
+            event.nodes = result.nodes();
+            event.score = result.score();
+            event.move = result.bestMove();
+            event.commit();
+        }
+        return result.move();
+    }
+
+    /** Search POSITION, which is not modified, by iterative deepening
+     *  within LIMITS, and return the best move and value found.  If
+     *  LIMITS ask for several best moves, the result's lines() are the
+     *  best moves in order, each with its exact value.  Unless LISTENER
+     *  is null, report the result of each completed iteration to it.  If
+     *  stop() is called or LIMITS are exceeded, return the result of the
+     *  last completed iteration. */
+    SearchResult search(Board position, SearchLimits limits,
+                        SearchListener listener) {
+        return search(position, limits, listener, null);
+    }
+
+    /** Search POSITION within LIMITS, reporting to LISTENER, as for
+     *  search(Board, SearchLimits, SearchListener), and add statistics
+     *  about the search to STATS, unless it is null. */
+    SearchResult search(Board position, SearchLimits limits,
+                        SearchListener listener, SearchStats stats) {
+        _stats = stats;
+        long cpuStart = stats == null ? 0 : SearchStats.cpuTime();
+        _nodes = 0;
+        _nodeLimit = limits.nodes() > 0 ? limits.nodes() : Long.MAX_VALUE;
+        long start = System.nanoTime();
+        _deadline = limits.moveTime() > 0
+            ? start + limits.moveTime() * NANOS_PER_MILLI : Long.MAX_VALUE;
+        Board board = position.searchCopy();
+        SearchResult result =
+            new SearchResult(null, 0, 0, 0, 0, Collections.emptyList());
+        int maxDepth = Math.min(limits.depth(), MAX_PLY);
+        AnalysisCache cache = _cache;
+        if (limits.multiPV() > 1 && cache == null) {
+            _cache = new AnalysisCache(MULTI_PV_BUCKETS);
+        }
+        try {
+            boolean recording = EngineEvents.recording();
+            for (int depth = 1; depth <= maxDepth; depth += 1) {
+                _abortable = depth > 1;
+                EngineEvents.IterationEvent iteration = null;
+                EngineEvents.MakeMoveBatchEvent batch = null;
+                if (recording) {
+                    iteration = new EngineEvents.IterationEvent();
+                    batch = new EngineEvents.MakeMoveBatchEvent();
+                    iteration.begin();
+                    batch.begin();
+                }
+                long nodesBefore = _nodes;
+                _makes = 0;
+                try {
+                    result = searchLines(board, depth, limits.multiPV(),
+                                         result.lines(), start);
+                } catch (SearchStopped excp) {
+                    commitEvents(iteration, batch, depth, nodesBefore, null);
+                    break;
+                }
+                commitEvents(iteration, batch, depth, nodesBefore, result);
+                if (stats != null) {
+                    stats.addIteration(depth, _nodes);
+                }
+                if (listener != null) {
+                    listener.progress(result);
+                }
+                if (result.move() == null || decided(result)) {
+                    break;
+                }
+            }
+            if (stats != null) {
+                stats.finishSearch(_nodes, System.nanoTime() - start,
+                                   SearchStats.cpuTime() - cpuStart);
+            }
+        } finally {
+            _cache = cache;
+            _stopped = false;
+            _stats = null;
+        }
+        return result;
+    }
+
+    /** Search BOARD to DEPTH for its best COUNT moves, where PREVIOUS are
+     *  the best lines found by the previous iteration, and return the
+     *  result, timing it from START.  Each line is the best move other
+     *  than those of the lines before it, found by a search that follows
+     *  the principal variation of the corresponding previous line and
+     *  looks for a value close to its value.  All share the cache and
+     *  the move-ordering information gathered by the others. */
+    private SearchResult searchLines(Board board, int depth, int count,
+                                     List<SearchResult> previous,
+                                     long start) {
+        List<SearchResult> lines = new ArrayList<>();
+        _excluded.clear();
+        try {
+            for (int k = 0; k < count; k += 1) {
+                int guess = INFTY;
+                _prevPvLength = 0;
+                if (k < previous.size()) {
+                    SearchResult line = previous.get(k);
+                    guess = line.score();
+                    for (Move move : line.principalVariation()) {
+                        _prevPv[_prevPvLength++] = move;
+                    }
+                }
+                _lastFoundMove = null;
+                int value = aspirationSearch(board, depth, guess);
+                if (_lastFoundMove == null) {
+                    break;
+                }
+                lines.add(new SearchResult(_lastFoundMove, value, depth,
+                                           _nodes, elapsedMillis(start),
+                                           principalVariation()));
+                _excluded.add(_lastFoundMove);
+            }
+        } finally {
+            _excluded.clear();
+        }
+        if (lines.isEmpty()) {
+            return new SearchResult(null, 0, depth, _nodes,
+                                    elapsedMillis(start),
+                                    Collections.emptyList());
+        } else if (count == 1) {
+            return lines.get(0);
         }
-        return _lastFoundMove;
+        lines.sort((x, y) -> Integer.compare(y.score(), x.score()));
+        SearchResult best = lines.get(0);
+        return new SearchResult(best.move(), best.score(), depth, _nodes,
+                                elapsedMillis(start),
+                                best.principalVariation(),
+                                Collections.unmodifiableList(lines));
     }
 
+    /** Return true iff the values of all lines of RESULT are wins or
+     *  losses, which deeper searches will not change. */
+    private static boolean decided(SearchResult result) {
+        for (SearchResult line : result.lines()) {
+            if (Math.abs(line.score()) < WINNING_VALUE - MAX_PLY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Return true iff MOVE, a move from the root, leads to the same
+     *  position as one of the moves in _excluded. */
+    private boolean excluded(Move move) {
+        for (Move other : _excluded) {
+            if (other == move
+                || other.isExtend() && move.isExtend()
+                   && other.col1() == move.col1()
+                   && other.row1() == move.row1()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Commit ITERATION and BATCH, the flight-recorder events for an
+     *  iteration to DEPTH that began after NODESBEFORE nodes had been
+     *  searched and produced RESULT (null if it was abandoned), if they
+     *  exist and are enabled. */
+    private void commitEvents(EngineEvents.IterationEvent iteration,
+                              EngineEvents.MakeMoveBatchEvent batch,
+                              int depth, long nodesBefore,
+                              SearchResult result) {
+        if (iteration == null) {
+            return;
+        }
+        if (iteration.shouldCommit()) {
+            iteration.depth = depth;
+            iteration.nodes = _nodes - nodesBefore;
+            iteration.aborted = result == null;
+            if (result != null) {
+                iteration.score = result.score();
+                iteration.move = result.bestMove();
+            }
+            iteration.commit();
+        }
+        if (batch.shouldCommit()) {
+            batch.count = _makes;
+            batch.depth = depth;
+            batch.commit();
+        }
+    }
+
+    /** Return the principal variation found by the last call to
+     *  findMove from the root. */
+    private List<Move> principalVariation() {
+        return Arrays.asList(Arrays.copyOf(_pv[0], _pvLength[0]));
+    }
+
+    /** Record that MOVE, followed by the principal variation found for
+     *  the position after it, is the best line so far at PLY. */
+    private void updatePV(int ply, Move move) {
+        _pv[ply][ply] = move;
+        int len = _pvLength[ply + 1];
+        System.arraycopy(_pv[ply + 1], ply + 1, _pv[ply], ply + 1,
+                         len - ply - 1);
+        _pvLength[ply] = len;
+    }
+
+    /** Cause a search in progress (on another thread) to return as soon
+     *  as possible, or the next search to return after its first
+     *  iteration if none is in progress. */
+    @Override
+    void stop() {
+        _stopped = true;
+    }
+
+    /** Return the number of milliseconds since START (from
+     *  System.nanoTime). */
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / NANOS_PER_MILLI;
+    }
+
+    /** Count a node and abandon the current search if it has been stopped
+     *  or has exceeded its limits, unless the current iteration must be
+     *  completed to have any move at all. */
+    private void checkLimits() {
+        _nodes += 1;
+        if (!_abortable) {
+            return;
+        }
+        if (_stopped || _nodes >= _nodeLimit) {
+            throw new SearchStopped();
+        }
+        if ((_nodes & TIME_CHECK_MASK) == 0 && System.nanoTime() > _deadline) {
+            _stopped = true;
+            throw new SearchStopped();
+        }
+    }
+
+    /** Thrown to abandon a search that has been stopped. */
+    private static class SearchStopped extends RuntimeException {
+        /** A new SearchStopped, without a stack trace. */
+        SearchStopped() {
+            super(null, null, false, false);
+        }
+    }
+
+    /** _path[k] is the position at ply k of the line being searched by
+     *  findMove. */
+    private final Board[] _path = new Board[MAX_PLY + 1];
+    /** _pathKeys[k] is the repetitionKey of _path[k], or 0 if it has not
+     *  been computed. */
+    private final long[] _pathKeys = new long[MAX_PLY + 1];
+    /** The least ply k such that the value last returned by findMove
+     *  depends, through a repetition, on _path[k], or Integer.MAX_VALUE
+     *  if it depends on no earlier position.  A value that depends on
+     *  positions above the one it belongs to holds only for the path by
+     *  which it was reached, and so is not cached. */
+    private int _dependsOn;
+
     /** Used to communicate best moves found by findMove, when asked for. */
     private Move _lastFoundMove;
+    /** Moves not to be searched from the root: the best moves of the
+     *  lines already found by the current iteration. */
+    private final List<Move> _excluded = new ArrayList<>();
+
+    /** Cache of analysed positions, or null if none. */
+    private AnalysisCache _cache;
+    /** Table of solved positions near the end of the game, or null if
+     *  none. */
+    private Tablebase _tablebase;
+    /** Statistics on the current search, or null if none are being
+     *  gathered. */
+    private SearchStats _stats;
+    /** The principal variation found by the last completed iteration,
+     *  in _prevPv[0 .. _prevPvLength-1]. */
+    private final Move[] _prevPv = new Move[MAX_PLY + 1];
+    /** Length of _prevPv. */
+    private int _prevPvLength;
+    /** True while the current iteration is searching the principal
+     *  variation of the previous one. */
+    private boolean _followPv;
+    /** Triangular table of principal variations: _pv[k][k .. _pvLength[k]-1]
+     *  is the best line found from ply k of the current search. */
+    private final Move[][] _pv = new Move[MAX_PLY + 1][MAX_PLY + 1];
+    /** End indices of the lines in _pv. */
+    private final int[] _pvLength = new int[MAX_PLY + 2];
+    /** True iff the current iteration may be abandoned. */
+    private boolean _abortable;
+    /** True when the current search should stop at once. */
+    private volatile boolean _stopped;
+    /** Number of moves made by the current iteration. */
+    private long _makes;
+    /** Number of positions visited by the current search. */
+    private long _nodes;
+    /** Maximum number of positions the current search may visit. */
+    private long _nodeLimit;
+    /** Time (from System.nanoTime) at which the current search must
+     *  stop. */
+    private long _deadline;
+
+    /** Search BOARD to DEPTH and return its value, starting with a
+     *  window of ASPIRATION_WINDOW around GUESS, the value found by the
+     *  previous iteration (INFTY if none), and widening it to the full
+     *  range on the side on which the search fails. */
+    private int aspirationSearch(Board board, int depth, int guess) {
+        int alpha, beta;
+        if (depth == 1 || Math.abs(guess) >= WINNING_VALUE - MAX_PLY) {
+            alpha = -INFTY;
+            beta = INFTY;
+        } else {
+            alpha = guess - ASPIRATION_WINDOW;
+            beta = guess + ASPIRATION_WINDOW;
+        }
+        while (true) {
+            _followPv = true;
+            int value = findMove(board, depth, 0, alpha, beta);
+            if (value <= alpha && alpha > -INFTY) {
+                alpha = -INFTY;
+            } else if (value >= beta && beta < INFTY) {
+                beta = INFTY;
+            } else {
+                return value;
+            }
+        }
+    }
 
-    /** Find a move from position BOARD and return its value, recording
-     *  the move found in _lastFoundMove iff SAVEMOVE. The move
-     *  should have maximal value or have value >= BETA if SENSE==1,
-     *  and minimal value or value <= ALPHA if SENSE==-1. Searches up to
-     *  DEPTH levels before using a static estimate. */
-    private int findMove(Board board, int depth, boolean saveMove, int sense,
+    /** Find a move from position BOARD, at PLY plies from the root, and
+     *  return its value for the player to move, recording the move found
+     *  in _lastFoundMove if PLY is 0.  Searches up to DEPTH levels before
+     *  using a static estimate.  The result is exact if it lies strictly
+     *  between ALPHA and BETA, and otherwise is a bound on the value on
+     *  the same side of the window (<= ALPHA or >= BETA).  The first move
+     *  is searched with the full window, and the rest with null windows
+     *  that only prove them no better, re-searching any that fail
+     *  high (principal variation search).  Games ended by the jump limit
+     *  and positions that repeat ones earlier in the search are scored
+     *  exactly without searching further (see repetition).  Such values
+     *  depend on the path to BOARD, and are not cached (see _dependsOn). */
+    private int findMove(Board board, int depth, int ply,
                          int alpha, int beta) {
-        int v = 0;
+        checkLimits();
+        _dependsOn = Integer.MAX_VALUE;
+        _pvLength[ply] = ply;
+        _path[ply] = board;
+        _pathKeys[ply] = 0;
+        long start = startTiming();
         int currPlayer = board.numPieces(board.whoseMove());
         int oppPlayer = board.numPieces(board.whoseMove().opposite());
-        if (board.gameOver() && (currPlayer > oppPlayer)) {
-            return WINNING_VALUE;
-        } else if (board.gameOver() && (currPlayer < oppPlayer)) {
-            return -WINNING_VALUE;
+        if (board.numJumps() >= Board.JUMP_LIMIT || board.gameOver()) {
+            endTiming(SearchStats.EVAL, start);
+            return outcome(currPlayer - oppPlayer, ply);
+        }
+        endTiming(SearchStats.EVAL, start);
+        if (ply >= 4 && board.numJumps() >= 2) {
+            int value = repetition(board, ply);
+            if (value != NOT_REPEATED) {
+                return value;
+            }
+        }
+        Tablebase tablebase = _tablebase;
+        long key = 0;
+        if (ply > 0 && tablebase != null && tablebase.covers(board)) {
+            key = board.key();
+            int value = tablebase.probe(key);
+            if (value != Tablebase.MISSING) {
+                int result = Tablebase.result(value);
+                return result > 0 ? WINNING_VALUE - ply
+                    : result < 0 ? -WINNING_VALUE + ply : 0;
+            }
+        }
+        if (depth == 0 || ply >= MAX_PLY) {
+            return quiesce(board, ply, QUIESCENCE_DEPTH, alpha, beta);
+        }
+        AnalysisCache cache = _cache;
+        Move cachedMove = null;
+        if (cache != null) {
+            if (key == 0) {
+                key = board.key();
+            }
+            long entry = cache.probe(key);
+            if (_stats != null) {
+                _stats.addProbe(entry != 0);
+            }
+            if (entry != 0) {
+                cachedMove = AnalysisCache.move(entry);
+                int value = fromCache(AnalysisCache.score(entry), ply);
+                int bound = AnalysisCache.bound(entry);
+                if (ply > 0 && AnalysisCache.depth(entry) >= depth
+                    && (bound == AnalysisCache.EXACT
+                        || bound == AnalysisCache.LOWER && value >= beta
+                        || bound == AnalysisCache.UPPER && value <= alpha)) {
+                    return value;
+                }
+            }
+        }
+        int alpha0 = alpha;
+        ArrayList<Move> moves = generateMoves(board);
+        boolean partial = ply == 0 && !_excluded.isEmpty();
+        if (moves.isEmpty()) {
+            moves.add(Move.pass());
+            _followPv = false;
         } else {
-            if (depth == 0) {
-                return staticScore(board);
-            } else if (sense == 1) {
-                v = -INFTY;
-                ArrayList<Move> listOfMoves =
-                        beginStoreMoves(board, board.whoseMove());
-                for (Move move : listOfMoves) {
-                    Board copyBoard = new Board(board);
-                    copyBoard.makeMove(move);
-                    int possible = findMove(copyBoard,
-                            depth - 1, false, -1, alpha, beta);
-                    if (saveMove && possible > v) {
-                        _lastFoundMove = move;
+            if (partial) {
+                moves.removeIf(this::excluded);
+            }
+            moves = orderMoves(board, moves, ply, cachedMove);
+        }
+        if (partial && (moves.isEmpty() || moves.get(0).isPass())) {
+            return -INFTY;
+        }
+        int best = -INFTY;
+        Move bestMove = null;
+        int dependsOn = Integer.MAX_VALUE;
+        for (int k = 0; k < moves.size(); k += 1) {
+            Move move = moves.get(k);
+            Board child = play(board, move);
+            int value;
+            if (k == 0) {
+                value = -findMove(child, depth - 1, ply + 1, -beta, -alpha);
+                dependsOn = Math.min(dependsOn, _dependsOn);
+                _followPv = false;
+            } else {
+                value = -findMove(child, depth - 1, ply + 1,
+                                  -alpha - 1, -alpha);
+                dependsOn = Math.min(dependsOn, _dependsOn);
+                if (value > alpha && value < beta) {
+                    value = -findMove(child, depth - 1, ply + 1,
+                                      -beta, -alpha);
+                    dependsOn = Math.min(dependsOn, _dependsOn);
+                }
+            }
+            if (value > best) {
+                best = value;
+                bestMove = move;
+                if (ply == 0) {
+                    _lastFoundMove = move;
+                }
+            }
+            if (value > alpha) {
+                alpha = value;
+                updatePV(ply, move);
+            }
+            if (alpha >= beta) {
+                recordCutoff(k);
+                break;
+            }
+        }
+        if (cache != null && !partial && dependsOn >= ply) {
+            int bound = best <= alpha0 ? AnalysisCache.UPPER
+                : best >= beta ? AnalysisCache.LOWER : AnalysisCache.EXACT;
+            cache.store(key, depth, toCache(best, ply), bound, bestMove);
+        }
+        _dependsOn = dependsOn;
+        return best;
+    }
+
+    /** Return the value of a finished game, for the player to move at
+     *  PLY plies from the root, who has MARGIN more pieces than the
+     *  opponent. */
+    private static int outcome(int margin, int ply) {
+        if (margin > 0) {
+            return WINNING_VALUE - ply;
+        } else if (margin < 0) {
+            return -WINNING_VALUE + ply;
+        }
+        return 0;
+    }
+
+    /** Return the value of BOARD, the position at PLY plies from the
+     *  root, if it repeats a position earlier in the search with the
+     *  same player to move, and otherwise NOT_REPEATED.  Only jumps
+     *  (and passes) can lead back to a position, since each extend adds
+     *  a piece, so the earlier position is at most BOARD.numJumps() plies
+     *  back, and the jumps between them bring the game closer to the jump
+     *  limit.  The rules have no draw by repetition: if both players
+     *  keep repeating the cycle, the jump limit ends the game, at a
+     *  position in the cycle that depends on how many jumps are left.
+     *  That is the value returned.  A player who would rather not repeat
+     *  could have left the cycle when the position first occurred, where
+     *  the search considers it with more jumps to spare.  Since the value
+     *  depends on the search path back to that occurrence, sets
+     *  _dependsOn to its ply. */
+    private int repetition(Board board, int ply) {
+        int jumps = board.numJumps();
+        for (int k = ply - 4; k >= 0; k -= 2) {
+            int earlierJumps = _path[k].numJumps();
+            if (earlierJumps > jumps) {
+                break;
+            }
+            if (earlierJumps <= jumps - 2 && pathKey(k) == pathKey(ply)) {
+                _dependsOn = k;
+                return cycleValue(k, ply);
+            }
+            if (earlierJumps == 0) {
+                break;
+            }
+        }
+        return NOT_REPEATED;
+    }
+
+    /** Return the value, for the player to move at PLY, of repeating the
+     *  moves from ply START of the search to PLY, which lead from a
+     *  position back to itself, until the jump limit ends the game. */
+    private int cycleValue(int start, int ply) {
+        int length = ply - start;
+        int jumps = _path[ply].numJumps() - _path[start].numJumps();
+        for (int end = ply + 1; true; end += 1) {
+            int laps = (end - start) / length;
+            Board last = _path[start + (end - start) % length];
+            if (last.numJumps() + laps * jumps >= Board.JUMP_LIMIT) {
+                PieceColor player = last.whoseMove();
+                int value =
+                    outcome(last.numPieces(player)
+                            - last.numPieces(player.opposite()),
+                            Math.min(end, MAX_PLY));
+                return (end - ply) % 2 == 0 ? value : -value;
+            }
+        }
+    }
+
+    /** Return the repetitionKey of the position at PLY plies from the
+     *  root of the current search, computing it if need be. */
+    private long pathKey(int ply) {
+        if (_pathKeys[ply] == 0) {
+            _pathKeys[ply] = _path[ply].repetitionKey();
+        }
+        return _pathKeys[ply];
+    }
+
+    /** Return VALUE, a value found at PLY plies from the root, as it is
+     *  to be cached: with wins and losses measured in plies from the
+     *  position rather than from the root. */
+    private static int toCache(int value, int ply) {
+        if (value >= WINNING_VALUE - MAX_PLY) {
+            return value + ply;
+        } else if (value <= -WINNING_VALUE + MAX_PLY) {
+            return value - ply;
+        }
+        return value;
+    }
+
+    /** Return VALUE, a cached value (see toCache), as a value found at
+     *  PLY plies from the root. */
+    private static int fromCache(int value, int ply) {
+        if (value >= WINNING_VALUE - MAX_PLY) {
+            return value - ply;
+        } else if (value <= -WINNING_VALUE + MAX_PLY) {
+            return value + ply;
+        }
+        return value;
+    }
+
+    /** Return the value of BOARD, at PLY plies from the root, for the
+     *  player to move, searching only moves that flip at least
+     *  QUIESCENCE_FLIPS pieces, to at most QDEPTH further plies.  The
+     *  player to move may instead "stand pat" and take the static score.
+     *  Moves that cannot raise that score above ALPHA even with a margin
+     *  of DELTA_MARGIN are pruned.  The result is bounded by ALPHA and
+     *  BETA as for findMove. */
+    private int quiesce(Board board, int ply, int qdepth,
+                        int alpha, int beta) {
+        checkLimits();
+        _pvLength[ply] = ply;
+        long start = startTiming();
+        int currPlayer = board.numPieces(board.whoseMove());
+        int oppPlayer = board.numPieces(board.whoseMove().opposite());
+        endTiming(SearchStats.EVAL, start);
+        if (currPlayer == 0 || oppPlayer == 0
+            || board.numJumps() >= Board.JUMP_LIMIT) {
+            return outcome(currPlayer - oppPlayer, ply);
+        }
+        int standPat = currPlayer - oppPlayer;
+        int best = standPat;
+        if (best >= beta || qdepth == 0 || ply >= MAX_PLY) {
+            return best;
+        }
+        alpha = Math.max(alpha, best);
+        _followPv = false;
+        ArrayList<Move> moves = captureMoves(board);
+        for (int k = 0; k < moves.size(); k += 1) {
+            Move move = moves.get(k);
+            if (standPat + gain(board, move) + DELTA_MARGIN <= alpha) {
+                continue;
+            }
+            int value = -quiesce(play(board, move), ply + 1, qdepth - 1,
+                                 -beta, -alpha);
+            if (value > best) {
+                best = value;
+            }
+            if (value > alpha) {
+                alpha = value;
+                updatePV(ply, move);
+            }
+            if (alpha >= beta) {
+                recordCutoff(k);
+                break;
+            }
+        }
+        return best;
+    }
+
+    /** Return the legal moves on BOARD that flip at least
+     *  QUIESCENCE_FLIPS pieces, in decreasing order of the number
+     *  flipped, taking one extend or all jumps to each square. */
+    private ArrayList<Move> captureMoves(Board board) {
+        long start = startTiming();
+        PieceColor player = board.whoseMove();
+        PieceColor opponent = player.opposite();
+        ArrayList<Move> moves = new ArrayList<>();
+        for (int flips = 8; flips >= QUIESCENCE_FLIPS; flips -= 1) {
+            for (char c = 'a'; c <= board.lastCol(); c += 1) {
+                for (char r = '1'; r <= board.lastRow(); r += 1) {
+                    int sq = board.index(c, r);
+                    if (board.get(sq) == PieceColor.EMPTY
+                        && neighbors(board, sq, opponent, 1) == flips) {
+                        addMovesTo(board, c, r, player, moves);
                     }
-                    v = Math.max(v, possible);
-                    alpha = Math.max(alpha, v);
-                    if (beta <= alpha) {
-                        break;
+                }
+            }
+        }
+        endTiming(SearchStats.MOVEGEN, start);
+        return moves;
+    }
+
+    /** Return the number of squares at distance exactly DIST (1 or 2)
+     *  from square SQ on BOARD that contain COLOR. */
+    private static int neighbors(Board board, int sq, PieceColor color,
+                                 int dist) {
+        int count;
+        count = 0;
+        for (int dc = -dist; dc <= dist; dc += 1) {
+            for (int dr = -dist; dr <= dist; dr += 1) {
+                if (Math.max(Math.abs(dc), Math.abs(dr)) == dist
+                    && board.get(board.neighbor(sq, dc, dr)) == color) {
+                    count += 1;
+                }
+            }
+        }
+        return count;
+    }
+
+    /** Add to MOVES an extend by PLAYER to the empty square C R on BOARD
+     *  if there is one, and otherwise all jumps by PLAYER to it. */
+    private static void addMovesTo(Board board, char c, char r,
+                                   PieceColor player, ArrayList<Move> moves) {
+        for (int dist = 1; dist <= 2; dist += 1) {
+            for (int dc = -dist; dc <= dist; dc += 1) {
+                for (int dr = -dist; dr <= dist; dr += 1) {
+                    char c0 = (char) (c + dc), r0 = (char) (r + dr);
+                    if (Math.max(Math.abs(dc), Math.abs(dr)) == dist
+                        && board.get(c0, r0) == player) {
+                        moves.add(Move.move(c0, r0, c, r));
+                        if (dist == 1) {
+                            return;
+                        }
                     }
-                    return v;
                 }
+            }
+        }
+    }
+
+    /** Return MOVES, the legal moves from BOARD at PLY, in the order in
+     *  which to search them, leaving out extends to the same square as
+     *  an earlier one (which lead to the same position).  The move from
+     *  the previous iteration's principal variation comes first if BOARD
+     *  is on it, and otherwise CACHEDMOVE, the best move cached for BOARD
+     *  (if not null), followed by the others in decreasing order of
+     *  gain. */
+    private ArrayList<Move> orderMoves(Board board, ArrayList<Move> moves,
+                                       int ply, Move cachedMove) {
+        long start = startTiming();
+        int n = moves.size();
+        int[] gains = new int[n];
+        boolean[] extended = new boolean[board.extendedSide()
+                                         * board.extendedSide()];
+        for (int k = 0; k < n; k += 1) {
+            Move move = moves.get(k);
+            if (move.isExtend()) {
+                int to = board.index(move.col1(), move.row1());
+                if (extended[to]) {
+                    gains[k] = -1;
+                    continue;
+                }
+                extended[to] = true;
+            }
+            gains[k] = gain(board, move);
+        }
+        ArrayList<Move> ordered = new ArrayList<>(n);
+        if (_followPv && ply < _prevPvLength) {
+            Move pvMove = _prevPv[ply];
+            int k = moves.indexOf(pvMove);
+            if (k >= 0) {
+                ordered.add(pvMove);
+                gains[k] = -1;
             } else {
-                v = INFTY;
-                ArrayList<Move> listOfMoves =
-                        beginStoreMoves(board, board.whoseMove());
-                for (Move move : listOfMoves) {
-                    Board copyBoard = new Board(board);
-                    copyBoard.makeMove(move);
-                    int possible = findMove(copyBoard,
-                            depth - 1, false, 1, alpha, beta);
-                    if (saveMove && possible < v) {
-                        _lastFoundMove = move;
-                    }
-                    v = Math.min(v, possible);
-                    beta = Math.min(beta, v);
-                    if (beta <= alpha) {
-                        break;
-                    }
-                    return v;
+                _followPv = false;
+            }
+        } else {
+            _followPv = false;
+            int k = cachedMove == null ? -1 : moves.indexOf(cachedMove);
+            if (k >= 0 && gains[k] >= 0) {
+                ordered.add(cachedMove);
+                gains[k] = -1;
+            }
+        }
+        for (int g = MAX_GAIN; g >= 0; g -= 1) {
+            for (int k = 0; k < n; k += 1) {
+                if (gains[k] == g) {
+                    ordered.add(moves.get(k));
                 }
             }
-            return 0;
         }
+        endTiming(SearchStats.MOVEGEN, start);
+        return ordered;
     }
 
+    /** Return the increase in the difference between the numbers of
+     *  pieces of the player to move on BOARD and of the opponent caused by
+     *  MOVE, an extend or a jump. */
+    private static int gain(Board board, Move move) {
+        return (move.isExtend() ? 1 : 0)
+            + 2 * neighbors(board, board.index(move.col1(), move.row1()),
+                            board.whoseMove().opposite(), 1);
+    }
 
-    /** Return a heuristic value for BOARD. */
-    private int staticScore(Board board) {
-        int currPlayer = board.numPieces(board.whoseMove());
-        int oppPlayer = board.numPieces(board.whoseMove().opposite());
-        return currPlayer - oppPlayer;
+    /** Return the legal moves for the player to move on BOARD. */
+    private ArrayList<Move> generateMoves(Board board) {
+        long start = startTiming();
+        ArrayList<Move> moves = beginStoreMoves(board, board.whoseMove());
+        endTiming(SearchStats.MOVEGEN, start);
+        return moves;
+    }
+
+    /** Return a copy of BOARD on which MOVE has been made. */
+    private Board play(Board board, Move move) {
+        long start = startTiming();
+        Board result = board.searchCopy();
+        result.makeMove(move);
+        _makes += 1;
+        endTiming(SearchStats.MAKE, start);
+        return result;
+    }
+
+    /** Return the current time for use by endTiming, if statistics are
+     *  being gathered. */
+    private long startTiming() {
+        return _stats == null ? 0 : System.nanoTime();
     }
 
+    /** Charge the time since START (from startTiming) to CATEGORY, if
+     *  statistics are being gathered. */
+    private void endTiming(int category, long start) {
+        if (_stats != null) {
+            _stats.addTime(category, System.nanoTime() - start);
+        }
+    }
+
+    /** Record a beta cutoff caused by the Kth move (from 0) tried. */
+    private void recordCutoff(int k) {
+        if (_stats != null) {
+            _stats.addCutoff(k == 0);
+        }
+    }
 
     /** A helper method for that gets move for storedMoves.
      * Where BOARD is iterated through and PLAYER is taken into account.
@@ -120,9 +875,9 @@ class AI extends Player {
      * */
     private ArrayList<Move> beginStoreMoves(Board board, PieceColor player) {
         ArrayList<Move> storedMoves = new ArrayList<>();
-        for (char row = '7'; row >= '1'; row--) {
-            for (char col = 'a'; col <= 'g'; col++) {
-                int index = Board.index(col, row);
+        for (char row = board.lastRow(); row >= '1'; row--) {
+            for (char col = 'a'; col <= board.lastCol(); col++) {
+                int index = board.index(col, row);
                 if (board.get(index) == player) {
                     ArrayList<Move> addMoves = storedMoves(board, row, col);
                     storedMoves.addAll(addMoves);
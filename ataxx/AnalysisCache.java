@@ -0,0 +1,224 @@
+package ataxx;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** A table of analysed positions, kept in a memory-mapped file so that
+ *  it survives restarts and is shared by all processes on a host that
+ *  map the same file.  Each entry maps a position key (Board.key) to the
+ *  depth and value of a search of that position and the best move
+ *  found.
+ *
+ *  The file holds a header followed by buckets of two fixed-size slots.
+ *  The first slot of a bucket is replaced only by a search at least as
+ *  deep (or of the same position), and the second always, so that deep
+ *  results are kept while recent ones still find room.  A slot is two
+ *  longs: the entry's data and its key XORed with the data.  Writers
+ *  claim a slot with a compare-and-set of the data word, and readers
+ *  accept a slot only if the two words agree with the key, so that
+ *  entries torn by concurrent writers (in this or another process) read
+ *  as misses rather than as wrong answers.
+ *
+ *  An entry is returned by probe as a single nonzero long, decoded by
+ *  the static methods depth, score, bound and move, so that lookups
+ *  allocate nothing.
+ *  @author Melissa Ly
+ */
+class AnalysisCache {
+
+    /** Default number of buckets in a new file (32 MiB). */
+    static final int DEFAULT_BUCKETS = 1 << 20;
+
+    /** Bound types: the stored score is exact, a lower bound, or an
+     *  upper bound on the value of the position. */
+    static final int EXACT = 1, LOWER = 2, UPPER = 3;
+
+    /** Return the cache shared by all AI players in this process, or null
+     *  if there is none. */
+    static AnalysisCache shared() {
+        return _shared;
+    }
+
+    /** Make the cache in FILE, created if necessary with
+     *  DEFAULT_BUCKETS buckets, the one returned by shared(). */
+    static void openShared(Path file) throws IOException {
+        setShared(new AnalysisCache(file, DEFAULT_BUCKETS));
+    }
+
+    /** Make CACHE (none if null) the one returned by shared(). */
+    static void setShared(AnalysisCache cache) {
+        _shared = cache;
+    }
+
+    /** A cache with BUCKETS buckets (a power of 2) kept in memory, private
+     *  to this process and discarded with it. */
+    AnalysisCache(int buckets) {
+        _map = ByteBuffer.allocateDirect(HEADER_BYTES + buckets * BUCKET_BYTES
+                                         + Long.BYTES)
+            .alignedSlice(Long.BYTES).order(ByteOrder.nativeOrder());
+        _map.putLong(0, MAGIC).putLong(SIZE_OFFSET, buckets);
+        _mask = buckets - 1;
+    }
+
+    /** A cache mapped from FILE.  If FILE is empty or does not exist,
+     *  create it with BUCKETS buckets (a power of 2); otherwise, use
+     *  the size it already has. */
+    AnalysisCache(Path file, int buckets) throws IOException {
+        try (FileChannel channel =
+             FileChannel.open(file, StandardOpenOption.CREATE,
+                              StandardOpenOption.READ,
+                              StandardOpenOption.WRITE)) {
+            try (FileLock lock = channel.lock()) {
+                if (channel.size() == 0) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                        .order(ByteOrder.nativeOrder());
+                    header.putLong(MAGIC).putLong(buckets).flip();
+                    channel.write(header, 0);
+                    channel.write(ByteBuffer.allocate(1),
+                                  HEADER_BYTES + (long) buckets
+                                  * BUCKET_BYTES - 1);
+                }
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .order(ByteOrder.nativeOrder());
+                channel.read(header, 0);
+                long size = header.getLong(SIZE_OFFSET);
+                if (header.getLong(0) != MAGIC || Long.bitCount(size) != 1
+                    || HEADER_BYTES + size * BUCKET_BYTES
+                       != channel.size()) {
+                    throw new IOException(file + " is not an analysis cache");
+                }
+                _mask = size - 1;
+                _map = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                                   channel.size());
+            }
+        }
+    }
+
+    /** Return the entry for the position with key KEY, or 0 if there is
+     *  none. */
+    long probe(long key) {
+        int bucket = bucket(key);
+        for (int slot = bucket; slot < bucket + BUCKET_BYTES;
+             slot += SLOT_BYTES) {
+            long data = (long) LONGS.getVolatile(_map, slot + DATA);
+            long check = (long) LONGS.getVolatile(_map, slot + CHECK);
+            if (data != 0 && (check ^ data) == key) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /** Record that a search of the position with key KEY to DEPTH plies
+     *  found SCORE, a value of type BOUND, with best move MOVE (null if
+     *  none). */
+    void store(long key, int depth, int score, int bound, Move move) {
+        long entry = entry(depth, score, bound, move);
+        int slot = bucket(key);
+        while (true) {
+            long data = (long) LONGS.getVolatile(_map, slot + DATA);
+            long check = (long) LONGS.getVolatile(_map, slot + CHECK);
+            if (data != 0 && (check ^ data) != key && depth(data) > depth) {
+                slot += SLOT_BYTES;
+                data = (long) LONGS.getVolatile(_map, slot + DATA);
+            }
+            if (LONGS.compareAndSet(_map, slot + DATA, data, entry)) {
+                LONGS.setVolatile(_map, slot + CHECK, key ^ entry);
+                return;
+            }
+            slot = bucket(key);
+        }
+    }
+
+    /** Return the search depth recorded in ENTRY. */
+    static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xff;
+    }
+
+    /** Return the score recorded in ENTRY. */
+    static int score(long entry) {
+        return (int) entry;
+    }
+
+    /** Return the bound type (EXACT, LOWER, or UPPER) of ENTRY. */
+    static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 0x3;
+    }
+
+    /** Return the best move recorded in ENTRY, or null if none. */
+    static Move move(long entry) {
+        int code = (int) (entry >>> MOVE_SHIFT) & 0xffff;
+        if (code == NO_MOVE) {
+            return null;
+        } else if (code == PASS_MOVE) {
+            return Move.pass();
+        }
+        code -= 1;
+        int dr = code % 5 - 2, dc = code / 5 % 5 - 2;
+        int r = code / 25 % Board.MAX_SIDE, c = code / 25 / Board.MAX_SIDE;
+        char c0 = (char) ('a' + c), r0 = (char) ('1' + r);
+        return Move.move(c0, r0, (char) (c0 + dc), (char) (r0 + dr));
+    }
+
+    /** Return the entry recording DEPTH, SCORE, BOUND, and MOVE. */
+    static long entry(int depth, int score, int bound, Move move) {
+        int code;
+        if (move == null) {
+            code = NO_MOVE;
+        } else if (move.isPass()) {
+            code = PASS_MOVE;
+        } else {
+            int c = move.col0() - 'a', r = move.row0() - '1';
+            int dc = move.col1() - move.col0(), dr = move.row1() - move.row0();
+            code = 1 + ((c * Board.MAX_SIDE + r) * 5 + dc + 2) * 5 + dr + 2;
+        }
+        return (long) bound << BOUND_SHIFT
+            | (long) Math.min(depth, 0xff) << DEPTH_SHIFT
+            | (long) code << MOVE_SHIFT
+            | (score & 0xffffffffL);
+    }
+
+    /** Return the byte offset in my file of the bucket for KEY. */
+    private int bucket(long key) {
+        return HEADER_BYTES + (int) (key & _mask) * BUCKET_BYTES;
+    }
+
+    /** Identifies a file in this format (and with this byte order). */
+    private static final long MAGIC = 0x4174617878414331L;
+    /** Size of the file header, which holds MAGIC and the number of
+     *  buckets. */
+    private static final int HEADER_BYTES = 16;
+    /** Offset in the header of the number of buckets. */
+    private static final int SIZE_OFFSET = 8;
+    /** Sizes of a slot and of a bucket. */
+    private static final int SLOT_BYTES = 16, BUCKET_BYTES = 2 * SLOT_BYTES;
+    /** Offsets in a slot of the data and check (key ^ data) words. */
+    private static final int DATA = 0, CHECK = 8;
+    /** Positions of the fields of an entry above the 32-bit score. */
+    private static final int DEPTH_SHIFT = 32, MOVE_SHIFT = 40,
+        BOUND_SHIFT = 56;
+    /** Move codes for no move and for a pass. */
+    private static final int NO_MOVE = 0, PASS_MOVE = 0xffff;
+
+    /** Atomic access to the longs in a mapped file. */
+    private static final VarHandle LONGS =
+        MethodHandles.byteBufferViewVarHandle(long[].class,
+                                              ByteOrder.nativeOrder());
+
+    /** The cache returned by shared(). */
+    private static volatile AnalysisCache _shared;
+
+    /** The mapped file, or the memory holding the cache if it has no
+     *  file. */
+    private final ByteBuffer _map;
+    /** Number of buckets - 1. */
+    private final long _mask;
+
+}
@@ -0,0 +1,72 @@
+package ataxx;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/** Tests of the AnalysisCache class.
+ *  @author Melissa Ly
+ */
+public class AnalysisCacheTest {
+
+    @Test public void testEntries() {
+        Move jump = Move.move('o', Move.row("15"), 'm', Move.row("13"));
+        long entry = AnalysisCache.entry(7, -42, AnalysisCache.UPPER, jump);
+        assertEquals(7, AnalysisCache.depth(entry));
+        assertEquals(-42, AnalysisCache.score(entry));
+        assertEquals(AnalysisCache.UPPER, AnalysisCache.bound(entry));
+        assertSame(jump, AnalysisCache.move(entry));
+        entry = AnalysisCache.entry(1, AI.WINNING_VALUE,
+                                    AnalysisCache.EXACT, Move.pass());
+        assertEquals(AI.WINNING_VALUE, AnalysisCache.score(entry));
+        assertTrue(AnalysisCache.move(entry).isPass());
+        entry = AnalysisCache.entry(2, 0, AnalysisCache.LOWER, null);
+        assertNull(AnalysisCache.move(entry));
+    }
+
+    @Test public void testPersists() throws IOException {
+        Path file = Files.createTempFile("ataxx", ".cache");
+        try {
+            Board board = new Board();
+            Move move = Move.move('a', '7', 'b', '6');
+            new AnalysisCache(file, 1 << 4).store(board.key(), 3, 5,
+                                                  AnalysisCache.EXACT, move);
+            AnalysisCache cache = new AnalysisCache(file, 1 << 8);
+            long entry = cache.probe(board.key());
+            assertEquals(3, AnalysisCache.depth(entry));
+            assertSame(move, AnalysisCache.move(entry));
+            board.makeMove(move);
+            assertEquals(0, cache.probe(board.key()));
+            cache.store(board.key(), 1, 0, AnalysisCache.EXACT, null);
+            assertEquals(3, AnalysisCache.depth(
+                             cache.probe(new Board().key())));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test public void testSearchReuse() throws IOException {
+        Path file = Files.createTempFile("ataxx", ".cache");
+        try {
+            AnalysisCache cache = new AnalysisCache(file, 1 << 12);
+            Board board = Engine.position(
+                java.util.Arrays.asList("block c4", "a7-b6", "a1-a2"));
+            SearchLimits limits = new SearchLimits(4, 0, 0);
+            AI first = new AI(PieceColor.RED);
+            first.useCache(cache);
+            SearchResult cold = first.search(board, limits, null);
+            AI second = new AI(PieceColor.RED);
+            second.useCache(new AnalysisCache(file, 1 << 12));
+            SearchResult warm = second.search(board, limits, null);
+            assertEquals(cold.score(), warm.score());
+            assertTrue(board.legalMove(warm.move()));
+            assertTrue(warm.nodes() < cold.nodes());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+}
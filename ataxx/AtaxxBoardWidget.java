@@ -5,22 +5,28 @@ import ucb.gui2.Pad;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.BasicStroke;
-import java.util.Observer;
-import java.util.Observable;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.BitSet;
 
 import java.awt.event.MouseEvent;
 
 import static ataxx.PieceColor.*;
 
-/** Widget for displaying an Ataxx board.
+/** Widget for displaying an Ataxx board.  The board is drawn into an
+ *  off-screen image one square at a time, from images of each kind of
+ *  square drawn once, and only the squares that differ from the last
+ *  frame are redrawn.  The screen is updated by copying the changed part
+ *  of the image.  The widget paints the snapshots its model publishes
+ *  (Board.published) rather than the model itself, so that painting
+ *  needs no locks and never shows a move half made, however far the
+ *  game has moved on meanwhile.
  *  @author Melissa Ly
  */
-class AtaxxBoardWidget extends Pad implements Observer {
+class AtaxxBoardWidget extends Pad implements BoardListener {
 
     /** Length of side of one square, in pixels. */
     static final int SQDIM = 50;
-    /** Number of squares on a side. */
-    static final int SIDE = Board.SIDE;
     /** Radius of circle representing a piece. */
     static final int PIECE_RADIUS = 15;
 
@@ -30,30 +36,91 @@ class AtaxxBoardWidget extends Pad implements Observer {
     private static final Color BLUE_COLOR = Color.BLUE;
     /** Color of blank squares. */
     private static final Color BLANK_COLOR = Color.WHITE;
+    /** Color of grid lines. */
+    private static final Color LINE_COLOR = Color.BLACK;
+    /** Color of blocks. */
+    private static final Color BLOCK_COLOR = Color.DARK_GRAY;
 
     /** Stroke for lines. */
     private static final BasicStroke LINE_STROKE = new BasicStroke(1.0f);
 
+    /** SPRITES[k] is the image of a square whose contents have ordinal
+     *  k. */
+    private static final BufferedImage[] SPRITES =
+        new BufferedImage[PieceColor.values().length];
+
+    static {
+        for (PieceColor contents : PieceColor.values()) {
+            BufferedImage sprite =
+                new BufferedImage(SQDIM, SQDIM, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = sprite.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                               RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(BLANK_COLOR);
+            g.fillRect(0, 0, SQDIM, SQDIM);
+            if (contents == BLOCKED) {
+                drawBlock(g, SQDIM / 2, SQDIM / 2);
+            } else if (contents.isPiece()) {
+                g.setColor(contents == RED ? RED_COLOR : BLUE_COLOR);
+                g.fillOval(SQDIM / 2 - PIECE_RADIUS, SQDIM / 2 - PIECE_RADIUS,
+                           2 * PIECE_RADIUS, 2 * PIECE_RADIUS);
+            }
+            g.setColor(LINE_COLOR);
+            g.setStroke(LINE_STROKE);
+            g.drawRect(0, 0, SQDIM - 1, SQDIM - 1);
+            g.dispose();
+            SPRITES[contents.ordinal()] = sprite;
+        }
+    }
+
     /** Model being displayed. */
-    private static Board _model;
+    private final Board _model;
 
     /** A new widget displaying MODEL. */
     AtaxxBoardWidget(Board model) {
         _model = model;
         setMouseHandler("click", this::readMove);
-        _model.addObserver(this);
-        _dim = SQDIM * SIDE;
+        _model.publishSnapshots();
+        _model.addListener(this);
+        resize(_model.side());
+    }
+
+    /** Set my size to fit a board with SIDE squares on a side. */
+    private void resize(int side) {
+        _dim = SQDIM * side;
         setPreferredSize(_dim, _dim);
     }
 
     @Override
-    public synchronized void paintComponent(Graphics2D g) {
-        g.setColor(BLANK_COLOR);
-        g.fillRect(0, 0, _dim, _dim);
+    public void paintComponent(Graphics2D g) {
+        Board.Snapshot position = _model.published();
+        int side = position.side();
+        if (_painted == null || _painted.side() != side) {
+            _buffer = new BufferedImage(SQDIM * side, SQDIM * side,
+                                        BufferedImage.TYPE_INT_RGB);
+            _painted = null;
+        }
+        Graphics2D bg = _buffer.createGraphics();
+        for (char c = 'a'; position.onBoard(c, '1'); c += 1) {
+            for (char r = '1'; position.onBoard(c, r); r += 1) {
+                PieceColor contents = position.get(c, r);
+                if (_painted == null || _painted.get(c, r) != contents) {
+                    bg.drawImage(SPRITES[contents.ordinal()],
+                                 (c - 'a') * SQDIM,
+                                 (side - 1 - (r - '1')) * SQDIM, null);
+                }
+            }
+        }
+        bg.dispose();
+        _painted = position;
+        g.drawImage(_buffer, 0, 0, null);
     }
 
     /** Draw a block centered at (CX, CY) on G. */
-    void drawBlock(Graphics2D g, int cx, int cy) {
+    static void drawBlock(Graphics2D g, int cx, int cy) {
+        int half = SQDIM / 2 - 4;
+        g.setColor(BLOCK_COLOR);
+        g.fillRect(cx - half, cy - half, 2 * half, 2 * half);
     }
 
     /** Notify observers of mouse's current position from click event WHERE. */
@@ -62,20 +129,49 @@ class AtaxxBoardWidget extends Pad implements Observer {
         char mouseCol, mouseRow;
         if (where.getButton() == MouseEvent.BUTTON1) {
             mouseCol = (char) (x / SQDIM + 'a');
-            mouseRow = (char) ((SQDIM * SIDE - y) / SQDIM + '1');
-            if (mouseCol >= 'a' && mouseCol <= 'g'
-                && mouseRow >= '1' && mouseRow <= '7') {
+            mouseRow = (char) ((_dim - y) / SQDIM + '1');
+            if (_model.published().onBoard(mouseCol, mouseRow)) {
                 setChanged();
-                notifyObservers("" + mouseCol + mouseRow);
+                notifyObservers("" + mouseCol + Move.rowName(mouseRow));
             }
         }
     }
 
+    /** Request a repaint of the smallest rectangle containing the
+     *  squares in CHANGED.  Swing merges the repaint requests made before
+     *  the next frame, so that the board is painted at most once per
+     *  frame however often it changes.  Called on the thread playing
+     *  the game, which alone may read BOARD itself. */
     @Override
-    public synchronized void update(Observable model, Object arg) {
-        repaint();
+    public void boardChanged(Board board, BitSet changed) {
+        int side = board.side(), ext = board.extendedSide();
+        if (_dim != SQDIM * side) {
+            resize(side);
+            repaint();
+            return;
+        }
+        int left, right, top, bottom;
+        left = top = side;
+        right = bottom = -1;
+        for (int sq = changed.nextSetBit(0); sq >= 0;
+             sq = changed.nextSetBit(sq + 1)) {
+            int c = sq % ext - 2, y = side - 1 - (sq / ext - 2);
+            left = Math.min(left, c);
+            right = Math.max(right, c);
+            top = Math.min(top, y);
+            bottom = Math.max(bottom, y);
+        }
+        if (right >= 0) {
+            repaint(left * SQDIM, top * SQDIM, (right - left + 1) * SQDIM,
+                    (bottom - top + 1) * SQDIM);
+        }
     }
 
     /** Dimension of current drawing surface in pixels. */
-    private int _dim;
+    private volatile int _dim;
+    /** The board as last painted.  Used only on the event thread. */
+    private BufferedImage _buffer;
+    /** The position drawn in _buffer, or null if it must be redrawn
+     *  from scratch.  Used only on the event thread. */
+    private Board.Snapshot _painted;
 }
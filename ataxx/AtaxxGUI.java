@@ -5,63 +5,119 @@ import ucb.gui2.LayoutSpec;
 
 import java.util.Observable;
 import java.util.Observer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
-import java.io.Writer;
-import java.io.PrintWriter;
+import javax.swing.SwingUtilities;
 
 /** The GUI for the Ataxx game.
  *  @author Melissa Ly
  */
-class AtaxxGUI extends TopLevel implements Observer, Reporter {
+class AtaxxGUI extends TopLevel
+    implements Observer, SearchListener, Reporter {
 
     /* The implementation strategy applied here is to make it as
      * unnecessary as possible for the rest of the program to know that it
      * is interacting with a GUI as opposed to a terminal.
      *
-     * To this end, we first have made Board observable, so that the
-     * GUI gets notified of changes to a Game's board and can interrogate
-     * it as needed, while the Game and Board themselves need not be aware
-     * that it is being watched.
+     * To this end, we first have made Board accept BoardListeners, so that
+     * the GUI gets notified of changes to a Game's board and can
+     * interrogate it as needed, while the Game and Board themselves need
+     * not be aware that it is being watched.
      *
      * Second, instead of creating a new API by which the GUI communicates
      * with a Game, we instead simply arrange to make the GUI's input look
      * like that from a terminal, so that we can reuse all the machinery
      * in the rest of the program to interpret and execute commands.  The
      * AtaxxGUI simply composes commands (such as "start" or "clear") and
-     * writes them to a Writer that (using the Java library's PipedReader
-     * and PipedWriter classes) provides input to the Game using exactly the
-     * same API as would be used to read from a terminal. Thus, a simple
-     * Manual player can handle all commands and moves from the GUI.
+     * adds them to a QueueSource that provides input to the Game using
+     * exactly the same API as would be used to read from a terminal.
+     * Thus, a simple Manual player can handle all commands and moves from
+     * the GUI.
      *
-     * See also Main.java for how this might get set up.
+     * The game runs on its own thread, and its AI players search on yet
+     * another (see Main.java), so the event thread never waits for a
+     * search.  Searches report their progress to the GUI, which shows it
+     * at most once every PROGRESS_MILLIS milliseconds.
      */
 
     /** Minimum size of board in pixels. */
     private static final int MIN_SIZE = 300;
+    /** Least interval between displays of search progress
+     *  (milliseconds). */
+    private static final long PROGRESS_MILLIS = 200;
 
     /** A new display observing MODEL, with TITLE as its window title.
-     *  It uses OUTCOMMANDS to send commands to a game instance, using the
-     *  same commands as the text format for Ataxx. */
-    AtaxxGUI(String title, Board model, Writer outCommands) {
+     *  It adds commands for a game instance to COMMANDS, using the same
+     *  commands as the text format for Ataxx. */
+    AtaxxGUI(String title, Board model, QueueSource commands) {
         super(title, true);
+        addMenuButton("Game->New", this::newGame);
+        addMenuButton("Game->Move Now", this::moveNow);
         addMenuButton("Game->Quit", this::quit);
+        addMenuCheckBox("Options->AI Plays Red", _redAI,
+                        s -> _redAI = !_redAI);
+        addMenuCheckBox("Options->AI Plays Blue", _blueAI,
+                        s -> _blueAI = !_blueAI);
         addMenuButton("Options->Seed...", this::setSeed);
-        _model = model;
         _widget = new AtaxxBoardWidget(model);
-        _out = new PrintWriter(outCommands, true);
+        _commands = commands;
         add(_widget,
             new LayoutSpec("height", "1",
                            "width", "REMAINDER",
                            "ileft", 5, "itop", 5, "iright", 5,
                            "ibottom", 5));
+        addLabel("", "status",
+                 new LayoutSpec("y", 1, "height", 1, "width", "REMAINDER",
+                                "anchor", "west"));
         setMinimumSize(MIN_SIZE, MIN_SIZE);
         _widget.addObserver(this);
-        _model.addObserver(this);
     }
 
-    /** Execute the "Quit" button function. */
-    private synchronized void quit(String unused) {
-        _out.printf("quit%n");
+    /** Use GAME, which reads my commands, to stop searches. */
+    void setGame(Game game) {
+        _game = game;
+    }
+
+    /** Execute the "Move Now" button function: have the player that is
+     *  thinking move at once. */
+    private void moveNow(String unused) {
+        stopSearch();
+    }
+
+    /** Execute the "New" button function, abandoning any search and
+     *  starting a new game with the AI playing the sides selected in the
+     *  Options menu. */
+    private void newGame(String unused) {
+        _selected = null;
+        stopSearch();
+        newGame(_commands, _redAI, _blueAI);
+    }
+
+    /** Add to COMMANDS the commands that clear the board and start a new
+     *  game in which the AI plays red iff REDAI and blue iff BLUEAI. */
+    static void newGame(QueueSource commands, boolean redAI,
+                        boolean blueAI) {
+        commands.add("clear");
+        commands.add((redAI ? "auto" : "manual") + " red");
+        commands.add((blueAI ? "auto" : "manual") + " blue");
+        commands.add("start");
+    }
+
+    /** Execute the "Quit" button function, abandoning any search. */
+    private void quit(String unused) {
+        stopSearch();
+        _commands.add("quit");
+    }
+
+    /** Stop the search in progress, if any. */
+    private void stopSearch() {
+        Game game = _game;
+        if (game != null) {
+            game.stopSearch();
+        }
     }
 
     /** Execute Seed... command. */
@@ -73,7 +129,7 @@ class AtaxxGUI extends TopLevel implements Observer, Reporter {
         }
         try {
             long s = Long.parseLong(resp);
-            _out.printf("seed %d%n", s);
+            _commands.add("seed " + s);
         } catch (NumberFormatException excp) {
             return;
         }
@@ -85,6 +141,7 @@ class AtaxxGUI extends TopLevel implements Observer, Reporter {
 
     @Override
     public void outcomeMsg(String format, Object... args) {
+        showStatus(String.format(format, args));
     }
 
     @Override
@@ -93,22 +150,69 @@ class AtaxxGUI extends TopLevel implements Observer, Reporter {
 
     @Override
     public void update(Observable obs, Object arg) {
-        if (obs == _model) {
-            obs = null;
-        } else if (obs == _widget) {
-            obs = null;
+        if (obs == _widget) {
+            movePiece((String) arg);
+        }
+    }
+
+    /** Show INFO, the result of the latest iteration of a search, unless
+     *  progress was shown less than PROGRESS_MILLIS ago, in which case
+     *  show the latest result received when that interval is up.  Called
+     *  on the searching thread. */
+    @Override
+    public void progress(SearchResult info) {
+        if (_progress.getAndSet(info) == null) {
+            PROGRESS_TIMER.schedule(() -> {
+                    SearchResult latest = _progress.getAndSet(null);
+                    showStatus(String.format("depth %d  %s  score %d  "
+                                             + "%,d nodes",
+                                             latest.depth(),
+                                             latest.bestMove(),
+                                             latest.score(),
+                                             latest.nodes()));
+                }, PROGRESS_MILLIS, TimeUnit.MILLISECONDS);
         }
     }
 
-    /** Respond to a click on SQ while in "play" mode. */
+    /** Display TEXT in the status line, from any thread. */
+    private void showStatus(String text) {
+        SwingUtilities.invokeLater(() -> setLabel("status", text));
+    }
+
+    /** Respond to a click on SQ while in "play" mode: the first click
+     *  selects a square to move from and the second the square to move
+     *  to. */
     private void movePiece(String sq) {
+        if (_selected == null) {
+            _selected = sq;
+        } else {
+            _commands.add(_selected + "-" + sq);
+            _selected = null;
+        }
     }
 
+    /** Schedules displays of search progress. */
+    private static final ScheduledExecutorService PROGRESS_TIMER =
+        Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ataxx-progress");
+                t.setDaemon(true);
+                return t;
+            });
+
     /** Contains the drawing logic for the Ataxx model. */
     private AtaxxBoardWidget _widget;
-    /** The model of the game. */
-    private Board _model;
-    /** Output sink for sending commands to a game. */
-    private PrintWriter _out;
+    /** Where commands for the game are sent. */
+    private final QueueSource _commands;
+    /** The game reading my commands, or null if not yet known. */
+    private volatile Game _game;
+    /** The latest search progress not yet shown, or null. */
+    private final AtomicReference<SearchResult> _progress =
+        new AtomicReference<>();
+    /** The square selected by the first click of a move, or null. */
+    private String _selected;
+    /** True iff new games are to have the AI play red. */
+    private boolean _redAI;
+    /** True iff new games are to have the AI play blue. */
+    private boolean _blueAI = true;
 
 }
@@ -0,0 +1,50 @@
+package ataxx;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+/** Tests of the commands sent by the AtaxxGUI class.  They need no
+ *  display.
+ *  @author Melissa Ly
+ */
+public class AtaxxGUITest {
+
+    /** Close COMMANDS and return the lines added to it, each followed
+     *  by a semicolon. */
+    private static String lines(QueueSource commands) {
+        commands.close();
+        StringBuilder result = new StringBuilder();
+        for (String line = commands.getLine("");
+             line != null; line = commands.getLine("")) {
+            result.append(line).append(";");
+        }
+        return result.toString();
+    }
+
+    @Test public void testNewGame() {
+        QueueSource commands = new QueueSource();
+        AtaxxGUI.newGame(commands, false, true);
+        assertEquals("clear;manual red;auto blue;start;", lines(commands));
+        commands = new QueueSource();
+        AtaxxGUI.newGame(commands, true, false);
+        assertEquals("clear;auto red;manual blue;start;", lines(commands));
+    }
+
+    @Test public void testNewGameStarts() {
+        QueueSource commands = new QueueSource();
+        AtaxxGUI.newGame(commands, false, true);
+        commands.add("g1-f2");
+        commands.close();
+        Board board = new Board();
+        PrintStream out =
+            new PrintStream(new ByteArrayOutputStream(), true);
+        new Game(board, commands, new TextReporter(out), out)
+            .process(false);
+        assertEquals("AI did not reply", 2, board.allMoves().size());
+        assertEquals(PieceColor.RED, board.whoseMove());
+    }
+
+}
@@ -0,0 +1,95 @@
+package ataxx;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/** A fixed benchmark of AI searches.  A Bench searches each of the
+ *  positions in POSITIONS, which cover the opening, middle game, and
+ *  end of games on several block layouts, to a fixed depth on the
+ *  current thread, and reports the number of positions visited and how
+ *  fast.  The searches use no analysis cache or tablebase and no time
+ *  or node limit, so the total number of nodes depends only on the
+ *  search itself: it is the same on every machine, and a change in it
+ *  means a change in what the AI does rather than in the hardware it
+ *  runs on.
+ *  @author Melissa Ly
+ */
+class Bench {
+
+    /** Default depth of each search. */
+    static final int DEFAULT_DEPTH = 5;
+
+    /** The positions searched, each given by the commands (blocks and
+     *  moves, separated by commas) that set it up from the initial
+     *  position of a 7x7 board. */
+    static final String[] POSITIONS = {
+        "",
+        "block d4, g1-f1, g7-e7, a7-b6, e7-f6, b6-c5, e7-d6",
+        "block c3, g1-f1, g7-g5, f1-e2, a1-b2, e2-f3, b2-d3, f1-g2, d3-b1,"
+        + " f1-e1, b1-d1, f1-d2, a1-c1",
+        "block b4, g1-f1, a1-c3, f1-d2, g7-f6, a7-a6, f6-f5, d2-b1, f6-d4,"
+        + " b1-d3, f5-e4, c3-e3, f5-d5, d3-e5, g7-f5, d5-e6, e4-f3, d4-d3,"
+        + " f3-g4",
+        "block c3, block d4, a7-a5, a1-a3, a5-a4, g7-f6, a5-a6, g7-g6,"
+        + " a6-a7, g7-f7, a7-c7, f7-d6, a6-c6, g7-f5, d6-e6, g6-g5, d6-f4,"
+        + " f6-g4, e6-f6, f4-d6, f6-d7, g4-f6, d7-f7, f5-d7, f7-d5, d7-e7",
+        "block b2, g1-g3, g7-e5, g3-f4, a1-c3, g3-f5, c3-e4, a7-b7, e5-d5,"
+        + " b7-c6, e5-d6, b7-c5, e5-d4, d6-e6, c5-d7, d5-c5, e6-c4, d6-b5,"
+        + " d7-b7, c4-e3, d5-c7, b5-a6, c7-d5, e3-d1, c5-a5, f5-d6, a5-c3,"
+        + " b7-a5, d4-c5, a5-c4, d6-b7",
+        "block d2, block b4, a7-c6, g7-g5, c6-d5, a1-a2, d5-d4, g5-e4,"
+        + " c6-e5, a2-b2, d4-c3, a2-c4, e4-d3, d5-e3, e5-f3, d3-f2, c4-d3,"
+        + " f3-d5, e3-c5, e4-e3, d5-f3, d3-e2, e4-g2, e2-f1, f3-e4, e2-c2,"
+        + " c5-b3, d3-d5, c3-e5, c4-c3, e4-d3, f2-e2, e5-g3, b3-c5, c3-b3,"
+        + " a1-a2, c2-b1, b3-c1",
+        "block c4, g1-f3, a1-c1, f3-d1, g7-f6, a7-a6, g7-f7, a7-c6, f7-d5,"
+        + " c1-c3, c6-b7, c3-d4, c6-e5, c3-c5, f6-f5, c5-e6, b7-d6, d4-c5,"
+        + " a6-c6, f6-d7, g7-f6, d7-f7, c5-e7, g7-g6, e7-g5, c6-c5, g5-e7,"
+        + " c6-d7, e5-c7, e6-g5, c6-e6, d4-e5, c7-c6, d4-b6, d5-d4, b6-b5,"
+        + " e5-c3, e6-e5, c3-b4, d1-b3, b5-d3, b4-c2, d4-b2, d5-d4, b3-b5",
+    };
+
+    /** A Bench that searches each position to DEPTH plies. */
+    Bench(int depth) {
+        _limits = new SearchLimits(depth, 0, 0);
+    }
+
+    /** Search each of POSITIONS in turn, reporting each search and then
+     *  the totals on OUT.  Return the total number of nodes visited. */
+    long run(PrintStream out) {
+        long nodes = 0, start = System.nanoTime();
+        for (int k = 0; k < POSITIONS.length; k += 1) {
+            Board board = position(k);
+            AI ai = new AI(board.whoseMove());
+            ai.useCache(null);
+            ai.useTablebase(null);
+            SearchResult result = ai.search(board, _limits, null);
+            out.printf("Position %d/%d: %s, %d nodes%n", k + 1,
+                       POSITIONS.length, result.move(), result.nodes());
+            nodes += result.nodes();
+        }
+        long nanos = Math.max(System.nanoTime() - start, 1);
+        out.printf("===========================%n"
+                   + "Total time (ms) : %d%n"
+                   + "Nodes searched  : %d%n"
+                   + "Nodes/second    : %d%n",
+                   nanos / NANOS_PER_MILLI, nodes,
+                   Math.round(nodes * 1e9 / nanos));
+        out.flush();
+        return nodes;
+    }
+
+    /** Return the board set up as for POSITIONS[K]. */
+    static Board position(int k) {
+        if (POSITIONS[k].isEmpty()) {
+            return new Board();
+        }
+        return Engine.position(Arrays.asList(POSITIONS[k].split(",\\s*")));
+    }
+
+    /** Nanoseconds in a millisecond. */
+    private static final long NANOS_PER_MILLI = 1_000_000;
+
+    /** Limits on each search. */
+    private final SearchLimits _limits;
+}
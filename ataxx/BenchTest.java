@@ -0,0 +1,32 @@
+package ataxx;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+/** Tests of the Bench class.
+ *  @author Melissa Ly
+ */
+public class BenchTest {
+
+    /** Total nodes visited by Bench(2).  This changes only when the
+     *  search itself does, and must then be updated along with it. */
+    private static final long DEPTH2_NODES = 5558;
+
+    @Test public void testPositions() {
+        for (int k = 0; k < Bench.POSITIONS.length; k += 1) {
+            assertFalse(Bench.position(k).gameOver());
+        }
+    }
+
+    @Test public void testNodes() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long nodes = new Bench(2).run(new PrintStream(output, true));
+        assertEquals(DEPTH2_NODES, nodes);
+        assertEquals(nodes, new Bench(2).run(new PrintStream(output, true)));
+        assertTrue(output.toString().contains("Nodes searched  : " + nodes));
+    }
+
+}
@@ -2,22 +2,26 @@ package ataxx;
 
 /* Author: P. N. Hilfinger, (C) 2008. */
 
-import java.util.Observable;
 import java.util.Stack;
 import java.util.HashMap;
 import java.util.Arrays;
 import java.util.Formatter;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static ataxx.PieceColor.*;
 import static ataxx.GameException.error;
 
-/** An Ataxx board.   The squares are labeled by column (a char value between
- *  'a' - 2 and 'g' + 2) and row (a char value between '1' - 2 and '7'
- *  + 2) or by linearized index, an integer described below.  Values of
- *  the column outside 'a' and 'g' and of the row outside '1' to '7' denote
- *  two layers of border squares, which are always blocked.
+/** An Ataxx board.  A board has side() squares on a side, from MIN_SIDE
+ *  to MAX_SIDE (SIDE by default).  The squares are labeled by column (a
+ *  char value between 'a' - 2 and the last column + 2) and row (a char
+ *  value between '1' - 2 and the last row + 2) or by linearized index, an
+ *  integer described below.  Row numbers above 9 are denoted by the
+ *  characters following '9' (see Move.row).  Values of the column and
+ *  row outside the board denote two layers of border squares, which are
+ *  always blocked.
  *  This artificial border (which is never actually printed) is a common
  *  trick that allows one to avoid testing for edge conditions.
  *  For example, to look at all the possible moves from a square, sq,
@@ -34,74 +38,289 @@ import static ataxx.GameException.error;
  *  Moves on this board are denoted by Moves.
  *  @author Melissa Ly
  */
-class Board extends Observable {
+class Board {
 
-    /** Number of squares on a side of the board. */
+    /** Default number of squares on a side of the board. */
     static final int SIDE = 7;
-    /** Length of a side + an artificial 2-deep border region. */
-    static final int EXTENDED_SIDE = SIDE + 4;
+    /** Least number of squares on a side of the board. */
+    static final int MIN_SIDE = 5;
+    /** Greatest number of squares on a side of the board (so that
+     *  columns run from 'a' to 'o'). */
+    static final int MAX_SIDE = 15;
 
     /** Number of non-extending moves before game ends. */
     static final int JUMP_LIMIT = 25;
 
     /** A new, cleared board at the start of the game. */
     Board() {
-        _board = new PieceColor[EXTENDED_SIDE * EXTENDED_SIDE];
-        numBlue = 2;
-        numRed = 2;
-        numBlocks = 0;
-        numEmpty = (SIDE * SIDE) - 4;
+        this(SIDE);
+    }
+
+    /** A new, cleared board at the start of the game, with SIDE squares
+     *  on a side. */
+    Board(int side) {
         allMoves = new ArrayList<>();
-        playerJumps = 0;
         playerPass = 0;
-        totalMoves = 0;
         stackUndo = new Stack<>();
         flipPieces = new Stack<>();
-        clear();
+        resize(side);
     }
 
-    /** A copy of B. */
+    /** A copy of B.  The copy has its own squares, move list, and undo
+     *  stacks, so that moves made on either (possibly by different
+     *  threads) do not affect the other.  The records of past moves on
+     *  the undo stacks are shared, and must not be changed by either. */
     Board(Board b) {
+        this(b, true);
+    }
+
+    /** A copy of B, with copies of its move list and undo stacks iff
+     *  HISTORY, and otherwise with none, as for searchCopy(). */
+    private Board(Board b, boolean history) {
+        _side = b._side;
+        _extendedSide = b._extendedSide;
         _board = b._board.clone();
-        _whoseMove = b.whoseMove();
-        numBlue = b.bluePieces();
-        numRed = b.redPieces();
+        _whoseMove = b._whoseMove;
+        numBlue = b.numBlue;
+        numRed = b.numRed;
+        numBlocks = b.numBlocks;
         numEmpty = b.numEmpty;
-        playerJumps = b.numJumps();
-        playerPass = b.playerPass();
-        allMoves = b.allMoves();
-        stackUndo = b.getStackUndo();
-        flipPieces = b.getFlipPieces();
+        totalMoves = b.totalMoves;
+        playerJumps = b.playerJumps;
+        playerPass = b.playerPass;
+        if (history) {
+            allMoves = new ArrayList<>(b.allMoves);
+            stackUndo = new Stack<>();
+            stackUndo.addAll(b.stackUndo);
+            flipPieces = new Stack<>();
+            flipPieces.addAll(b.flipPieces);
+        } else {
+            allMoves = new ArrayList<>();
+            stackUndo = new Stack<>();
+            flipPieces = new Stack<>();
+        }
+    }
+
+    /** Return a copy of my position for use by a search: my squares,
+     *  the player to move, and the counts of moves and jumps, but none
+     *  of the moves that led to it, which take time to copy in
+     *  proportion to the length of the game.  Moves made on the copy
+     *  may be undone, but not those made before it. */
+    Board searchCopy() {
+        return new Board(this, false);
+    }
+
+    /** Return the number of squares on a side of me. */
+    int side() {
+        return _side;
+    }
+
+    /** Return the number of squares on a side of me, including the
+     *  border. */
+    int extendedSide() {
+        return _extendedSide;
+    }
+
+    /** Return the last column of me. */
+    char lastCol() {
+        return (char) ('a' + _side - 1);
+    }
+
+    /** Return the last row of me. */
+    char lastRow() {
+        return (char) ('1' + _side - 1);
+    }
+
+    /** Return true iff square C R is on me (not in the border). */
+    boolean onBoard(char c, char r) {
+        return c >= 'a' && c <= lastCol() && r >= '1' && r <= lastRow();
     }
 
     /** Return the linearized index of square COL ROW. */
-    static int index(char col, char row) {
-        return (row - '1' + 2) * EXTENDED_SIDE + (col - 'a' + 2);
+    int index(char col, char row) {
+        return (row - '1' + 2) * _extendedSide + (col - 'a' + 2);
     }
 
     /** Return the linearized index of the square that is DC columns and DR
      *  rows away from the square with index SQ. */
-    static int neighbor(int sq, int dc, int dr) {
-        return sq + dc + dr * EXTENDED_SIDE;
+    int neighbor(int sq, int dc, int dr) {
+        return sq + dc + dr * _extendedSide;
+    }
+
+    /** Change my size to SIDE squares on a side, where MIN_SIDE <= SIDE
+     *  <= MAX_SIDE, and clear me. */
+    void resize(int side) {
+        if (side < MIN_SIDE || side > MAX_SIDE) {
+            throw error("board size must be between %d and %d",
+                        MIN_SIDE, MAX_SIDE);
+        }
+        _side = side;
+        _extendedSide = side + 4;
+        _board = new PieceColor[_extendedSide * _extendedSide];
+        Arrays.fill(_board, BLOCKED);
+        if (_changed != null) {
+            _changed.set(0, _board.length);
+        }
+        clear();
     }
 
     /** Clear me to my starting state, with pieces in their initial
      *  positions and no blocks. */
     void clear() {
         _whoseMove = RED;
-        for (char c = 'a'; c <= 'g'; c++) {
-            for (char r = '1'; r <= '7'; r++) {
+        numBlue = 2;
+        numRed = 2;
+        numBlocks = 0;
+        numEmpty = (_side * _side) - 4;
+        playerJumps = 0;
+        totalMoves = 0;
+        allMoves.clear();
+        stackUndo.clear();
+        flipPieces.clear();
+        for (char c = 'a'; c <= lastCol(); c++) {
+            for (char r = '1'; r <= lastRow(); r++) {
                 unrecordedSet(c, r, EMPTY);
             }
         }
-        for (int i = 0; i < _board.length; i++) {
-            unrecordedSet('a', '7', RED);
-            unrecordedSet('g', '1', RED);
-            unrecordedSet('a', '1', BLUE);
-            unrecordedSet('g', '7', BLUE);
-            setChanged();
-            notifyObservers();
+        unrecordedSet('a', lastRow(), RED);
+        unrecordedSet(lastCol(), '1', RED);
+        unrecordedSet('a', '1', BLUE);
+        unrecordedSet(lastCol(), lastRow(), BLUE);
+        announce();
+    }
+
+    /** Set me to the position in which square C R contains
+     *  CONTENTS[R - '1'][C - 'a'] for each square C R on me, NEXT is to
+     *  move, and there have been JUMPS consecutive jumps.  CONTENTS must
+     *  be side() x side().  The move history is cleared, so that the
+     *  position cannot be undone. */
+    void setPosition(PieceColor[][] contents, PieceColor next, int jumps) {
+        for (char c = 'a'; c <= lastCol(); c++) {
+            for (char r = '1'; r <= lastRow(); r++) {
+                unrecordedSet(c, r, contents[r - '1'][c - 'a']);
+            }
+        }
+        _whoseMove = next;
+        playerJumps = jumps;
+        totalMoves = 0;
+        allMoves.clear();
+        stackUndo.clear();
+        flipPieces.clear();
+        announce();
+    }
+
+    /** Return a snapshot of my current position. */
+    Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    /** Start publishing a snapshot of my position after each operation
+     *  (a move, pass, undo, block placement, or reset), beginning with
+     *  the current position, for published() to return.  Must be called
+     *  on the thread that changes me.  Copies of me do not publish. */
+    void publishSnapshots() {
+        _publishing = true;
+        _published = snapshot();
+    }
+
+    /** Return the snapshot of my position published after the last
+     *  operation on me completed, or null if I do not publish snapshots
+     *  (see publishSnapshots).  May be called from any thread without
+     *  locking: the snapshot is immutable, and never shows an operation
+     *  half done, although the position may have moved on by the time
+     *  it is read. */
+    Snapshot published() {
+        return _published;
+    }
+
+    /** Set me to the position in SNAPSHOT, reached by the moves in
+     *  HISTORY, which become my allMoves().  The position cannot be
+     *  undone. */
+    void restore(Snapshot snapshot, List<Move> history) {
+        if (snapshot.side() != _side) {
+            resize(snapshot.side());
+        }
+        for (char c = 'a'; c <= lastCol(); c++) {
+            for (char r = '1'; r <= lastRow(); r++) {
+                unrecordedSet(c, r, snapshot.get(c, r));
+            }
+        }
+        _whoseMove = snapshot.whoseMove();
+        playerJumps = snapshot.numJumps();
+        allMoves.clear();
+        allMoves.addAll(history);
+        totalMoves = 0;
+        for (Move move : history) {
+            if (!move.isPass()) {
+                totalMoves += 1;
+            }
+        }
+        stackUndo.clear();
+        flipPieces.clear();
+        announce();
+    }
+
+    /** An immutable, compact record of the position on a Board: its
+     *  size, the contents of its squares, the player to move, and the
+     *  number of consecutive jumps. */
+    static final class Snapshot {
+
+        /** A snapshot of the current position on BOARD. */
+        private Snapshot(Board board) {
+            _side = board.side();
+            _whoseMove = board.whoseMove();
+            _jumps = board.numJumps();
+            _cells = new byte[_side * _side];
+            for (char c = 'a'; c <= board.lastCol(); c++) {
+                for (char r = '1'; r <= board.lastRow(); r++) {
+                    _cells[cell(c, r)] = (byte) board.get(c, r).ordinal();
+                }
+            }
+        }
+
+        /** Return the number of squares on a side of the board. */
+        int side() {
+            return _side;
+        }
+
+        /** Return true iff square C R is on the board. */
+        boolean onBoard(char c, char r) {
+            return c >= 'a' && c < 'a' + _side && r >= '1' && r < '1' + _side;
+        }
+
+        /** Return the contents of square C R, which must be on the
+         *  board. */
+        PieceColor get(char c, char r) {
+            return COLORS[_cells[cell(c, r)]];
+        }
+
+        /** Return the player to move. */
+        PieceColor whoseMove() {
+            return _whoseMove;
+        }
+
+        /** Return the number of consecutive jumps made. */
+        int numJumps() {
+            return _jumps;
         }
+
+        /** Return the index in _cells of square C R. */
+        private int cell(char c, char r) {
+            return (r - '1') * _side + (c - 'a');
+        }
+
+        /** The PieceColors, indexed by ordinal. */
+        private static final PieceColor[] COLORS = PieceColor.values();
+
+        /** Number of squares on a side. */
+        private final int _side;
+        /** Ordinals of the contents of the squares, row by row from
+         *  a1. */
+        private final byte[] _cells;
+        /** Player to move. */
+        private final PieceColor _whoseMove;
+        /** Number of consecutive jumps. */
+        private final int _jumps;
     }
 
     /** Return true iff the game is over: i.e., if neither side has
@@ -144,8 +363,8 @@ class Board extends Observable {
         }
     }
 
-    /** The current contents of square CR, where 'a'-2 <= C <= 'g'+2, and
-     *  '1'-2 <= R <= '7'+2.  Squares outside the range a1-g7 are all
+    /** The current contents of square CR, where 'a'-2 <= C <= lastCol()+2,
+     *  and '1'-2 <= R <= lastRow()+2.  Squares off the board are all
      *  BLOCKED.  Returns the same value as get(index(C, R)). */
     PieceColor get(char c, char r) {
         return _board[index(c, r)];
@@ -156,8 +375,7 @@ class Board extends Observable {
         return _board[sq];
     }
 
-    /** Set get(C, R) to V, where 'a' <= C <= 'g', and
-     *  '1' <= R <= '7'. */
+    /** Set get(C, R) to V, where C R is on the board. */
     private void set(char c, char r, PieceColor v) {
         set(index(c, r), v);
     }
@@ -172,12 +390,52 @@ class Board extends Observable {
 
     /** Set square at C R to V (not undoable). */
     private void unrecordedSet(char c, char r, PieceColor v) {
-        _board[index(c, r)] = v;
+        unrecordedSet(index(c, r), v);
     }
 
     /** Set square at linearized index SQ to V (not undoable). */
     private void unrecordedSet(int sq, PieceColor v) {
         _board[sq] = v;
+        if (_changed != null) {
+            _changed.set(sq);
+        }
+    }
+
+    /** Cause LISTENER to be notified of each subsequent change to me.
+     *  Copies of me do not notify my listeners. */
+    void addListener(BoardListener listener) {
+        if (_listeners == null) {
+            _listeners = new CopyOnWriteArrayList<>();
+            _changed = new BitSet(_board.length);
+        }
+        _listeners.add(listener);
+    }
+
+    /** Stop notifying LISTENER of changes to me. */
+    void removeListener(BoardListener listener) {
+        if (_listeners != null) {
+            _listeners.remove(listener);
+        }
+    }
+
+    /** Publish a snapshot of my position if I publish them, and then
+     *  notify my listeners, if any, of the squares changed since the
+     *  last notification, as one event. */
+    private void announce() {
+        if (_publishing) {
+            _published = new Snapshot(this);
+        }
+        if (_listeners == null || _listeners.isEmpty()) {
+            if (_changed != null) {
+                _changed.clear();
+            }
+            return;
+        }
+        BitSet changed = (BitSet) _changed.clone();
+        _changed.clear();
+        for (BoardListener listener : _listeners) {
+            listener.boardChanged(this, changed);
+        }
     }
 
     /** Return true iff MOVE is legal on the current board. */
@@ -185,11 +443,14 @@ class Board extends Observable {
         if (move == null) {
             return false;
         } else {
-            PieceColor curr = get(move.fromIndex());
-            PieceColor opp = get(move.toIndex());
             if (move.isPass()) {
                 return !canMove(_whoseMove);
             }
+            if (!onBoard(move.col0(), move.row0())) {
+                return false;
+            }
+            PieceColor curr = get(move.col0(), move.row0());
+            PieceColor opp = get(move.col1(), move.row1());
             if (curr != _whoseMove) {
                 return false;
             }
@@ -206,8 +467,8 @@ class Board extends Observable {
     /** Return true iff player WHO can move, ignoring whether it is
      *  that player's move and whether the game is over. */
     boolean canMove(PieceColor who) {
-        for (char row = '7'; row >= '1'; row--) {
-            for (char col = 'a'; col <= 'g'; col++) {
+        for (char row = lastRow(); row >= '1'; row--) {
+            for (char col = 'a'; col <= lastCol(); col++) {
                 int index = index(col, row);
                 if (get(index) == who) {
                     for (int i = -2; i <= 2; i++) {
@@ -269,14 +530,14 @@ class Board extends Observable {
             throw new GameException("ILLEGAL");
         } else if (move.isJump()) {
             startUndo();
-            set(move.toIndex(), _whoseMove);
-            set(move.fromIndex(), EMPTY);
+            set(move.col1(), move.row1(), _whoseMove);
+            set(move.col0(), move.row0(), EMPTY);
             flipPieces(move, _whoseMove);
             playerJumps += 1;
             totalMoves += 1;
         } else if (move.isExtend()) {
             startUndo();
-            set(move.toIndex(), _whoseMove);
+            set(move.col1(), move.row1(), _whoseMove);
             flipPieces(move, _whoseMove);
             playerJumps = 0;
             totalMoves += 1;
@@ -285,8 +546,7 @@ class Board extends Observable {
         }
         PieceColor opponent = _whoseMove.opposite();
         _whoseMove = opponent;
-        setChanged();
-        notifyObservers();
+        announce();
     }
 
     /** Update to indicate that the current player passes, assuming it
@@ -298,8 +558,7 @@ class Board extends Observable {
         }
         PieceColor opponent = _whoseMove.opposite();
         _whoseMove = opponent;
-        setChanged();
-        notifyObservers();
+        announce();
     }
 
     /** Undo the last move. */
@@ -310,8 +569,7 @@ class Board extends Observable {
         }
         totalMoves -= 1;
         _whoseMove = _whoseMove.opposite();
-        setChanged();
-        notifyObservers();
+        announce();
 
     }
 
@@ -333,7 +591,7 @@ class Board extends Observable {
     /** Changes the color of surrounding pieces in
      * accordance to the MOVE and PLAYER. */
     private void flipPieces(Move move, PieceColor player) {
-        int index = move.toIndex();
+        int index = index(move.col1(), move.row1());
         for (int i = -1; i < 2; i++) {
             for (int j = -1; j < 2; j++) {
                 int neigh = neighbor(index, i, j);
@@ -363,8 +621,11 @@ class Board extends Observable {
 
     /** Return true iff it is legal to place a block at C R. */
     boolean legalBlock(char c, char r) {
-        char col = (char) ('h' - (c - 'a' + 1));
-        char row = (char) ('8' - (r - '0'));
+        if (!onBoard(c, r)) {
+            return false;
+        }
+        char col = reflectCol(c);
+        char row = reflectRow(r);
         return !(get(col, row) != EMPTY && get(c, row) != EMPTY
                 && get(col, r) != EMPTY && get(c, r) != EMPTY);
     }
@@ -372,7 +633,17 @@ class Board extends Observable {
 
     /** Return true iff it is legal to place a block at CR. */
     boolean legalBlock(String cr) {
-        return legalBlock(cr.charAt(0), cr.charAt(1));
+        return legalBlock(cr.charAt(0), Move.row(cr.substring(1)));
+    }
+
+    /** Return the reflection of column C across the center column. */
+    private char reflectCol(char c) {
+        return (char) ('a' + lastCol() - c);
+    }
+
+    /** Return the reflection of row R across the center row. */
+    private char reflectRow(char r) {
+        return (char) ('1' + lastRow() - r);
     }
 
     /** Set a block on the square C R and its reflections across the middle
@@ -384,19 +655,18 @@ class Board extends Observable {
         if (!legalBlock(c, r)) {
             throw error("illegal block placement");
         }
-        char col = (char) ('h' - (c - 'a' + 1));
-        char row = (char) ('8' - (r - '0'));
+        char col = reflectCol(c);
+        char row = reflectRow(r);
         unrecordedSet(c, r, BLOCKED);
         unrecordedSet(c, row, BLOCKED);
         unrecordedSet(col, row, BLOCKED);
         unrecordedSet(col, r, BLOCKED);
-        setChanged();
-        notifyObservers();
+        announce();
     }
 
     /** Place a block at CR. */
     void setBlock(String cr) {
-        setBlock(cr.charAt(0), cr.charAt(1));
+        setBlock(cr.charAt(0), Move.row(cr.substring(1)));
     }
 
     /** Return a list of all moves made since the last clear (or start of
@@ -413,7 +683,7 @@ class Board extends Observable {
     @Override
     public boolean equals(Object obj) {
         Board other = (Board) obj;
-        return Arrays.equals(_board, other._board);
+        return _side == other._side && Arrays.equals(_board, other._board);
     }
 
     @Override
@@ -421,20 +691,60 @@ class Board extends Observable {
         return Arrays.hashCode(_board);
     }
 
+    /** Return a 64-bit key identifying my position: my size, the
+     *  contents of my squares, the player to move, and the number of
+     *  consecutive jumps.  Equal positions have equal keys; different
+     *  positions have equal keys with negligible probability. */
+    long key() {
+        return key(playerJumps);
+    }
+
+    /** Return a key identifying my position as for key(), but without
+     *  the number of consecutive jumps, so that a position that recurs
+     *  after a series of jumps has the same key each time. */
+    long repetitionKey() {
+        return key(0);
+    }
+
+    /** Return a key identifying my position as for key(), as if there
+     *  had been JUMPS consecutive jumps.  Each non-empty square
+     *  contributes a fixed random value for its index and contents,
+     *  combined by exclusive or. */
+    private long key(int jumps) {
+        long key = mix(((long) _side << 8 | jumps) << 2
+                       | _whoseMove.ordinal());
+        for (int sq = 0; sq < _board.length; sq += 1) {
+            if (_board[sq] != EMPTY) {
+                key ^= mix((long) sq << 2 | _board[sq].ordinal());
+            }
+        }
+        return key;
+    }
+
+    /** Return a pseudo-random function of X, after SplitMix64. */
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30) ^ 0x9e3779b97f4a7c15L) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+
     /** Return a text depiction of the board (not a dump).  If LEGEND,
      *  supply row and column numbers around the edges. */
     String toString(boolean legend) {
         Formatter out = new Formatter();
         out.format("===");
         if (legend) {
-            out.format("    " + "a b c d e f g");
+            out.format("    ");
+            for (char m = 'a'; m <= lastCol(); m++) {
+                out.format("%c ", m);
+            }
         }
-        for (char i = '7'; i > '0'; i--) {
+        for (char i = lastRow(); i > '0'; i--) {
             out.format("\n" + " ");
             if (legend) {
-                out.format(Character.toString(i) + " ");
+                out.format(Move.rowName(i) + " ");
             } else {
-                for (char m = 'a'; m <= 'g'; m++) {
+                for (char m = 'a'; m <= lastCol(); m++) {
                     if (_board[index(m, i)] == BLOCKED) {
                         out.format(" X");
                     } else if (_board[index(m, i)] == RED) {
@@ -463,18 +773,37 @@ class Board extends Observable {
      *  we use a 1D array to represent it, using the usual access
      *  algorithm: row r, column c => index(r, c).
      *
-     *  Next, instead of using a 7x7 board, we use an 11x11 board in
-     *  which the outer two rows and columns are blocks, and
+     *  Next, instead of using an N x N board, we use an (N+4) x (N+4)
+     *  board in which the outer two rows and columns are blocks, and
      *  row 2, column 2 actually represents row 0, column 0
      *  of the real board.  As a result of this trick, there is no
      *  need to special-case being near the edge: we don't move
      *  off the edge because it looks blocked.
      *
-     *  Using characters as indices, it follows that if 'a' <= c <= 'g'
-     *  and '1' <= r <= '7', then row c, column r of the board corresponds
-     *  to board[(c -'a' + 2) + 11 (r - '1' + 2) ], or by a little
-     *  re-grouping of terms, board[c + 11 * r + SQUARE_CORRECTION]. */
-    private final PieceColor[] _board;
+     *  Using characters as indices, it follows that if c and r are on
+     *  the board, then row c, column r of the board corresponds
+     *  to board[(c -'a' + 2) + (N+4) (r - '1' + 2) ], or by a little
+     *  re-grouping of terms, board[c + (N+4) * r + SQUARE_CORRECTION]. */
+    private PieceColor[] _board;
+
+    /** Listeners to be told of changes to me, or null if none have ever
+     *  been added. */
+    private CopyOnWriteArrayList<BoardListener> _listeners;
+    /** Linearized indices of the squares changed since the last
+     *  notification of my listeners, or null if I have none. */
+    private BitSet _changed;
+
+    /** True iff I publish a snapshot after each operation. */
+    private boolean _publishing;
+    /** The snapshot of my position after the last operation, or null if
+     *  I do not publish them. */
+    private volatile Snapshot _published;
+
+    /** Number of squares on a side. */
+    private int _side;
+
+    /** Number of squares on a side, including the border. */
+    private int _extendedSide;
 
     /** Player that is on move. */
     private PieceColor _whoseMove;
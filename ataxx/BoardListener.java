@@ -0,0 +1,16 @@
+package ataxx;
+
+import java.util.BitSet;
+
+/** Receives notice of changes to a Board.
+ *  @author Melissa Ly
+ */
+interface BoardListener {
+
+    /** Called on the thread that changed BOARD, once for each operation
+     *  (a move, pass, undo, block placement, or reset), after it
+     *  completes.  CHANGED holds the linearized indices (Board.index) of
+     *  the squares whose contents it set; the player to move may also
+     *  have changed.  CHANGED must not be modified. */
+    void boardChanged(Board board, BitSet changed);
+}
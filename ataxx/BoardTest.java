@@ -3,6 +3,13 @@ package ataxx;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /** Tests of the Board class.
  *  @author Melissa Ly
  */
@@ -49,6 +56,123 @@ public class BoardTest {
         assertEquals(2, b.numPieces(PieceColor.RED));
     }
 
+    @Test public void testSearchCopy() {
+        Board b0 = new Board();
+        makeMoves(b0, GAME1);
+        Board b1 = b0.searchCopy();
+        assertEquals(b0, b1);
+        assertEquals(b0.whoseMove(), b1.whoseMove());
+        assertEquals(b0.numMoves(), b1.numMoves());
+        assertEquals(b0.key(), b1.key());
+        assertTrue(b1.allMoves().isEmpty());
+        b1.makeMove('g', '1', 'f', '2');
+        assertEquals(PieceColor.EMPTY, b0.get('f', '2'));
+        b1.undo();
+        assertEquals(b0, b1);
+    }
+
+    @Test public void testSize() {
+        Board b = new Board(9);
+        assertEquals(9, b.side());
+        assertEquals(PieceColor.RED, b.get('a', '9'));
+        assertEquals(PieceColor.RED, b.get('i', '1'));
+        assertEquals(PieceColor.BLUE, b.get('i', '9'));
+        assertEquals(PieceColor.BLOCKED, b.get('j', '1'));
+        assertEquals(77, b.numPieces(PieceColor.EMPTY));
+        b.setBlock("b2");
+        assertEquals(PieceColor.BLOCKED, b.get('h', '8'));
+        b.makeMove('i', '1', 'g', '3');
+        assertEquals(PieceColor.RED, b.get('g', '3'));
+        b.resize(Board.SIDE);
+        assertEquals(new Board(), b);
+        try {
+            b.resize(Board.MAX_SIDE + 1);
+            fail("accepted oversized board");
+        } catch (GameException excp) {
+            assertEquals(Board.SIDE, b.side());
+        }
+    }
+
+    @Test public void testListeners() {
+        Board b = new Board();
+        List<BitSet> events = new ArrayList<>();
+        BoardListener listener = (board, changed) -> events.add(changed);
+        b.addListener(listener);
+        b.clear();
+        assertEquals(1, events.size());
+        assertEquals(Board.SIDE * Board.SIDE, events.get(0).cardinality());
+        Board copy = new Board(b);
+        copy.makeMove('a', '7', 'b', '6');
+        assertEquals(1, events.size());
+        b.makeMove('a', '7', 'b', '6');
+        assertEquals(2, events.size());
+        assertEquals(1, events.get(1).cardinality());
+        assertTrue(events.get(1).get(b.index('b', '6')));
+        b.removeListener(listener);
+        b.undo();
+        assertEquals(2, events.size());
+    }
+
+    /** Return a description of the position in SNAPSHOT. */
+    private static String contents(Board.Snapshot snapshot) {
+        StringBuilder result = new StringBuilder();
+        for (char r = '1'; snapshot.onBoard('a', r); r += 1) {
+            for (char c = 'a'; snapshot.onBoard(c, r); c += 1) {
+                result.append(snapshot.get(c, r).ordinal());
+            }
+        }
+        return result.append(snapshot.whoseMove()).toString();
+    }
+
+    @Test public void testPublished() {
+        Board b = new Board();
+        assertNull(b.published());
+        b.publishSnapshots();
+        Board.Snapshot start = b.published();
+        assertEquals(contents(b.snapshot()), contents(start));
+        b.makeMove('a', '7', 'b', '6');
+        assertEquals(PieceColor.RED, b.published().get('b', '6'));
+        assertEquals(PieceColor.EMPTY, start.get('b', '6'));
+        assertEquals(PieceColor.BLUE, b.published().whoseMove());
+        Board copy = new Board(b);
+        copy.makeMove('a', '1', 'b', '2');
+        assertNull(copy.published());
+        assertEquals(PieceColor.EMPTY, b.published().get('b', '2'));
+    }
+
+    @Test public void testPublishedConcurrently() throws InterruptedException {
+        Board b = new Board();
+        b.publishSnapshots();
+        Set<String> positions = new HashSet<>();
+        positions.add(contents(b.snapshot()));
+        List<Board.Snapshot> seen = new ArrayList<>();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread reader = new Thread(() -> {
+                while (!done.get()) {
+                    Board.Snapshot snapshot = b.published();
+                    if (seen.isEmpty()
+                        || seen.get(seen.size() - 1) != snapshot) {
+                        seen.add(snapshot);
+                    }
+                }
+            });
+        reader.start();
+        for (int k = 0; k < 2000; k += 1) {
+            makeMoves(b, GAME1);
+            b.clear();
+        }
+        positions.add(contents(b.snapshot()));
+        for (String s : GAME1) {
+            makeMoves(b, new String[] { s });
+            positions.add(contents(b.snapshot()));
+        }
+        done.set(true);
+        reader.join();
+        for (Board.Snapshot snapshot : seen) {
+            assertTrue(positions.contains(contents(snapshot)));
+        }
+    }
+
     @Test public void testBlock() {
         Board board = new Board();
         assertEquals(false, board.legalBlock('a', '1'));
@@ -16,17 +16,19 @@ class Command {
      *  programmer writes. */
     enum Type {
         /* Start-up state only. */
-        AUTO("(?i)auto\\s+(red|blue)"),
-        BLOCK("(?i)block\\s+([a-g][1-7])"),
+        AUTO("(?i)auto\\s+(red|blue)(?:\\s+(mcts))?"),
+        BLOCK("(?i)block\\s+([a-o](?:1[0-5]|[1-9]))"),
         MANUAL("(?i)manual\\s+(red|blue)"),
         SEED("(?i)seed\\s+(\\d+)"),
+        SIZE("(?i)size\\s+(\\d+)"),
         START,
         /* Regular moves (set-up or play) */
         PASS("[-]?|pass?"),
-        PIECEMOVE("([a-g])([1-7])-([a-g])([1-7])"),
+        PIECEMOVE("([a-o])(1[0-5]|[1-9])-([a-o])(1[0-5]|[1-9])"),
         /* Valid at any time. */
         LOAD("(?i)load\\s+(.+)"),
-        QUIT, CLEAR, DUMP, HELP,
+        BENCH("(?i)bench(?:\\s+(\\d+))?"),
+        QUIT, CLEAR, DUMP, HELP, STATS,
         /* Special "commands" internally generated. */
         /** Syntax error in command. */
         ERROR(".*"),
@@ -38,18 +40,38 @@ class Command {
          *  assuming no leading or trailing whitespace.  The groups in
          *  the pattern capture the operands (if any). */
         Type(String pattern) {
-            _pattern = Pattern.compile(pattern + "$");
+            _syntax = pattern + "$";
         }
 
         /** A Type whose pattern is the lower-case version of its name
          *  (with no arguments). */
         Type() {
-            _pattern = Pattern.compile(this.toString().toLowerCase() + "$");
+            _syntax = null;
         }
 
-        /** The Pattern descrbing syntactically correct versions of this
-         *  type of command. */
-        private final Pattern _pattern;
+        /** Return the Pattern describing syntactically correct versions
+         *  of this type of command.  Patterns are compiled when first
+         *  needed rather than when the class is loaded, so that a
+         *  session compiles only those of the types up to the last one
+         *  it has used. */
+        private Pattern pattern() {
+            Pattern result = _pattern;
+            if (result == null) {
+                String syntax = _syntax;
+                if (syntax == null) {
+                    syntax = toString().toLowerCase() + "$";
+                }
+                result = _pattern = Pattern.compile(syntax);
+            }
+            return result;
+        }
+
+        /** The regular expression describing syntactically correct
+         *  versions of this type of command, or null if it is the
+         *  lower-case version of its name. */
+        private final String _syntax;
+        /** The compiled form of _syntax, or null if not yet needed. */
+        private volatile Pattern _pattern;
 
     }
 
@@ -71,16 +93,21 @@ class Command {
 
     /** Parse COMMAND, returning the command and its operands.
      *  COMMAND is assumed to be trimmed of all leading and
-     *  trailing whitespace.  */
+     *  trailing whitespace.  Trailing optional operands that are
+     *  absent are omitted. */
     static Command parseCommand(String command) {
         if (command == null) {
             return new Command(Type.EOF);
         }
         command = command.trim();
         for (Type type : Type.values()) {
-            Matcher mat = type._pattern.matcher(command);
+            Matcher mat = type.pattern().matcher(command);
             if (mat.matches()) {
-                String[] operands = new String [mat.groupCount()];
+                int n = mat.groupCount();
+                while (n > 0 && mat.group(n) == null) {
+                    n -= 1;
+                }
+                String[] operands = new String [n];
                 for (int i = 1; i <= operands.length; i += 1) {
                     operands[i - 1] = mat.group(i);
                 }
@@ -31,6 +31,7 @@ public class CommandTest {
     @Test public void testAUTO() {
         check("auto red", AUTO, "red");
         check("auto blue", AUTO, "blue");
+        check("auto blue mcts", AUTO, "blue", "mcts");
         checkError("auto green");
         checkError("auto");
         checkError("auto red foo");
@@ -48,6 +49,12 @@ public class CommandTest {
         checkError("seed 142 foo");
     }
 
+    @Test public void testSIZE() {
+        check("size 9", SIZE, "9");
+        checkError("size");
+        checkError("size nine");
+    }
+
     @Test public void testSTART() {
         check("start", START);
         checkError("start foo");
@@ -71,12 +78,13 @@ public class CommandTest {
 
     @Test public void testMOVE() {
         check("a3-b3", PIECEMOVE, "a", "3", "b", "3");
+        check("a10-b11", PIECEMOVE, "a", "10", "b", "11");
         checkError("a3b3");
         checkError("a3-b3 foo");
         checkError("3a-3b");
-        checkError("h3-g3");
+        checkError("p3-o3");
         checkError("a0-a1");
-        checkError("a7-a8");
+        checkError("a15-a16");
     }
 
 }
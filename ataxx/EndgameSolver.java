@@ -0,0 +1,331 @@
+package ataxx;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static ataxx.PieceColor.*;
+
+/** Finds the exact values of positions near the end of a game, for
+ *  TablebaseBuilder.  An EndgameSolver searches the whole game tree
+ *  below a position by alpha-beta with a transposition table, on
+ *  bitboards of at most 64 squares: a position is the sets of squares
+ *  held by the player to move and by the opponent, the blocks, the
+ *  number of consecutive jumps, and the color of the player to move.
+ *  Since every extend fills a square and every jump counts toward
+ *  Board.JUMP_LIMIT, the game tree is finite and has no cycles, so the
+ *  value found for a position does not depend on how it was reached.
+ *
+ *  Jumps can nonetheless make the tree very large, so each search gives
+ *  up after visiting a given number of positions.  Each search first
+ *  finds only whether the player to move wins, draws, or loses, which
+ *  is much cheaper, and then, for a win or loss, the margin.  The values
+ *  and bounds left in the transposition table by a search, even one that
+ *  gave up, are exact for the positions they describe, so they too are
+ *  reported as results, except for those deep in chains of jumps,
+ *  which are many and seldom reached in play.
+ *  @author Melissa Ly
+ */
+class EndgameSolver {
+
+    /** A solver for boards with SIDE squares on a side that visits at
+     *  most BUDGET positions (but no more than MAX_BUDGET) in each
+     *  search, and reports the values only of positions reached by at
+     *  most MAXJUMPS consecutive jumps. */
+    EndgameSolver(int side, long budget, int maxJumps) {
+        if (side * side > Long.SIZE) {
+            throw new IllegalArgumentException("board too large");
+        }
+        _side = side;
+        _budget = Math.min(budget, MAX_BUDGET);
+        _maxJumps = maxJumps;
+        _all = side * side == Long.SIZE ? -1L : (1L << side * side) - 1;
+        _adjacent = new long[side * side];
+        _far = new long[side * side];
+        for (int sq = 0; sq < side * side; sq += 1) {
+            int c = sq % side, r = sq / side;
+            for (int dc = -2; dc <= 2; dc += 1) {
+                for (int dr = -2; dr <= 2; dr += 1) {
+                    int c1 = c + dc, r1 = r + dr;
+                    if ((dc != 0 || dr != 0) && c1 >= 0 && c1 < side
+                        && r1 >= 0 && r1 < side) {
+                        long bit = 1L << (r1 * side + c1);
+                        if (Math.max(Math.abs(dc), Math.abs(dr)) == 1) {
+                            _adjacent[sq] |= bit;
+                        } else {
+                            _far[sq] |= bit;
+                        }
+                    }
+                }
+            }
+        }
+        int size = Integer.highestOneBit((int) _budget) * TABLE_SLOTS;
+        _tableMine = new long[size];
+        _tableTheirs = new long[size];
+        _tableInfo = new int[size];
+        _tableAge = new int[size];
+        _scratch = new Board(side);
+        _contents = new PieceColor[side][side];
+    }
+
+    /** Solve BOARD, which must have my size and whose game must not be
+     *  over, as far as my budget allows.  Add the value of each position
+     *  found, as for Tablebase.probe, to RESULTS under its key, keeping
+     *  exact margins in preference to WIN and LOSS.  Return the value of
+     *  BOARD, or Tablebase.MISSING if it was not found. */
+    int solve(Board board, Map<Long, Integer> results) {
+        long mine = 0, theirs = 0;
+        PieceColor player = board.whoseMove();
+        _blocks = 0;
+        for (char c = 'a'; c <= board.lastCol(); c += 1) {
+            for (char r = '1'; r <= board.lastRow(); r += 1) {
+                long bit = 1L << ((r - '1') * _side + c - 'a');
+                PieceColor piece = board.get(c, r);
+                if (piece == player) {
+                    mine |= bit;
+                } else if (piece == player.opposite()) {
+                    theirs |= bit;
+                } else if (piece == BLOCKED) {
+                    _blocks |= bit;
+                }
+            }
+        }
+        boolean red = player == RED;
+        int jumps = board.numJumps();
+        _age += 1;
+        int value = Tablebase.MISSING;
+        try {
+            _nodes = 0;
+            int result = search(mine, theirs, jumps, red, -1, 1);
+            value = result >= 1 ? Tablebase.WIN
+                : result <= -1 ? Tablebase.LOSS : 0;
+            if (value != 0) {
+                _nodes = 0;
+                value = search(mine, theirs, jumps, red, -INFTY, INFTY);
+            }
+        } catch (BudgetExceeded excp) {
+            /* Keep what was found. */
+        }
+        harvest(results);
+        return value;
+    }
+
+    /** Return the number of positions visited by the last search made by
+     *  solve. */
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Return the final margin for the player to move in the position in
+     *  which that player holds MINE, the opponent holds THEIRS, there
+     *  have been JUMPS consecutive jumps, and RED is true iff red is to
+     *  move, with best play by both sides.  The result is exact if it
+     *  lies strictly between ALPHA and BETA, and otherwise is a bound on
+     *  the same side of the window. */
+    private int search(long mine, long theirs, int jumps, boolean red,
+                       int alpha, int beta) {
+        _nodes += 1;
+        if (_nodes > _budget) {
+            throw new BudgetExceeded();
+        }
+        long empty = _all & ~(mine | theirs | _blocks);
+        int margin = Long.bitCount(mine) - Long.bitCount(theirs);
+        if (mine == 0 || theirs == 0 || jumps >= Board.JUMP_LIMIT) {
+            return margin;
+        }
+        if (!canMove(mine, empty)) {
+            if (!canMove(theirs, empty)) {
+                return margin;
+            }
+            return -search(theirs, mine, jumps, !red, -beta, -alpha);
+        }
+        int slot = find(mine, theirs, jumps, red);
+        if (_tableAge[slot] == _age) {
+            int info = _tableInfo[slot];
+            int value = (byte) (info >>> VALUE_SHIFT);
+            int bound = info >>> BOUND_SHIFT & 3;
+            if (bound == AnalysisCache.EXACT
+                || bound == AnalysisCache.LOWER && value >= beta
+                || bound == AnalysisCache.UPPER && value <= alpha) {
+                return value;
+            }
+        }
+        int alpha0 = alpha;
+        int n = 0;
+        for (long e = empty; e != 0; e &= e - 1) {
+            int sq = Long.numberOfTrailingZeros(e);
+            n += ((_adjacent[sq] & mine) != 0 ? 1 : 0)
+                + Long.bitCount(_far[sq] & mine);
+        }
+        long[] nextMine = new long[n], nextTheirs = new long[n];
+        int[] order = new int[n];
+        n = 0;
+        for (long e = empty; e != 0; e &= e - 1) {
+            int sq = Long.numberOfTrailingZeros(e);
+            long to = 1L << sq, captured = _adjacent[sq] & theirs;
+            int gain = 2 * Long.bitCount(captured);
+            if ((_adjacent[sq] & mine) != 0) {
+                nextMine[n] = theirs & ~captured;
+                nextTheirs[n] = mine | to | captured;
+                order[n] = (gain + 1 + EXTEND_BONUS) << MOVE_BITS | n;
+                n += 1;
+            }
+            for (long f = _far[sq] & mine; f != 0; f &= f - 1) {
+                long from = f & -f;
+                nextMine[n] = theirs & ~captured;
+                nextTheirs[n] = (mine & ~from) | to | captured;
+                order[n] = gain << MOVE_BITS | n;
+                n += 1;
+            }
+        }
+        Arrays.sort(order);
+        int best = -INFTY;
+        for (int k = n - 1; k >= 0; k -= 1) {
+            int m = order[k] & ((1 << MOVE_BITS) - 1);
+            boolean jump = order[k] >>> MOVE_BITS < EXTEND_BONUS;
+            int value = -search(nextMine[m], nextTheirs[m],
+                                jump ? jumps + 1 : 0, !red, -beta, -alpha);
+            best = Math.max(best, value);
+            alpha = Math.max(alpha, value);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        int bound = best <= alpha0 ? AnalysisCache.UPPER
+            : best >= beta ? AnalysisCache.LOWER : AnalysisCache.EXACT;
+        _tableMine[slot] = mine;
+        _tableTheirs[slot] = theirs;
+        _tableInfo[slot] = (best & 0xff) << VALUE_SHIFT | bound << BOUND_SHIFT
+            | (red ? RED_BIT : 0) | jumps;
+        _tableAge[slot] = _age;
+        return best;
+    }
+
+    /** Return true iff the player holding MINE can move when the squares
+     *  in EMPTY are empty. */
+    private boolean canMove(long mine, long empty) {
+        for (long e = empty; e != 0; e &= e - 1) {
+            int sq = Long.numberOfTrailingZeros(e);
+            if (((_adjacent[sq] | _far[sq]) & mine) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Return the slot in my table that holds the position described by
+     *  MINE, THEIRS, JUMPS, and RED (as for search), or the slot in which
+     *  to store it if it is not there. */
+    private int find(long mine, long theirs, int jumps, boolean red) {
+        int who = (red ? RED_BIT : 0) | jumps;
+        long hash = (mine * 0x9e3779b97f4a7c15L ^ theirs) * 0xbf58476d1ce4e5b9L
+            ^ who;
+        int mask = _tableAge.length - 1;
+        int slot = (int) (hash ^ hash >>> 32) & mask;
+        while (_tableAge[slot] == _age
+               && (_tableMine[slot] != mine || _tableTheirs[slot] != theirs
+                   || (_tableInfo[slot] & WHO_MASK) != who)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /** Add the values established by the entries in my table to
+     *  RESULTS, as described for solve. */
+    private void harvest(Map<Long, Integer> results) {
+        for (int slot = 0; slot < _tableAge.length; slot += 1) {
+            if (_tableAge[slot] != _age) {
+                continue;
+            }
+            int info = _tableInfo[slot];
+            int value = (byte) (info >>> VALUE_SHIFT);
+            int bound = info >>> BOUND_SHIFT & 3;
+            if ((info & JUMPS_MASK) > _maxJumps) {
+                continue;
+            } else if (bound == AnalysisCache.LOWER && value >= 1) {
+                value = Tablebase.WIN;
+            } else if (bound == AnalysisCache.UPPER && value <= -1) {
+                value = Tablebase.LOSS;
+            } else if (bound != AnalysisCache.EXACT) {
+                continue;
+            }
+            boolean red = (info & RED_BIT) != 0;
+            long key = key(_tableMine[slot], _tableTheirs[slot],
+                           info & JUMPS_MASK, red ? RED : BLUE);
+            results.merge(key, value, Tablebase::better);
+        }
+    }
+
+    /** Return Board.key for the position in which PLAYER, who is to move,
+     *  holds MINE, the opponent holds THEIRS, and there have been JUMPS
+     *  consecutive jumps. */
+    private long key(long mine, long theirs, int jumps, PieceColor player) {
+        for (int r = 0; r < _side; r += 1) {
+            for (int c = 0; c < _side; c += 1) {
+                long bit = 1L << (r * _side + c);
+                _contents[r][c] =
+                    (mine & bit) != 0 ? player
+                    : (theirs & bit) != 0 ? player.opposite()
+                    : (_blocks & bit) != 0 ? BLOCKED : EMPTY;
+            }
+        }
+        _scratch.setPosition(_contents, player, jumps);
+        return _scratch.key();
+    }
+
+    /** Thrown to abandon a search that has exceeded its budget. */
+    private static class BudgetExceeded extends RuntimeException {
+        /** A new BudgetExceeded, without a stack trace. */
+        BudgetExceeded() {
+            super(null, null, false, false);
+        }
+    }
+
+    /** A magnitude greater than any margin. */
+    private static final int INFTY = 100;
+    /** Added to the ordering key of extends, so that they are tried
+     *  before jumps with the same captures and are told apart from
+     *  them. */
+    private static final int EXTEND_BONUS = 32;
+    /** Number of bits in the ordering key for a move's index. */
+    private static final int MOVE_BITS = 16;
+    /** Greatest number of positions a search may visit. */
+    static final long MAX_BUDGET = 1 << 22;
+    /** Number of slots in the table for each position a search may
+     *  visit.  Both searches made by solve store their positions in the
+     *  same table, so it must be more than 2 to leave empty slots. */
+    private static final int TABLE_SLOTS = 8;
+    /** Layout of the information word of a table entry: the number of
+     *  jumps in the low five bits, a bit that is set iff red is to move,
+     *  the bound type, and the value. */
+    private static final int JUMPS_MASK = 0x1f, RED_BIT = 0x20,
+        WHO_MASK = JUMPS_MASK | RED_BIT, BOUND_SHIFT = 6, VALUE_SHIFT = 8;
+
+    /** Number of squares on a side. */
+    private final int _side;
+    /** Greatest number of positions visited by a search. */
+    private final long _budget;
+    /** Greatest number of consecutive jumps in a position reported. */
+    private final int _maxJumps;
+    /** The set of all squares. */
+    private final long _all;
+    /** For each square, the squares at distances 1 and 2 from it. */
+    private final long[] _adjacent, _far;
+    /** The blocks in the position being solved. */
+    private long _blocks;
+    /** Number of positions visited by the current search. */
+    private long _nodes;
+    /** The transposition table: the squares of the player to move and of
+     *  the opponent, the information word, and the number of the call of
+     *  solve that made each entry, which is valid only if it is the
+     *  current one, _age. */
+    private final long[] _tableMine, _tableTheirs;
+    /** See _tableMine. */
+    private final int[] _tableInfo, _tableAge;
+    /** Number of the current call to solve. */
+    private int _age;
+    /** Board used to compute keys. */
+    private final Board _scratch;
+    /** Contents of _scratch. */
+    private final PieceColor[][] _contents;
+
+}
@@ -0,0 +1,145 @@
+package ataxx;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/** An embeddable Ataxx engine.  An Engine searches positions
+ *  asynchronously, each search running on its own AI player attached to
+ *  a private copy of the position.  Engines keep no static or shared
+ *  state, and use the analysis cache and tablebase that a Game's players
+ *  share only when given them, so any number of them may be used at
+ *  once.
+ *  @author Melissa Ly
+ */
+public class Engine {
+
+    /** An Engine that runs each search on a new daemon thread. */
+    public Engine() {
+        this(null, null);
+    }
+
+    /** An Engine that runs its searches on EXECUTOR. */
+    public Engine(Executor executor) {
+        this(executor, null, null);
+    }
+
+    /** An Engine that runs each search on a new daemon thread, looking up
+     *  and recording analyses in CACHE and the values of positions near
+     *  the end of the game in TABLEBASE, unless they are null. */
+    Engine(AnalysisCache cache, Tablebase tablebase) {
+        this(r -> {
+                Thread t = new Thread(r, "ataxx-engine");
+                t.setDaemon(true);
+                t.start();
+            }, cache, tablebase);
+    }
+
+    /** An Engine that runs its searches on EXECUTOR, using CACHE and
+     *  TABLEBASE as for Engine(AnalysisCache, Tablebase). */
+    Engine(Executor executor, AnalysisCache cache, Tablebase tablebase) {
+        _executor = executor;
+        _cache = cache;
+        _tablebase = tablebase;
+    }
+
+    /** Start searching the position reached from the initial board by
+     *  SETUP, a sequence of commands in the command language ('block CR',
+     *  moves C0R0-C1R1, and '-' for passes), within LIMITS.  Unless
+     *  LISTENER is null, report the result of each completed iteration
+     *  to it.  Throws GameException if SETUP is invalid. */
+    public Search search(Iterable<String> setup, SearchLimits limits,
+                         SearchListener listener) {
+        return search(position(setup), limits, listener);
+    }
+
+    /** Start searching POSITION within LIMITS, as for
+     *  search(Iterable, SearchLimits, SearchListener).  POSITION is
+     *  copied before this method returns and may then be changed. */
+    Search search(Board position, SearchLimits limits,
+                  SearchListener listener) {
+        Board board = new Board(position);
+        AI ai = new AI(board.whoseMove());
+        ai.useCache(_cache);
+        ai.useTablebase(_tablebase);
+        Search result = new Search(ai);
+        try {
+            _executor.execute(() -> {
+                    try {
+                        result.complete(ai.search(board, limits, listener));
+                    } catch (RuntimeException | Error excp) {
+                        result.completeExceptionally(excp);
+                    }
+                });
+        } catch (RejectedExecutionException excp) {
+            result.completeExceptionally(excp);
+        }
+        return result;
+    }
+
+    /** Return the board reached from the initial position by SETUP, as
+     *  for search(Iterable, SearchLimits, SearchListener). */
+    static Board position(Iterable<String> setup) {
+        Board board = new Board();
+        for (String line : setup) {
+            Command cmnd = Command.parseCommand(line);
+            switch (cmnd.commandType()) {
+            case BLOCK:
+                board.setBlock(cmnd.operands()[0]);
+                break;
+            case PIECEMOVE:
+                String[] sq = cmnd.operands();
+                Move move = Move.move(sq[0].charAt(0), Move.row(sq[1]),
+                                      sq[2].charAt(0), Move.row(sq[3]));
+                if (!board.legalMove(move)) {
+                    throw GameException.error("illegal move: %s", line);
+                }
+                board.makeMove(move);
+                break;
+            case PASS:
+                board.makeMove(Move.pass());
+                break;
+            case SIZE:
+                board.resize(Integer.parseInt(cmnd.operands()[0]));
+                break;
+            default:
+                throw GameException.error("not a block or move: %s", line);
+            }
+        }
+        return board;
+    }
+
+    /** A search in progress, which completes with its result.  Stopping a
+     *  search completes it with the best move found so far; cancelling
+     *  it abandons the search altogether. */
+    public static class Search extends CompletableFuture<SearchResult> {
+
+        /** A search carried out by AI. */
+        Search(AI ai) {
+            _ai = ai;
+        }
+
+        /** Finish as soon as possible with the best move found so far. */
+        public void stop() {
+            _ai.stop();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            _ai.stop();
+            return cancelled;
+        }
+
+        /** The player doing the search. */
+        private final AI _ai;
+    }
+
+    /** Runs searches. */
+    private final Executor _executor;
+    /** The cache used by all my searches, or null if none. */
+    private final AnalysisCache _cache;
+    /** The tablebase used by all my searches, or null if none. */
+    private final Tablebase _tablebase;
+
+}
@@ -0,0 +1,114 @@
+package ataxx;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Java Flight Recorder events emitted by the engine and the game loop.
+ *  They are all disabled by default, and cost next to nothing until
+ *  enabled.  No events are created at all unless the recorder has been
+ *  started (see recording()).  Enable them, along with the JVM's usual
+ *  events, for example, with
+ *      java -XX:StartFlightRecording:filename=ataxx.jfr,
+ *          settings=default,settings=ataxx/ataxx.jfc
+ *  (all on one line), or by adding +ataxx.Search#enabled=true (and so
+ *  forth) to the default recording settings.
+ *  @author Melissa Ly
+ */
+final class EngineEvents {
+
+    /** Not instantiable. */
+    private EngineEvents() {
+    }
+
+    /** Return true iff the flight recorder has been started in this JVM,
+     *  either at launch or later (as by jcmd), so that events might be
+     *  recorded.  Loading the first event class makes the JVM set up the
+     *  recorder's instrumentation, which adds several hundred
+     *  milliseconds to start-up, so callers create events only when
+     *  this is true. */
+    static boolean recording() {
+        return FlightRecorder.isInitialized();
+    }
+
+    /** Spans the search for one AI move. */
+    @Name("ataxx.Search")
+    @Label("AI Search")
+    @Description("Search for one move by an AI player")
+    @Category({ "Ataxx", "Search" })
+    @Enabled(false)
+    static class SearchEvent extends Event {
+        /** Color of the player searching. */
+        @Label("Color")
+        String color;
+        /** Depth of the last completed iteration. */
+        @Label("Depth")
+        int depth;
+        /** Positions visited. */
+        @Label("Nodes")
+        long nodes;
+        /** Value of the chosen move for the player to move. */
+        @Label("Score")
+        int score;
+        /** The chosen move. */
+        @Label("Move")
+        String move;
+    }
+
+    /** Spans one iteration of an iterative-deepening search. */
+    @Name("ataxx.SearchIteration")
+    @Label("Search Iteration")
+    @Description("One iteration of an iterative-deepening search")
+    @Category({ "Ataxx", "Search" })
+    @Enabled(false)
+    static class IterationEvent extends Event {
+        /** Depth of the iteration. */
+        @Label("Depth")
+        int depth;
+        /** Positions visited by this iteration. */
+        @Label("Nodes")
+        long nodes;
+        /** True iff the iteration was abandoned before completing. */
+        @Label("Aborted")
+        boolean aborted;
+        /** Value found, if completed. */
+        @Label("Score")
+        int score;
+        /** Best move found, if completed. */
+        @Label("Move")
+        String move;
+    }
+
+    /** Spans a batch of Board.makeMove calls made by one search
+     *  iteration. */
+    @Name("ataxx.MakeMoveBatch")
+    @Label("MakeMove Batch")
+    @Description("Board.makeMove calls made by one search iteration")
+    @Category({ "Ataxx", "Search" })
+    @Enabled(false)
+    static class MakeMoveBatchEvent extends Event {
+        /** Number of moves made. */
+        @Label("Moves Made")
+        long count;
+        /** Depth of the iteration making them. */
+        @Label("Depth")
+        int depth;
+    }
+
+    /** Spans the execution of one command by a Game. */
+    @Name("ataxx.Command")
+    @Label("Game Command")
+    @Description("A command dispatched by the game loop")
+    @Category({ "Ataxx", "Game" })
+    @Enabled(false)
+    static class CommandEvent extends Event {
+        /** Type of command. */
+        @Label("Command")
+        String command;
+    }
+
+}
@@ -0,0 +1,216 @@
+package ataxx;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/** Tests of the Engine class.
+ *  @author Melissa Ly
+ */
+public class EngineTest {
+
+    private static final List<String>
+        SETUP = Arrays.asList("block c4", "block d3", "a7-b6", "a1-a2");
+
+    @Test public void testSearch() {
+        Engine engine = new Engine();
+        List<SearchResult> progress = new ArrayList<>();
+        SearchResult result =
+            engine.search(SETUP, new SearchLimits(3, 0, 0),
+                          progress::add).join();
+        assertEquals(3, result.depth());
+        assertEquals(3, progress.size());
+        assertTrue(result.nodes() > 0);
+        Board board = Engine.position(SETUP);
+        assertTrue("illegal move", board.legalMove(result.move()));
+    }
+
+    @Test public void testPositionUnchanged() {
+        Board board = Engine.position(SETUP);
+        Board copy = new Board(board);
+        new Engine().search(board, new SearchLimits(2, 0, 0), null).join();
+        assertEquals(copy, board);
+        assertEquals(SETUP.size() - 2, board.allMoves().size());
+    }
+
+    @Test public void testFindsWin() {
+        PieceColor[][] contents = new PieceColor[Board.SIDE][Board.SIDE];
+        for (PieceColor[] row : contents) {
+            Arrays.fill(row, PieceColor.EMPTY);
+        }
+        contents['7' - '1']['a' - 'a'] = PieceColor.BLUE;
+        contents['6' - '1']['a' - 'a'] = PieceColor.BLUE;
+        contents['5' - '1']['c' - 'a'] = PieceColor.RED;
+        contents['1' - '1']['g' - 'a'] = PieceColor.RED;
+        Board board = new Board();
+        board.setPosition(contents, PieceColor.RED, 0);
+        SearchResult result =
+            new Engine().search(board, new SearchLimits(4, 0, 0),
+                                null).join();
+        assertEquals(AI.WINNING_VALUE - 1, result.score());
+        assertEquals(1, result.depth());
+    }
+
+    @Test public void testQuiescence() {
+        PieceColor[][] contents = new PieceColor[Board.SIDE][Board.SIDE];
+        for (PieceColor[] row : contents) {
+            Arrays.fill(row, PieceColor.BLOCKED);
+        }
+        contents['3' - '1']['d' - 'a'] = PieceColor.RED;
+        contents['3' - '1']['e' - 'a'] = PieceColor.RED;
+        contents['7' - '1']['a' - 'a'] = PieceColor.RED;
+        contents['5' - '1']['e' - 'a'] = PieceColor.BLUE;
+        contents['5' - '1']['f' - 'a'] = PieceColor.BLUE;
+        contents['5' - '1']['b' - 'a'] = PieceColor.BLUE;
+        contents['1' - '1']['g' - 'a'] = PieceColor.BLUE;
+        contents['4' - '1']['d' - 'a'] = PieceColor.EMPTY;
+        contents['4' - '1']['e' - 'a'] = PieceColor.EMPTY;
+        Board board = new Board();
+        board.setPosition(contents, PieceColor.RED, 0);
+        SearchResult result =
+            new Engine().search(board, new SearchLimits(1, 0, 0),
+                                null).join();
+        assertEquals('e', result.move().col1());
+        assertEquals('4', result.move().row1());
+        Board child = new Board(board);
+        child.makeMove(result.move());
+        assertEquals(4, child.numPieces(PieceColor.RED)
+                     - child.numPieces(PieceColor.BLUE));
+        assertEquals("missed the recapture b5-d4", -4, result.score());
+    }
+
+    /** Return a board on which the only moves are for red to jump between
+     *  a1 and a3 and for blue to jump between g1 and g3, with red a piece
+     *  ahead, RED to move, and JUMPS consecutive jumps made. */
+    private static Board jumpCycle(int jumps) {
+        PieceColor[][] contents = new PieceColor[Board.SIDE][Board.SIDE];
+        for (PieceColor[] row : contents) {
+            Arrays.fill(row, PieceColor.BLOCKED);
+        }
+        contents['1' - '1']['a' - 'a'] = PieceColor.RED;
+        contents['3' - '1']['a' - 'a'] = PieceColor.EMPTY;
+        contents['1' - '1']['g' - 'a'] = PieceColor.BLUE;
+        contents['3' - '1']['g' - 'a'] = PieceColor.EMPTY;
+        contents['7' - '1']['d' - 'a'] = PieceColor.RED;
+        Board board = new Board();
+        board.setPosition(contents, PieceColor.RED, jumps);
+        return board;
+    }
+
+    @Test public void testJumpLimit() {
+        SearchResult result =
+            new Engine().search(jumpCycle(Board.JUMP_LIMIT - 3),
+                                new SearchLimits(6, 0, 0), null).join();
+        assertEquals(AI.WINNING_VALUE - 3, result.score());
+        result =
+            new Engine().search(jumpCycle(0), new SearchLimits(6, 0, 0),
+                                null).join();
+        assertEquals(AI.WINNING_VALUE - Board.JUMP_LIMIT, result.score());
+    }
+
+    @Test public void testRepetitionNotCached() {
+        Board board = jumpCycle(0);
+        AnalysisCache cache = new AnalysisCache(1 << 10);
+        AI ai = new AI(PieceColor.RED);
+        ai.useCache(cache);
+        ai.useTablebase(null);
+        int depth = ai.search(board, new SearchLimits(6, 0, 0), null).depth();
+        assertTrue(depth >= 4);
+        assertEquals(depth, AnalysisCache.depth(cache.probe(board.key())));
+        Board child = new Board(board);
+        String[] moves = { "a1-a3", "g1-g3", "a3-a1" };
+        for (int ply = 1; ply <= moves.length; ply += 1) {
+            String[] sq = moves[ply - 1].split("-");
+            child.makeMove(Move.move(sq[0].charAt(0), sq[0].charAt(1),
+                                     sq[1].charAt(0), sq[1].charAt(1)));
+            long entry = cache.probe(child.key());
+            assertTrue("cached a value that depends on the path",
+                       entry == 0 || AnalysisCache.depth(entry) < 4 - ply);
+        }
+    }
+
+    @Test public void testNoSharedCache() {
+        AnalysisCache shared = AnalysisCache.shared();
+        AnalysisCache cache = new AnalysisCache(1 << 10);
+        AnalysisCache.setShared(cache);
+        try {
+            Board board = Engine.position(SETUP);
+            new Engine().search(board, new SearchLimits(3, 0, 0),
+                                null).join();
+            assertEquals("used the shared cache",
+                         0, cache.probe(board.key()));
+            new Engine(cache, null).search(board, new SearchLimits(3, 0, 0),
+                                           null).join();
+            assertEquals(3, AnalysisCache.depth(cache.probe(board.key())));
+        } finally {
+            AnalysisCache.setShared(shared);
+        }
+    }
+
+    @Test public void testMultiPVCacheReleased() {
+        Board board = Engine.position(SETUP);
+        AI failed = new AI(PieceColor.RED), normal = new AI(PieceColor.RED);
+        try {
+            failed.search(board, new SearchLimits(3, 0, 0, 2), info -> {
+                    if (info.depth() == 3) {
+                        throw new IllegalStateException("listener failed");
+                    }
+                });
+            fail("listener exception lost");
+        } catch (IllegalStateException excp) {
+            assertEquals("listener failed", excp.getMessage());
+        }
+        normal.search(board, new SearchLimits(3, 0, 0, 2), null);
+        SearchLimits limits = new SearchLimits(3, 0, 0);
+        assertEquals("kept the multi-PV cache",
+                     normal.search(board, limits, null).nodes(),
+                     failed.search(board, limits, null).nodes());
+    }
+
+    @Test public void testMultiPV() {
+        SearchResult result =
+            new Engine().search(SETUP, new SearchLimits(3, 0, 0, 3),
+                                null).join();
+        List<SearchResult> lines = result.lines();
+        assertEquals(3, lines.size());
+        assertEquals(result.move(), lines.get(0).move());
+        assertEquals(result.score(), lines.get(0).score());
+        Board board = Engine.position(SETUP);
+        for (int k = 0; k < lines.size(); k += 1) {
+            SearchResult line = lines.get(k);
+            assertTrue("illegal move", board.legalMove(line.move()));
+            assertEquals(line.move(), line.principalVariation().get(0));
+            if (k > 0) {
+                assertTrue(line.score() <= lines.get(k - 1).score());
+                assertNotEquals(line.move(), lines.get(k - 1).move());
+            }
+            Board child = new Board(board);
+            child.makeMove(line.move());
+            SearchResult reply =
+                new Engine().search(child, new SearchLimits(2, 0, 0),
+                                    null).join();
+            assertEquals(line.score(), -reply.score());
+        }
+    }
+
+    @Test public void testStop() {
+        Engine.Search search =
+            new Engine().search(SETUP, new SearchLimits(0, 0, 0), null);
+        search.stop();
+        SearchResult result = search.join();
+        assertNotNull(result.move());
+    }
+
+    @Test(expected = CancellationException.class)
+    public void testCancel() {
+        Engine.Search search =
+            new Engine().search(SETUP, new SearchLimits(0, 0, 0), null);
+        search.cancel(true);
+        search.join();
+    }
+
+}
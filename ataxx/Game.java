@@ -7,8 +7,10 @@ import java.io.InputStreamReader;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.util.HashMap;
 import java.util.Random;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 import static ataxx.PieceColor.*;
@@ -21,24 +23,38 @@ import static ataxx.GameException.error;
  */
 class Game {
 
-    /** States of play. */
+    /** States of play.  EXITED means the session has been ended by a
+     *  'quit' command or end of input. */
     enum State {
-        SETUP, PLAYING, FINISHED
+        SETUP, PLAYING, FINISHED, EXITED
     }
 
     /** A new Game, using BOARD to play on, reading initially from
      *  BASESOURCE and using REPORTER for error and informational messages. */
     Game(Board board, CommandSource baseSource, Reporter reporter) {
+        this(board, baseSource, reporter, System.out);
+    }
+
+    /** A new Game, using BOARD to play on, reading initially from
+     *  BASESOURCE, using REPORTER for error and informational messages,
+     *  and printing boards and help text on OUT.  BOARD publishes a
+     *  snapshot of its position after each change (see
+     *  Board.publishSnapshots). */
+    Game(Board board, CommandSource baseSource, Reporter reporter,
+         PrintStream out) {
         _inputs.addSource(baseSource);
         _board = board;
+        _board.publishSnapshots();
         _reporter = reporter;
+        _out = out;
         _bluePlayer = new AI(this, BLUE);
         _redPlayer = new Manual(this, RED);
         aiBlue = true;
         aiRed = false;
     }
 
-    /** Run a session of Ataxx gaming.  Use an AtaxxGUI iff USEGUI. */
+    /** Run a session of Ataxx gaming.  Use an AtaxxGUI iff USEGUI.
+     *  Returns once the session is ended by 'quit' or end of input. */
     void process(boolean useGUI) {
         Player red, blue, current;
 
@@ -49,6 +65,12 @@ class Game {
         while (true) {
             doClear(null);
 
+            Warmup warmup = null;
+            if (_warmupBudget > 0) {
+                warmup = new Warmup(_warmupBudget, _timing);
+                warmup.start();
+                _warmupBudget = 0;
+            }
             SetupLoop:
             while (_state == SETUP) {
                 try {
@@ -57,33 +79,28 @@ class Game {
                     _reporter.errMsg(excp.getMessage());
                 }
             }
-            if (!aiRed && aiBlue) {
-                red = new Manual(this, RED);
-                blue = new AI(this, BLUE);
-            } else if (aiRed && aiBlue) {
-                red = new AI(this, RED);
-                blue = new AI(this, BLUE);
-            } else if (aiRed && !aiBlue) {
-                red = new AI(this, RED);
-                blue = new Manual(this, BLUE);
-            } else {
-                red = new Manual(this, RED);
-                blue = new Manual(this, BLUE);
+            if (warmup != null) {
+                warmup.stop();
             }
+            if (_state == EXITED) {
+                return;
+            }
+            red = aiRed ? aiPlayer(RED, mctsRed) : new Manual(this, RED);
+            blue = aiBlue ? aiPlayer(BLUE, mctsBlue) : new Manual(this, BLUE);
             _state = PLAYING;
-            while (_state != SETUP && !_board.gameOver()) {
+            while (_state == PLAYING && !_board.gameOver()) {
                 try {
                     Move move;
                     Player curr;
                     boolean report = false;
                     if (_board.whoseMove() == RED) {
-                        move = red.myMove();
+                        move = think(red);
                         if (aiRed) {
                             report = true;
                         }
                         curr = red;
                     } else {
-                        move = blue.myMove();
+                        move = think(blue);
                         if (aiBlue) {
                             report = true;
                         }
@@ -113,21 +130,29 @@ class Game {
                     _reporter.errMsg(exp.getMessage());
                 }
             }
-            if (_state != SETUP) {
-                reportWinner();
-            }
             if (_state == PLAYING) {
+                reportWinner();
                 _state = FINISHED;
             }
             while (_state == FINISHED) {
                 doCommand();
             }
+            if (_state == EXITED) {
+                return;
+            }
         }
 
     }
 
+    /** Return a new computer player for COLOR, using Monte Carlo tree
+     *  search iff MCTS, and otherwise alpha-beta search. */
+    private Player aiPlayer(PieceColor color, boolean mcts) {
+        return mcts ? new MCTS(this, color) : new AI(this, color);
+    }
+
     /** Return a view of my game board that should not be modified by
-     *  the caller. */
+     *  the caller.  Threads other than the one playing the game should
+     *  read its published() snapshots instead. */
     Board board() {
         return _board;
     }
@@ -137,7 +162,22 @@ class Game {
         try {
             Command cmnd =
                 Command.parseCommand(_inputs.getLine("ataxx: "));
-            _commands.get(cmnd.commandType()).accept(cmnd.operands());
+            EngineEvents.CommandEvent event = null;
+            if (EngineEvents.recording()) {
+                event = new EngineEvents.CommandEvent();
+                event.begin();
+            }
+            long start = System.nanoTime();
+            try {
+                _commands.get(cmnd.commandType()).accept(cmnd.operands());
+            } finally {
+                Metrics.metrics().recordTime(Metrics.COMMAND,
+                                             System.nanoTime() - start);
+                if (event != null && event.shouldCommit()) {
+                    event.command = cmnd.commandType().toString();
+                    event.commit();
+                }
+            }
         } catch (GameException excp) {
             _reporter.errMsg(excp.getMessage());
         }
@@ -164,13 +204,17 @@ class Game {
                     doHelp(cmnd.operands());
                 } else if (cmnd.commandType() == DUMP) {
                     doDump(cmnd.operands());
+                } else if (cmnd.commandType() == STATS) {
+                    doStats(cmnd.operands());
+                } else if (cmnd.commandType() == BENCH) {
+                    doBench(cmnd.operands());
                 } else if (cmnd.commandType() == QUIT) {
-                    doDump(cmnd.operands());
+                    doQuit(cmnd.operands());
                 } else if (cmnd.commandType() == ERROR) {
                     doError(cmnd.operands());
                     throw new GameException("error, try again");
                 } else if (cmnd.commandType() == EOF) {
-                    System.out.println("End of input");
+                    doQuit(cmnd.operands());
                 } else {
                     throw new GameException("get move command error");
                 }
@@ -181,11 +225,86 @@ class Game {
         return null;
     }
 
+    /** Return PLAYER's move, allowing stopSearch to hurry it. */
+    private Move think(Player player) {
+        _thinking = player;
+        try {
+            return player.myMove();
+        } finally {
+            _thinking = null;
+        }
+    }
+
+    /** Cause the player now choosing a move, if any, to move as soon as
+     *  possible.  May be called from any thread. */
+    void stopSearch() {
+        Player player = _thinking;
+        if (player != null) {
+            player.stop();
+        }
+    }
+
+    /** Return the listener to which AI players should report the
+     *  progress of their searches, or null if none. */
+    SearchListener searchListener() {
+        return _searchListener;
+    }
+
+    /** Have AI players report the progress of their searches to
+     *  LISTENER (none if null). */
+    void setSearchListener(SearchListener listener) {
+        _searchListener = listener;
+    }
+
+    /** Return the executor on which AI players should run their searches,
+     *  or null if they should search on the game's own thread. */
+    Executor searchExecutor() {
+        return _searchExecutor;
+    }
+
+    /** Run AI searches on EXECUTOR rather than on the game's own thread
+     *  (null to search in place). */
+    void setSearchExecutor(Executor executor) {
+        _searchExecutor = executor;
+    }
+
+    /** Return true iff AI players should report search statistics. */
+    boolean timing() {
+        return _timing;
+    }
+
+    /** Report search statistics for each AI move iff TIMING, with a
+     *  summary at the end of each game. */
+    void setTiming(boolean timing) {
+        _timing = timing;
+    }
+
+    /** During the next set-up phase, warm up the compiler for AI
+     *  searches in the background, using at most BUDGET milliseconds of
+     *  CPU time (none if BUDGET <= 0).  Warming up stops when the game
+     *  starts, so that it never competes with a real search. */
+    void setWarmup(long budget) {
+        _warmupBudget = budget;
+    }
+
+    /** Report STATS, gathered by the search for a move by COLOR, and add
+     *  them to the totals for the current game. */
+    synchronized void reportTiming(PieceColor color, SearchStats stats) {
+        _gameStats.add(stats);
+        System.err.printf("[timing] %s ply %d: %s%n", color,
+                          _board.numMoves() + 1, stats.report());
+    }
+
     /** Return random integer between 0 (inclusive) and MAX>0 (exclusive). */
     int nextRandom(int max) {
         return _randoms.nextInt(max);
     }
 
+    /** Return a seed for the random-number generators of an AI. */
+    long randomSeed() {
+        return _randoms.nextLong();
+    }
+
     /** Report a move, using a message formed from FORMAT and ARGS as
      *  for String.format. */
     void reportMove(String format, Object... args) {
@@ -203,10 +322,13 @@ class Game {
     /** Perform the command 'auto OPERANDS[0]'. */
     void doAuto(String[] operands) {
         checkState("auto", SETUP);
+        boolean mcts = operands.length > 1;
         if (operands[0].equalsIgnoreCase("red")) {
             aiRed = true;
+            mctsRed = mcts;
         } else {
             aiBlue = true;
+            mctsBlue = mcts;
         }
     }
 
@@ -215,7 +337,7 @@ class Game {
         InputStream helpIn =
             Game.class.getClassLoader().getResourceAsStream("ataxx/help.txt");
         if (helpIn == null) {
-            System.err.println("No help available.");
+            _reporter.errMsg("No help available.");
         } else {
             try {
                 BufferedReader r
@@ -225,7 +347,7 @@ class Game {
                     if (line == null) {
                         break;
                     }
-                    System.out.println(line);
+                    _out.println(line);
                 }
                 r.close();
             } catch (IOException e) {
@@ -255,9 +377,9 @@ class Game {
         }
     }
 
-    /** Exit the program. */
+    /** End this session, causing process to return. */
     void doQuit(String[] unused) {
-        System.exit(0);
+        _state = EXITED;
     }
 
     /** Perform the command 'start'. */
@@ -270,9 +392,9 @@ class Game {
     void doMove(String[] operands) {
         try {
             char col0 = operands[0].charAt(0);
-            char row0 = operands[1].charAt(0);
+            char row0 = Move.row(operands[1]);
             char col1 = operands[2].charAt(0);
-            char row1 = operands[3].charAt(0);
+            char row1 = Move.row(operands[3]);
             _board.makeMove(col0, row0, col1, row1);
         } catch (GameException excp) {
             _reporter.errMsg(excp.getMessage());
@@ -293,13 +415,53 @@ class Game {
 
     /** Perform the command 'dump'. */
     void doDump(String[] unused) {
-        System.out.print(_board.toString());
+        _out.print(_board.toString());
+        _out.flush();
+    }
+
+    /** Print the process-wide latency and throughput metrics. */
+    void doStats(String[] unused) {
+        _out.print(Metrics.metrics().summary());
+        _out.flush();
+    }
+
+    /** Execute the command 'bench' or 'bench OPERANDS[0]', which runs
+     *  the fixed benchmark of AI searches, to depth OPERANDS[0] if
+     *  present, and prints the results. */
+    void doBench(String[] operands) {
+        int depth = Bench.DEFAULT_DEPTH;
+        if (operands.length > 0) {
+            try {
+                depth = Integer.parseInt(operands[0]);
+            } catch (NumberFormatException excp) {
+                depth = -1;
+            }
+            if (depth < 1 || depth > AI.MAX_PLY) {
+                throw error("bench depth must be between 1 and %d",
+                            AI.MAX_PLY);
+            }
+        }
+        new Bench(depth).run(_out);
     }
 
     /** Execute 'seed OPERANDS[0]' command, where the operand is a string
      *  of decimal digits. Silently substitutes another value if
      *  too large. */
     void doSeed(String[] operands) {
+        long seed;
+        try {
+            seed = Long.parseLong(operands[0]);
+        } catch (NumberFormatException excp) {
+            seed = operands[0].hashCode();
+        }
+        _randoms.setSeed(seed);
+        _seeded = true;
+    }
+
+    /** Return true iff a 'seed' command has been given, so that AI
+     *  players must play reproducibly. */
+    boolean seeded() {
+        return _seeded;
     }
 
 
@@ -309,9 +471,20 @@ class Game {
         if (!(operands.length == 1)) {
             throw new GameException("not in setup mode!");
         }
-        char block1 = operands[0].charAt(0);
-        char block2 = operands[0].charAt(1);
-        _board.setBlock(block1, block2);
+        _board.setBlock(operands[0]);
+    }
+
+    /** Execute the command 'size OPERANDS[0]', which clears the board
+     *  and changes its size. */
+    void doSize(String[] operands) {
+        checkState("size", SETUP);
+        int side;
+        try {
+            side = Integer.parseInt(operands[0]);
+        } catch (NumberFormatException excp) {
+            side = -1;
+        }
+        _board.resize(side);
     }
 
     /** Execute the artificial 'error' command. */
@@ -321,6 +494,12 @@ class Game {
 
     /** Report the outcome of the current game. */
     void reportWinner() {
+        Metrics.metrics().counter(Metrics.GAMES).increment();
+        if (_timing && _gameStats.searches() > 0) {
+            System.err.printf("[timing] game summary: %s%n",
+                              _gameStats.summary());
+            _gameStats = new SearchStats();
+        }
         String msg;
         msg = "Draw.";
         int numRed = _board.redPieces();
@@ -366,10 +545,13 @@ class Game {
         _commands.put(CLEAR, this::doClear);
         _commands.put(DUMP, this::doDump);
         _commands.put(HELP, this::doHelp);
+        _commands.put(STATS, this::doStats);
+        _commands.put(BENCH, this::doBench);
         _commands.put(MANUAL, this::doManual);
         _commands.put(PASS, this::doPass);
         _commands.put(PIECEMOVE, this::doMove);
         _commands.put(SEED, this::doSeed);
+        _commands.put(SIZE, this::doSize);
         _commands.put(START, this::doStart);
         _commands.put(LOAD, this::doLoad);
         _commands.put(QUIT, this::doQuit);
@@ -386,8 +568,25 @@ class Game {
     private State _state;
     /** Used to send messages to the user. */
     private Reporter _reporter;
+    /** Destination for board dumps and help text. */
+    private final PrintStream _out;
+    /** True iff AI players report search statistics. */
+    private boolean _timing;
+    /** CPU time to spend warming up during the next set-up phase
+     *  (milliseconds), or 0 if none. */
+    private long _warmupBudget;
+    /** Search statistics for the current game. */
+    private SearchStats _gameStats = new SearchStats();
+    /** Where AI players run their searches, or null for this thread. */
+    private Executor _searchExecutor;
+    /** Where AI players report search progress, or null. */
+    private volatile SearchListener _searchListener;
+    /** The player now choosing a move, or null. */
+    private volatile Player _thinking;
     /** Source of pseudo-random numbers (used by AIs). */
     private Random _randoms = new Random();
+    /** True iff _randoms has been explicitly seeded. */
+    private boolean _seeded;
     /** Red player. */
     private Player _redPlayer;
     /** Blue player. */
@@ -398,4 +597,7 @@ class Game {
     private boolean aiBlue = true;
     /** Boolean for AI red case. */
     private boolean aiRed = false;
+    /** True iff the AI players for blue and red use Monte Carlo tree
+     *  search. */
+    private boolean mctsBlue, mctsRed;
 }
@@ -0,0 +1,348 @@
+package ataxx;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** A server that hosts many concurrent Ataxx sessions over local TCP.
+ *  Each connection gets its own Board, Game, and Reporter, and speaks
+ *  the ordinary command language, one command per line.
+ *
+ *  All socket I/O is multiplexed on a single selector thread.  Each
+ *  Game runs on its own small-stack thread that blocks only on its
+ *  input queue, and AI players search on a shared compute pool of fixed
+ *  size, so that a long search never holds up the network or the other
+ *  sessions' commands.
+ *  @author Melissa Ly
+ */
+class GameServer {
+
+    /** Default port on which to listen. */
+    static final int DEFAULT_PORT = 2764;
+
+    /** Stack size requested for session threads (bytes).  Game threads
+     *  spend nearly all their time waiting for input, so they need far
+     *  less than the default. */
+    private static final long SESSION_STACK_SIZE = 256 * 1024;
+
+    /** Size of the per-connection read buffer (bytes). */
+    private static final int READ_BUFFER_SIZE = 4096;
+
+    /** Longest command line accepted (bytes). Longer lines are dropped. */
+    private static final int MAX_LINE = 1024;
+
+    /** A server listening on the loopback interface at PORT (0 to choose
+     *  any free port), running AI searches on SEARCHTHREADS threads. */
+    GameServer(int port, int searchThreads) throws IOException {
+        _selector = Selector.open();
+        _listener = ServerSocketChannel.open();
+        _listener.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                             port));
+        _listener.configureBlocking(false);
+        _listener.register(_selector, SelectionKey.OP_ACCEPT);
+        _searchPool =
+            Executors.newFixedThreadPool(searchThreads, r -> {
+                    int n = _searchThreadCount.incrementAndGet();
+                    Thread t = new Thread(r, "ataxx-search-" + n);
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /** Return the port on which I am listening. */
+    int port() {
+        return _listener.socket().getLocalPort();
+    }
+
+    /** Return the number of sessions currently connected. */
+    int numSessions() {
+        return _numSessions.get();
+    }
+
+    /** Accept connections and serve their sessions until close() is
+     *  called, and then shut down the server. */
+    void serve() throws IOException {
+        try {
+            while (!_closing) {
+                _selector.select();
+                if (_closing) {
+                    break;
+                }
+                for (Session s = _pending.poll(); s != null;
+                     s = _pending.poll()) {
+                    s.updateInterest();
+                }
+                Iterator<SelectionKey> keys =
+                    _selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Session session = (Session) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            session.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            session.write();
+                        }
+                    } catch (IOException excp) {
+                        session.disconnect();
+                    }
+                }
+            }
+        } finally {
+            shutdown();
+        }
+    }
+
+    /** Cause serve() to stop accepting connections and shut down the
+     *  server, or to do so at once if it has not yet been called.
+     *  Sessions still in progress see end of input.  May be called from
+     *  any thread. */
+    void close() {
+        _closing = true;
+        _selector.wakeup();
+    }
+
+    /** Disconnect all sessions and release my selector, listener, and
+     *  search threads.  Called on the selector thread. */
+    private void shutdown() throws IOException {
+        for (SelectionKey key : _selector.keys()) {
+            if (key.attachment() instanceof Session) {
+                ((Session) key.attachment()).disconnect();
+            }
+        }
+        _selector.close();
+        _listener.close();
+        _searchPool.shutdownNow();
+    }
+
+    /** Accept a pending connection and start a session for it. */
+    private void accept() throws IOException {
+        SocketChannel channel = _listener.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        Session session = new Session(channel);
+        session._key = channel.register(_selector, SelectionKey.OP_READ,
+                                        session);
+        _numSessions.incrementAndGet();
+        session.start();
+    }
+
+    /** Arrange for the selector thread to update SESSION's interest
+     *  set. */
+    private void schedule(Session session) {
+        _pending.add(session);
+        _selector.wakeup();
+    }
+
+    /** The state of one connection. */
+    private class Session {
+
+        /** A session communicating over CHANNEL. */
+        Session(SocketChannel channel) {
+            _channel = channel;
+            _out = new PrintStream(new SessionOutput(), true,
+                                   StandardCharsets.UTF_8);
+            _input = new QueueSource(_out);
+        }
+
+        /** Start a Game for this session on its own thread. */
+        void start() {
+            int n = _sessionCount.incrementAndGet();
+            Thread t = new Thread(null, this::play, "ataxx-session-" + n,
+                                  SESSION_STACK_SIZE);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        /** Play games on this session until 'quit' or disconnection. */
+        private void play() {
+            Game game = new Game(new Board(), _input,
+                                 new TextReporter(_out), _out);
+            game.setSearchExecutor(_searchPool);
+            try {
+                game.process(false);
+            } catch (RuntimeException excp) {
+                _out.printf("Internal error: %s%n", excp);
+            } finally {
+                _out.flush();
+                _finished = true;
+                schedule(this);
+            }
+        }
+
+        /** Read available input, passing complete lines to my Game. */
+        void read() throws IOException {
+            _readBuffer.clear();
+            int n = _channel.read(_readBuffer);
+            if (n < 0) {
+                _input.close();
+                _key.interestOps(_key.interestOps() & ~SelectionKey.OP_READ);
+                if (_finished) {
+                    disconnect();
+                }
+                return;
+            }
+            _readBuffer.flip();
+            while (_readBuffer.hasRemaining()) {
+                byte b = _readBuffer.get();
+                if (b == '\n') {
+                    if (_lineTooLong) {
+                        _lineTooLong = false;
+                    } else {
+                        _input.add(_line.toString(StandardCharsets.UTF_8));
+                    }
+                    _line.reset();
+                } else if (b != '\r' && !_lineTooLong) {
+                    if (_line.size() >= MAX_LINE) {
+                        _lineTooLong = true;
+                        _line.reset();
+                    } else {
+                        _line.write(b);
+                    }
+                }
+            }
+        }
+
+        /** Write as much pending output as the channel will take. */
+        void write() throws IOException {
+            for (ByteBuffer buf = _output.peek(); buf != null;
+                 buf = _output.peek()) {
+                _channel.write(buf);
+                if (buf.hasRemaining()) {
+                    return;
+                }
+                _output.poll();
+            }
+            updateInterest();
+        }
+
+        /** Called on the selector thread to reflect pending output and
+         *  termination of the game in my selection key. */
+        void updateInterest() {
+            if (!_key.isValid()) {
+                return;
+            }
+            if (!_output.isEmpty()) {
+                _key.interestOps(_key.interestOps() | SelectionKey.OP_WRITE);
+            } else if (_finished) {
+                disconnect();
+            } else {
+                _key.interestOps(_key.interestOps() & ~SelectionKey.OP_WRITE);
+            }
+        }
+
+        /** Close my connection and end my game's input, unless that has
+         *  already been done. */
+        void disconnect() {
+            if (!_disconnected.compareAndSet(false, true)) {
+                return;
+            }
+            _input.close();
+            _key.cancel();
+            _numSessions.decrementAndGet();
+            try {
+                _channel.close();
+            } catch (IOException excp) {
+                /* Ignore IOException */
+            }
+        }
+
+        /** An OutputStream that hands each flushed chunk of output to the
+         *  selector thread. */
+        private class SessionOutput extends OutputStream {
+            @Override
+            public synchronized void write(int b) {
+                _chunk.write(b);
+            }
+
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                _chunk.write(b, off, len);
+            }
+
+            @Override
+            public synchronized void flush() {
+                if (_chunk.size() > 0) {
+                    _output.add(ByteBuffer.wrap(_chunk.toByteArray()));
+                    _chunk.reset();
+                    schedule(Session.this);
+                }
+            }
+
+            /** Output accumulated since the last flush. */
+            private final ByteArrayOutputStream _chunk =
+                new ByteArrayOutputStream();
+        }
+
+        /** My connection. */
+        private final SocketChannel _channel;
+        /** My channel's registration with the selector. */
+        private SelectionKey _key;
+        /** Lines received, as seen by my Game. */
+        private final QueueSource _input;
+        /** Output from my Game. */
+        private final PrintStream _out;
+        /** Output chunks not yet written to _channel. */
+        private final Queue<ByteBuffer> _output =
+            new ConcurrentLinkedQueue<>();
+        /** Buffer for reads from _channel. */
+        private final ByteBuffer _readBuffer =
+            ByteBuffer.allocate(READ_BUFFER_SIZE);
+        /** The incomplete line most recently received. */
+        private final ByteArrayOutputStream _line =
+            new ByteArrayOutputStream();
+        /** True while discarding the rest of an over-long line. */
+        private boolean _lineTooLong;
+        /** True once my Game has ended. */
+        private volatile boolean _finished;
+        /** True once disconnect() has been called. */
+        private final AtomicBoolean _disconnected = new AtomicBoolean();
+    }
+
+    /** Multiplexes all connections. */
+    private final Selector _selector;
+    /** Accepts new connections. */
+    private final ServerSocketChannel _listener;
+    /** Runs AI searches for all sessions. */
+    private final ExecutorService _searchPool;
+    /** True once close() has been called. */
+    private volatile boolean _closing;
+    /** Sessions whose interest sets must be updated by the selector
+     *  thread. */
+    private final Queue<Session> _pending = new ConcurrentLinkedQueue<>();
+    /** Number of open connections. */
+    private final AtomicInteger _numSessions = new AtomicInteger();
+    /** Used to number session threads. */
+    private final AtomicInteger _sessionCount = new AtomicInteger();
+    /** Used to number search threads. */
+    private final AtomicInteger _searchThreadCount = new AtomicInteger();
+
+}
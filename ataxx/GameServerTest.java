@@ -0,0 +1,157 @@
+package ataxx;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BooleanSupplier;
+
+/** Tests of the GameServer class, run through real sockets.
+ *  @author Melissa Ly
+ */
+public class GameServerTest {
+
+    /** Longest wait for any reply or change of state (milliseconds). */
+    private static final int TIMEOUT = 10000;
+
+    /** Return a connection to the server listening on PORT. */
+    private static Socket connect(int port) throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setSoTimeout(TIMEOUT);
+        return socket;
+    }
+
+    /** Send LINES to the server over SOCKET, one per line. */
+    private static void send(Socket socket, String... lines)
+        throws IOException {
+        OutputStream out = socket.getOutputStream();
+        for (String line : lines) {
+            out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        out.flush();
+    }
+
+    /** Read from SOCKET until the text received contains EXPECTED or the
+     *  server closes the connection, and return all the text received. */
+    private static String expect(Socket socket, String expected)
+        throws IOException {
+        InputStream in = socket.getInputStream();
+        StringBuilder text = new StringBuilder();
+        byte[] buf = new byte[1024];
+        while (text.indexOf(expected) < 0) {
+            int n = in.read(buf);
+            if (n < 0) {
+                break;
+            }
+            text.append(new String(buf, 0, n, StandardCharsets.UTF_8));
+        }
+        return text.toString();
+    }
+
+    /** Read and discard input from SOCKET until the server closes the
+     *  connection. */
+    private static void awaitClose(Socket socket) throws IOException {
+        InputStream in = socket.getInputStream();
+        byte[] buf = new byte[1024];
+        while (in.read(buf) >= 0) {
+            continue;
+        }
+    }
+
+    /** Wait up to TIMEOUT milliseconds for CONDITION to become true,
+     *  and return its final value. */
+    private static boolean await(BooleanSupplier condition)
+        throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!condition.getAsBoolean()
+               && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return condition.getAsBoolean();
+    }
+
+    /** Return a started daemon thread running SERVER.serve(). */
+    private static Thread serve(GameServer server) {
+        Thread serving = new Thread(() -> {
+                try {
+                    server.serve();
+                } catch (IOException excp) {
+                    /* Ends the test through the timeouts below. */
+                }
+            });
+        serving.setDaemon(true);
+        serving.start();
+        return serving;
+    }
+
+    @Test public void testSessions() throws Exception {
+        GameServer server = new GameServer(0, 1);
+        Thread serving = serve(server);
+        assertTrue(server.port() > 0);
+        Board moved = new Board();
+        moved.makeMove(Move.move('g', '1', 'f', '2'));
+        String initial = new Board().toString();
+
+        try (Socket first = connect(server.port());
+             Socket second = connect(server.port())) {
+            assertTrue("sessions not counted",
+                       await(() -> server.numSessions() == 2));
+
+            send(first, "manual blue", "g1-f2");
+            send(second, "dump");
+            send(first, "dump");
+            assertTrue("wrong board in second session",
+                       expect(second, initial).contains(initial));
+            assertTrue("wrong board in first session",
+                       expect(first, moved.toString())
+                       .contains(moved.toString()));
+
+            send(second, "nonsense");
+            assertTrue(expect(second, "Command not understood")
+                       .contains("Command not understood"));
+            send(second, "dump");
+            assertTrue("error ended the session",
+                       expect(second, initial).contains(initial));
+
+            send(first, "quit");
+            awaitClose(first);
+            assertTrue("quit session not cleaned up",
+                       await(() -> server.numSessions() == 1));
+            second.close();
+            assertTrue("closed session not cleaned up",
+                       await(() -> server.numSessions() == 0));
+        } finally {
+            server.close();
+            serving.join(TIMEOUT);
+        }
+        assertFalse(serving.isAlive());
+    }
+
+    @Test public void testClose() throws Exception {
+        GameServer server = new GameServer(0, 1);
+        Thread serving = serve(server);
+        try (Socket client = connect(server.port())) {
+            assertTrue(await(() -> server.numSessions() == 1));
+            send(client, "dump");
+            expect(client, "===");
+            server.close();
+            awaitClose(client);
+            serving.join(TIMEOUT);
+            assertFalse("serve() did not return", serving.isAlive());
+            assertEquals(0, server.numSessions());
+        }
+
+        GameServer unused = new GameServer(0, 1);
+        unused.close();
+        serving = serve(unused);
+        serving.join(TIMEOUT);
+        assertFalse("serve() after close() did not return",
+                    serving.isAlive());
+    }
+
+}
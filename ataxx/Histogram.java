@@ -0,0 +1,109 @@
+package ataxx;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/** A lock-free histogram of non-negative long values, in the style of
+ *  HdrHistogram.  Values are counted in logarithmic buckets, each power
+ *  of two being split into SUB_BUCKETS linear sub-buckets, so that any
+ *  reported quantile is within 1/SUB_BUCKETS of a recorded value.
+ *  Recording never allocates or blocks, and may be done concurrently
+ *  with reading.
+ *  @author Melissa Ly
+ */
+class Histogram {
+
+    /** Log2 of the number of sub-buckets in each power of two. */
+    private static final int SUB_BUCKET_BITS = 5;
+    /** Number of sub-buckets in each power of two. */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Total number of buckets, enough for any non-negative long. */
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS)
+        * SUB_BUCKETS;
+
+    /** Record VALUE (negative values are recorded as 0). */
+    void record(long value) {
+        value = Math.max(value, 0);
+        _counts.incrementAndGet(index(value));
+        _count.increment();
+        _sum.add(value);
+        long max = _max.get();
+        while (value > max && !_max.compareAndSet(max, value)) {
+            max = _max.get();
+        }
+    }
+
+    /** Return the number of values recorded. */
+    long count() {
+        return _count.sum();
+    }
+
+    /** Return the sum of the values recorded. */
+    long sum() {
+        return _sum.sum();
+    }
+
+    /** Return the largest value recorded, or 0 if none. */
+    long max() {
+        return _max.get();
+    }
+
+    /** Return an upper bound on the smallest value V such that a
+     *  fraction Q (0 <= Q <= 1) of the recorded values are <= V, or 0 if
+     *  nothing has been recorded. */
+    long quantile(double q) {
+        long[] counts = new long[BUCKETS];
+        long total;
+        total = 0;
+        for (int k = 0; k < BUCKETS; k += 1) {
+            counts[k] = _counts.get(k);
+            total += counts[k];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(q * total));
+        long seen;
+        seen = 0;
+        for (int k = 0; k < BUCKETS; k += 1) {
+            seen += counts[k];
+            if (seen >= target) {
+                return Math.min(highestInBucket(k), max());
+            }
+        }
+        return max();
+    }
+
+    /** Return the bucket index for VALUE >= 0. */
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value)
+            - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS
+            + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /** Return the largest value that is counted in bucket INDEX. */
+    static long highestInBucket(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long sub = index % SUB_BUCKETS + SUB_BUCKETS;
+        long high = ((sub + 1) << shift) - 1;
+        return high < 0 ? Long.MAX_VALUE : high;
+    }
+
+    /** Counts of values in each bucket. */
+    private final AtomicLongArray _counts = new AtomicLongArray(BUCKETS);
+    /** Number of values recorded. */
+    private final LongAdder _count = new LongAdder();
+    /** Sum of values recorded. */
+    private final LongAdder _sum = new LongAdder();
+    /** Largest value recorded. */
+    private final AtomicLong _max = new AtomicLong();
+
+}
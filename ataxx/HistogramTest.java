@@ -0,0 +1,49 @@
+package ataxx;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests of the Histogram and Metrics classes.
+ *  @author Melissa Ly
+ */
+public class HistogramTest {
+
+    @Test public void testBuckets() {
+        for (long v : new long[] { 0, 1, 31, 32, 33, 1000, 123456789L,
+                                   Long.MAX_VALUE }) {
+            int k = Histogram.index(v);
+            assertTrue(v <= Histogram.highestInBucket(k));
+            if (k > 0) {
+                assertTrue(v > Histogram.highestInBucket(k - 1));
+            }
+        }
+    }
+
+    @Test public void testQuantiles() {
+        Histogram h = new Histogram();
+        assertEquals(0, h.quantile(0.99));
+        for (long v = 1; v <= 1000; v += 1) {
+            h.record(v);
+        }
+        assertEquals(1000, h.count());
+        assertEquals(500500, h.sum());
+        assertEquals(1000, h.max());
+        long median = h.quantile(0.5);
+        assertTrue(median >= 500 && median <= 500 + 500 / 32);
+        long p99 = h.quantile(0.99);
+        assertTrue(p99 >= 990 && p99 <= 1000);
+        assertEquals(1000, h.quantile(1.0));
+    }
+
+    @Test public void testPrometheus() {
+        Metrics metrics = new Metrics();
+        metrics.recordTime(Metrics.COMMAND, 2000000);
+        metrics.counter(Metrics.GAMES).increment();
+        String text = metrics.prometheus();
+        assertTrue(text.contains("# TYPE ataxx_games_total counter\n"
+                                 + "ataxx_games_total 1\n"));
+        assertTrue(text.contains("ataxx_command_seconds_count 1\n"));
+        assertTrue(text.contains("ataxx_command_seconds_sum 0.002\n"));
+    }
+
+}
@@ -0,0 +1,763 @@
+package ataxx;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static ataxx.PieceColor.*;
+
+/** A Player that chooses its moves by Monte Carlo tree search (UCT).
+ *  The tree is kept in a pool of nodes held in primitive arrays, and
+ *  the part of it below the position actually reached is kept from one
+ *  move to the next.  Playouts are made on a compact private board and
+ *  allocate nothing.  Several threads may search the same tree, using
+ *  "virtual losses" to steer each other into different lines.
+ *  @author Melissa Ly
+ */
+class MCTS extends Player {
+
+    /** Limits on the searches made for moves in a Game: the move time
+     *  (the depth is ignored, and the node limit bounds the number of
+     *  playouts). */
+    static final SearchLimits GAME_LIMITS = new SearchLimits(0, 0, 1000);
+    /** Limits on the searches made for moves in a seeded Game, which
+     *  must be reproducible: a fixed number of playouts. */
+    static final SearchLimits SEEDED_LIMITS = new SearchLimits(0, 4000, 0);
+    /** Number of nodes in the tree. */
+    static final int POOL_SIZE = 1 << 18;
+
+    /** Exploration constant in the UCT formula. */
+    private static final double EXPLORATION = 1.0;
+    /** Number of losses provisionally charged to a node while a playout
+     *  through it is in progress. */
+    private static final int VIRTUAL_LOSS = 3;
+    /** Number of random candidate moves compared at each step of a
+     *  playout. */
+    private static final int SAMPLES = 3;
+    /** Greatest number of tree nodes on one path from the root. */
+    private static final int MAX_PATH = 512;
+    /** Nanoseconds in a millisecond. */
+    private static final long NANOS_PER_MILLI = 1_000_000;
+
+    /** Node states. */
+    private static final int UNEXPANDED = 0, EXPANDING = 1, EXPANDED = 2;
+
+    /** A new MCTS player for GAME that will play MYCOLOR.  It uses all
+     *  available processors, unless GAME has its own executor for
+     *  searches, in which case it searches on that with one thread.  If
+     *  GAME has been seeded, it instead plays reproducibly, making a fixed
+     *  number of playouts on one thread, with random numbers seeded from
+     *  GAME's. */
+    MCTS(Game game, PieceColor myColor) {
+        this(game, myColor, game.seeded() ? SEEDED_LIMITS : GAME_LIMITS,
+             game.seeded() || game.searchExecutor() != null
+             ? 1 : Runtime.getRuntime().availableProcessors());
+    }
+
+    /** A new MCTS player for GAME that will play MYCOLOR, searching
+     *  within LIMITS using THREADS threads. */
+    MCTS(Game game, PieceColor myColor, SearchLimits limits, int threads) {
+        super(game, myColor);
+        _limits = limits;
+        _workers = new Worker[Math.max(1, threads)];
+        long seed = game == null ? System.nanoTime() : game.randomSeed();
+        for (int k = 0; k < _workers.length; k += 1) {
+            _workers[k] = new Worker(seed + k);
+        }
+    }
+
+    /** A new MCTS player, not attached to any Game, that will play
+     *  MYCOLOR, searching within LIMITS using THREADS threads. */
+    MCTS(PieceColor myColor, SearchLimits limits, int threads) {
+        this(null, myColor, limits, threads);
+    }
+
+    @Override
+    Move myMove() {
+        Executor executor = game().searchExecutor();
+        long start = System.nanoTime();
+        Move move;
+        if (executor == null) {
+            move = findMove(board());
+        } else {
+            move = CompletableFuture.supplyAsync(() -> findMove(board()),
+                                                 executor).join();
+        }
+        Metrics.metrics().recordSearch(_playouts.get(),
+                                       System.nanoTime() - start);
+        return move;
+    }
+
+    /** Return my move in POSITION, which is not modified, searching
+     *  within my limits or until stop() is called. */
+    Move findMove(Board position) {
+        Position root = new Position();
+        root.set(position);
+        reuseTree(position, root);
+        _root = root;
+        _historyLength = position.allMoves().size();
+
+        _playouts.set(0);
+        _deadline = _limits.moveTime() > 0
+            ? System.nanoTime() + _limits.moveTime() * NANOS_PER_MILLI
+            : Long.MAX_VALUE;
+        _playoutLimit = _limits.nodes() > 0 ? _limits.nodes()
+            : Long.MAX_VALUE;
+        if (_tree.state.get(0) == UNEXPANDED) {
+            _tree.state.set(0, EXPANDING);
+            _workers[0].expand(0, root);
+        }
+        if (_tree.numChildren[0] > 1) {
+            Thread[] helpers = new Thread[_workers.length - 1];
+            for (int k = 0; k < helpers.length; k += 1) {
+                helpers[k] = new Thread(_workers[k + 1], "ataxx-mcts");
+                helpers[k].setDaemon(true);
+                helpers[k].start();
+            }
+            _workers[0].run();
+            for (Thread helper : helpers) {
+                try {
+                    helper.join();
+                } catch (InterruptedException excp) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        _stopped = false;
+        return toMove(bestChild(), root);
+    }
+
+    /** Cause a search in progress (on another thread) to return as soon
+     *  as possible, or the next search to return after expanding its
+     *  root if none is in progress. */
+    @Override
+    void stop() {
+        _stopped = true;
+    }
+
+    /** Return the number of playouts made by the last search. */
+    long playouts() {
+        return _playouts.get();
+    }
+
+    /** Return the child of the root with the most visits, or -1 if the
+     *  root has no children. */
+    private int bestChild() {
+        Tree tree = _tree;
+        int best = -1;
+        int bestVisits = -1;
+        int first = tree.firstChild[0];
+        for (int c = first; c < first + tree.numChildren[0]; c += 1) {
+            int visits = tree.visits.get(c);
+            if (visits > bestVisits) {
+                best = c;
+                bestVisits = visits;
+            }
+        }
+        return best;
+    }
+
+    /** Make the root of my tree the node for ROOT, the position reached
+     *  in POSITION, keeping the subtree already searched below it if the
+     *  moves made since my last search lead there from my last root.
+     *  Otherwise, start with an empty tree. */
+    private void reuseTree(Board position, Position root) {
+        List<Move> history = position.allMoves();
+        int node = -1;
+        if (_root != null && history.size() >= _historyLength) {
+            Position pos = _scratch;
+            pos.copy(_root);
+            node = 0;
+            for (Move move : history.subList(_historyLength,
+                                             history.size())) {
+                node = _tree.child(node, code(position, move));
+                if (node < 0) {
+                    break;
+                }
+                pos.make(code(position, move));
+            }
+            if (node >= 0 && !pos.sameAs(root)) {
+                node = -1;
+            }
+        }
+        _spare.clear();
+        if (node >= 0) {
+            _spare.copySubtree(_tree, node, _mapping);
+        } else {
+            _spare.size.set(1);
+        }
+        Tree tree = _tree;
+        _tree = _spare;
+        _spare = tree;
+    }
+
+    /** Return the code for MOVE on BOARD (see Position.make). */
+    private static int code(Board board, Move move) {
+        if (move.isPass()) {
+            return 0;
+        }
+        int to = board.index(move.col1(), move.row1());
+        if (move.isExtend()) {
+            return to;
+        } else {
+            return board.index(move.col0(), move.row0()) * FROM + to;
+        }
+    }
+
+    /** Return the Move from POSITION leading to tree node NODE, or a pass
+     *  if NODE is -1. */
+    private Move toMove(int node, Position position) {
+        if (node < 0) {
+            return Move.pass();
+        }
+        int code = _tree.move[node];
+        if (code == 0) {
+            return Move.pass();
+        }
+        int to = code % FROM;
+        int from = code / FROM;
+        if (from == 0) {
+            for (int dir : position.layout.adjacent) {
+                if (position.cells[to + dir] == position.toMove) {
+                    from = to + dir;
+                    break;
+                }
+            }
+        }
+        int ext = position.layout.extendedSide;
+        return Move.move(col(from, ext), row(from, ext),
+                         col(to, ext), row(to, ext));
+    }
+
+    /** Return the column of the square with linearized index SQ on a
+     *  board with EXT squares on a side, including the border. */
+    private static char col(int sq, int ext) {
+        return (char) ('a' + sq % ext - 2);
+    }
+
+    /** Return the row of the square with linearized index SQ on a
+     *  board with EXT squares on a side, including the border. */
+    private static char row(int sq, int ext) {
+        return (char) ('1' + sq / ext - 2);
+    }
+
+    /** A pool of tree nodes.  Node 0 is the root, and the children of a
+     *  node occupy consecutive indices.  Each node records the move that
+     *  leads to it, and the number of visits to it and half-points won
+     *  in them by the player making that move. */
+    private static class Tree {
+
+        /** Return the child of expanded node NODE reached by the move with
+         *  code CODE, or -1 if there is none. */
+        int child(int node, int code) {
+            if (state.get(node) != EXPANDED) {
+                return -1;
+            }
+            int first = firstChild[node];
+            for (int c = first; c < first + numChildren[node]; c += 1) {
+                if (move[c] == code) {
+                    return c;
+                }
+            }
+            return -1;
+        }
+
+        /** Reserve N consecutive new nodes, returning the index of the
+         *  first, or -1 if the pool is full. */
+        int allocate(int n) {
+            int first = size.getAndAdd(n);
+            return first + n <= POOL_SIZE ? first : -1;
+        }
+
+        /** Make me empty, with all nodes unexpanded and unvisited. */
+        void clear() {
+            int n = Math.min(size.get(), POOL_SIZE);
+            for (int k = 0; k < n; k += 1) {
+                state.set(k, UNEXPANDED);
+                visits.set(k, 0);
+                wins.set(k, 0);
+                numChildren[k] = 0;
+            }
+            move[0] = 0;
+            size.set(0);
+        }
+
+        /** Set me, which must be clear(), to a copy of the subtree of
+         *  SOURCE rooted at ROOT.  MAPPING is scratch space. */
+        void copySubtree(Tree source, int root, int[] mapping) {
+            mapping[0] = root;
+            size.set(1);
+            for (int k = 0; k < size.get(); k += 1) {
+                int old = mapping[k];
+                move[k] = source.move[old];
+                visits.set(k, source.visits.get(old));
+                wins.set(k, source.wins.get(old));
+                if (source.state.get(old) == EXPANDED) {
+                    int n = source.numChildren[old];
+                    int first = size.getAndAdd(n);
+                    for (int c = 0; c < n; c += 1) {
+                        mapping[first + c] = source.firstChild[old] + c;
+                    }
+                    firstChild[k] = first;
+                    numChildren[k] = n;
+                    state.set(k, EXPANDED);
+                }
+            }
+            move[0] = 0;
+        }
+
+        /** Move leading to each node. */
+        final int[] move = new int[POOL_SIZE];
+        /** Index of the first child of each node. */
+        final int[] firstChild = new int[POOL_SIZE];
+        /** Number of children of each node. */
+        final int[] numChildren = new int[POOL_SIZE];
+        /** Expansion state of each node.  Setting a node's state to
+         *  EXPANDED publishes its children. */
+        final AtomicIntegerArray state = new AtomicIntegerArray(POOL_SIZE);
+        /** Visits to each node, including virtual losses in progress. */
+        final AtomicIntegerArray visits = new AtomicIntegerArray(POOL_SIZE);
+        /** Half-points won at each node. */
+        final AtomicIntegerArray wins = new AtomicIntegerArray(POOL_SIZE);
+        /** Number of nodes allocated (may exceed POOL_SIZE). */
+        final AtomicInteger size = new AtomicInteger(1);
+    }
+
+    /** One thread of a search, with its own board and random numbers. */
+    private class Worker implements Runnable {
+
+        /** A Worker whose random numbers are seeded from SEED. */
+        Worker(long seed) {
+            _random = seed * 0x9E3779B97F4A7C15L | 1;
+        }
+
+        @Override
+        public void run() {
+            while (!_stopped && System.nanoTime() < _deadline) {
+                if (_playouts.getAndIncrement() >= _playoutLimit) {
+                    _playouts.decrementAndGet();
+                    break;
+                }
+                iterate();
+            }
+        }
+
+        /** Make one playout: descend the tree from the root, expand the
+         *  node reached, play out the game from there at random, and
+         *  record the result on the path taken. */
+        private void iterate() {
+            Tree tree = _tree;
+            Position pos = _pos;
+            pos.copy(_root);
+            int node = 0;
+            int depth = 0;
+            _path[0] = 0;
+            while (depth < MAX_PATH - 1) {
+                int state = tree.state.get(node);
+                if (state == UNEXPANDED
+                    && tree.state.compareAndSet(node, UNEXPANDED,
+                                                EXPANDING)) {
+                    if (!expand(node, pos)) {
+                        break;
+                    }
+                } else if (state != EXPANDED) {
+                    break;
+                }
+                if (tree.numChildren[node] == 0) {
+                    break;
+                }
+                node = select(tree, node);
+                pos.make(tree.move[node]);
+                tree.visits.addAndGet(node, VIRTUAL_LOSS);
+                depth += 1;
+                _path[depth] = node;
+                if (state != EXPANDED) {
+                    break;
+                }
+            }
+            int winner = pos.playout(this);
+            int mover = _root.toMove;
+            for (int d = 1; d <= depth; d += 1) {
+                int n = _path[d];
+                tree.wins.addAndGet(n, winner == mover ? 2
+                                    : winner == EMPTY_CELL ? 1 : 0);
+                tree.visits.addAndGet(n, 1 - VIRTUAL_LOSS);
+                mover = opponent(mover);
+            }
+            tree.visits.incrementAndGet(0);
+        }
+
+        /** Expand NODE, whose position is POS and whose state the caller
+         *  has set to EXPANDING, returning true iff successful. */
+        boolean expand(int node, Position pos) {
+            Tree tree = _tree;
+            int n;
+            if (pos.gameOver()) {
+                n = 0;
+            } else {
+                n = pos.generate(_moves, pos.toMove);
+                if (n == 0) {
+                    _moves[0] = 0;
+                    n = 1;
+                }
+            }
+            int first = n == 0 ? 0 : tree.allocate(n);
+            if (first < 0) {
+                tree.state.set(node, UNEXPANDED);
+                return false;
+            }
+            for (int k = n - 1; k > 0; k -= 1) {
+                int j = nextInt(k + 1);
+                int m = _moves[k];
+                _moves[k] = _moves[j];
+                _moves[j] = m;
+            }
+            System.arraycopy(_moves, 0, tree.move, first, n);
+            tree.firstChild[node] = first;
+            tree.numChildren[node] = n;
+            tree.state.set(node, EXPANDED);
+            return true;
+        }
+
+        /** Return the child of NODE in TREE with the greatest upper
+         *  confidence bound. */
+        private int select(Tree tree, int node) {
+            int first = tree.firstChild[node];
+            int last = first + tree.numChildren[node];
+            double logN = Math.log(Math.max(1, tree.visits.get(node)));
+            int best = first;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int c = first; c < last; c += 1) {
+                int visits = tree.visits.get(c);
+                if (visits == 0) {
+                    return c;
+                }
+                double value = tree.wins.get(c) / (2.0 * visits)
+                    + EXPLORATION * Math.sqrt(logN / visits);
+                if (value > bestValue) {
+                    best = c;
+                    bestValue = value;
+                }
+            }
+            return best;
+        }
+
+        /** Return a pseudo-random integer in 0 .. N-1, for N > 0. */
+        int nextInt(int n) {
+            _random ^= _random << 13;
+            _random ^= _random >>> 7;
+            _random ^= _random << 17;
+            return (int) (((_random >>> 32) * n) >>> 32);
+        }
+
+        /** Scratch space for moves. */
+        final int[] _moves = new int[MAX_MOVES];
+        /** The board on which I make my playouts. */
+        private final Position _pos = new Position();
+        /** The nodes on the path taken by the current playout. */
+        private final int[] _path = new int[MAX_PATH];
+        /** State of my random-number generator (xorshift). */
+        private long _random;
+    }
+
+    /** Cell contents on a Position: the ordinals of the PieceColors. */
+    private static final byte
+        EMPTY_CELL = (byte) EMPTY.ordinal(),
+        BLOCKED_CELL = (byte) BLOCKED.ordinal(),
+        RED_CELL = (byte) RED.ordinal(),
+        BLUE_CELL = (byte) BLUE.ordinal();
+
+    /** Return the color opposite to COLOR (RED_CELL or BLUE_CELL). */
+    private static int opponent(int color) {
+        return RED_CELL + BLUE_CELL - color;
+    }
+
+    /** Multiplier of the 'from' square in a move code (greater than any
+     *  linearized index on the largest board). */
+    private static final int FROM = 512;
+    /** An upper bound on the number of legal moves in any position. */
+    private static final int MAX_MOVES = Board.MAX_SIDE * Board.MAX_SIDE * 17;
+
+    /** The square and direction tables for a board of a given size. */
+    private static class Layout {
+        /** Tables for a board with SIDE squares on a side. */
+        Layout(int side) {
+            Board board = new Board(side);
+            extendedSide = board.extendedSide();
+            squares = new int[side * side];
+            int k;
+            k = 0;
+            for (char r = '1'; r <= board.lastRow(); r += 1) {
+                for (char c = 'a'; c <= board.lastCol(); c += 1) {
+                    squares[k] = board.index(c, r);
+                    k += 1;
+                }
+            }
+            int adj, jump;
+            adj = jump = 0;
+            for (int dr = -2; dr <= 2; dr += 1) {
+                for (int dc = -2; dc <= 2; dc += 1) {
+                    int dist = Math.max(Math.abs(dr), Math.abs(dc));
+                    if (dist == 1) {
+                        adjacent[adj] = board.neighbor(0, dc, dr);
+                        adj += 1;
+                    } else if (dist == 2) {
+                        distant[jump] = board.neighbor(0, dc, dr);
+                        jump += 1;
+                    }
+                }
+            }
+        }
+
+        /** Number of squares on a side, including the border. */
+        final int extendedSide;
+        /** Linearized indices of the squares on the board. */
+        final int[] squares;
+        /** Offsets of the squares adjacent to a square. */
+        final int[] adjacent = new int[8];
+        /** Offsets of the squares a jump away from a square. */
+        final int[] distant = new int[16];
+    }
+
+    /** Return the Layout for boards with SIDE squares on a side,
+     *  building it when first needed.  Layouts are immutable, so two
+     *  threads building the same one at once is harmless. */
+    private static Layout layout(int side) {
+        Layout result = LAYOUTS[side];
+        if (result == null) {
+            result = LAYOUTS[side] = new Layout(side);
+        }
+        return result;
+    }
+
+    /** LAYOUTS[s] is the Layout for boards with s squares on a side, or
+     *  null if not yet needed. */
+    private static final Layout[] LAYOUTS = new Layout[Board.MAX_SIDE + 1];
+
+    /** A compact, mutable board for playouts.  Moves are denoted by
+     *  integer codes: 0 for a pass, the linearized index of the
+     *  destination for an extend, and FROM * source + destination for a
+     *  jump. */
+    private static class Position {
+
+        /** Set me to the position on BOARD. */
+        void set(Board board) {
+            setLayout(layout(board.side()));
+            Arrays.fill(cells, BLOCKED_CELL);
+            for (int sq : layout.squares) {
+                cells[sq] = (byte) board.get(sq).ordinal();
+            }
+            toMove = board.whoseMove().ordinal();
+            jumps = board.numJumps();
+            red = board.redPieces();
+            blue = board.bluePieces();
+        }
+
+        /** Use the board size described by LAYOUT. */
+        private void setLayout(Layout newLayout) {
+            if (layout != newLayout) {
+                layout = newLayout;
+                cells = new byte[layout.extendedSide * layout.extendedSide];
+            }
+        }
+
+        /** Set me to a copy of OTHER. */
+        void copy(Position other) {
+            setLayout(other.layout);
+            System.arraycopy(other.cells, 0, cells, 0, cells.length);
+            toMove = other.toMove;
+            jumps = other.jumps;
+            red = other.red;
+            blue = other.blue;
+        }
+
+        /** Return true iff I am the same position as OTHER. */
+        boolean sameAs(Position other) {
+            return layout == other.layout
+                && toMove == other.toMove && jumps == other.jumps
+                && Arrays.equals(cells, other.cells);
+        }
+
+        /** Store the codes of the legal moves for COLOR, other than
+         *  passes, in MOVES, and return their number.  Extends to the same
+         *  square from different squares are counted once. */
+        int generate(int[] moves, int color) {
+            int[] adjacent = layout.adjacent, distant = layout.distant;
+            int n;
+            n = 0;
+            for (int sq : layout.squares) {
+                if (cells[sq] != EMPTY_CELL) {
+                    continue;
+                }
+                for (int dir : adjacent) {
+                    if (cells[sq + dir] == color) {
+                        moves[n] = sq;
+                        n += 1;
+                        break;
+                    }
+                }
+                for (int dir : distant) {
+                    if (cells[sq + dir] == color) {
+                        moves[n] = (sq + dir) * FROM + sq;
+                        n += 1;
+                    }
+                }
+            }
+            return n;
+        }
+
+        /** Return true iff COLOR has a legal move other than a pass. */
+        boolean canMove(int color) {
+            int[] adjacent = layout.adjacent, distant = layout.distant;
+            for (int sq : layout.squares) {
+                if (cells[sq] != EMPTY_CELL) {
+                    continue;
+                }
+                for (int dir : adjacent) {
+                    if (cells[sq + dir] == color) {
+                        return true;
+                    }
+                }
+                for (int dir : distant) {
+                    if (cells[sq + dir] == color) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /** Return true iff the game is over, by the rules of
+         *  Board.gameOver. */
+        boolean gameOver() {
+            return jumps >= Board.JUMP_LIMIT || red == 0 || blue == 0
+                || !canMove(toMove) && !canMove(opponent(toMove));
+        }
+
+        /** Make the move with code MOVE, which must be legal. */
+        void make(int move) {
+            int opp = opponent(toMove);
+            if (move == 0) {
+                toMove = opp;
+                return;
+            }
+            int to = move % FROM;
+            int from = move / FROM;
+            int gained;
+            if (from == 0) {
+                gained = 1;
+                jumps = 0;
+            } else {
+                gained = 0;
+                cells[from] = EMPTY_CELL;
+                jumps += 1;
+            }
+            cells[to] = (byte) toMove;
+            int flipped;
+            flipped = 0;
+            for (int dir : layout.adjacent) {
+                if (cells[to + dir] == opp) {
+                    cells[to + dir] = (byte) toMove;
+                    flipped += 1;
+                }
+            }
+            if (toMove == RED_CELL) {
+                red += gained + flipped;
+                blue -= flipped;
+            } else {
+                blue += gained + flipped;
+                red -= flipped;
+            }
+            toMove = opp;
+        }
+
+        /** Return the change in the difference between the numbers of
+         *  pieces of the side to move and its opponent caused by the move
+         *  with code MOVE. */
+        int gain(int move) {
+            int to = move % FROM;
+            int opp = opponent(toMove);
+            int gained = move < FROM ? 1 : 0;
+            for (int dir : layout.adjacent) {
+                if (cells[to + dir] == opp) {
+                    gained += 2;
+                }
+            }
+            return gained;
+        }
+
+        /** Play out the game from here to the end, using WORKER's random
+         *  numbers and move buffer, and return the color of the winner, or
+         *  EMPTY_CELL for a draw.  At each step, the move is the best (by
+         *  gain) of a few chosen at random. */
+        int playout(Worker worker) {
+            int[] moves = worker._moves;
+            while (jumps < Board.JUMP_LIMIT && red > 0 && blue > 0) {
+                int n = generate(moves, toMove);
+                if (n == 0) {
+                    if (!canMove(opponent(toMove))) {
+                        break;
+                    }
+                    toMove = opponent(toMove);
+                    continue;
+                }
+                int best = moves[worker.nextInt(n)];
+                int bestGain = gain(best);
+                for (int k = 1; k < SAMPLES; k += 1) {
+                    int move = moves[worker.nextInt(n)];
+                    int g = gain(move);
+                    if (g > bestGain) {
+                        best = move;
+                        bestGain = g;
+                    }
+                }
+                make(best);
+            }
+            if (red > blue) {
+                return RED_CELL;
+            } else if (blue > red) {
+                return BLUE_CELL;
+            } else {
+                return EMPTY_CELL;
+            }
+        }
+
+        /** Tables for my board size. */
+        Layout layout;
+        /** Contents of each square, indexed as on a Board. */
+        byte[] cells;
+        /** Color to move (RED_CELL or BLUE_CELL). */
+        int toMove;
+        /** Number of consecutive jumps. */
+        int jumps;
+        /** Numbers of red and blue pieces. */
+        int red, blue;
+    }
+
+    /** Limits on each search. */
+    private final SearchLimits _limits;
+    /** The search threads. */
+    private final Worker[] _workers;
+    /** The tree being searched, and a spare used when it is re-rooted. */
+    private Tree _tree = new Tree(), _spare = new Tree();
+    /** Scratch space for copying trees. */
+    private final int[] _mapping = new int[POOL_SIZE];
+    /** Scratch board for finding reusable subtrees. */
+    private final Position _scratch = new Position();
+    /** The position at the root of the tree, or null if none yet. */
+    private Position _root;
+    /** Length of the move history at the time of the last search. */
+    private int _historyLength;
+    /** Number of playouts started in the current search. */
+    private final AtomicLong _playouts = new AtomicLong();
+    /** Limit on the playouts in the current search. */
+    private long _playoutLimit;
+    /** Time (from System.nanoTime) at which the current search ends. */
+    private volatile long _deadline;
+    /** True when the current or next search should stop at once. */
+    private volatile boolean _stopped;
+}
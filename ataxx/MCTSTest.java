@@ -0,0 +1,89 @@
+package ataxx;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import static ataxx.PieceColor.*;
+
+/** Tests of the MCTS player.
+ *  @author Melissa Ly
+ */
+public class MCTSTest {
+
+    /** Limits used for test searches. */
+    private static final SearchLimits LIMITS = new SearchLimits(0, 4000, 0);
+
+    @Test public void testLegal() {
+        Board board = new Board();
+        MCTS player = new MCTS(RED, LIMITS, 2);
+        Move move = player.findMove(board);
+        assertTrue("illegal move", board.legalMove(move));
+        assertEquals(4000, player.playouts());
+        board.makeMove(move);
+        MCTS other = new MCTS(BLUE, LIMITS, 1);
+        move = other.findMove(board);
+        assertTrue("illegal move", board.legalMove(move));
+    }
+
+    @Test(timeout = 20000)
+    public void testStop() throws InterruptedException {
+        Board board = new Board();
+        MCTS player = new MCTS(RED, new SearchLimits(0, 0, 0), 1);
+        player.stop();
+        assertTrue("illegal move", board.legalMove(player.findMove(board)));
+        assertEquals(0, player.playouts());
+        Thread stopper = new Thread(() -> {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException excp) {
+                    return;
+                }
+                player.stop();
+            });
+        stopper.start();
+        assertTrue("illegal move", board.legalMove(player.findMove(board)));
+        assertTrue(player.playouts() > 0);
+        stopper.join();
+    }
+
+    @Test public void testFindsWin() {
+        PieceColor[][] contents = new PieceColor[Board.SIDE][Board.SIDE];
+        for (PieceColor[] row : contents) {
+            java.util.Arrays.fill(row, EMPTY);
+        }
+        contents['7' - '1']['a' - 'a'] = BLUE;
+        contents['6' - '1']['a' - 'a'] = BLUE;
+        contents['5' - '1']['c' - 'a'] = RED;
+        contents['1' - '1']['g' - 'a'] = RED;
+        Board board = new Board();
+        board.setPosition(contents, RED, 0);
+        Move move = new MCTS(RED, LIMITS, 2).findMove(board);
+        String dest = "" + move.col1() + move.row1();
+        assertTrue("missed win: " + move,
+                   dest.equals("b6") || dest.equals("b7"));
+    }
+
+    @Test public void testSeeded() {
+        Move[] moves = new Move[2];
+        for (int k = 0; k < 2; k += 1) {
+            Board board = new Board();
+            Game game = new Game(board, new QueueSource(),
+                                 new TextReporter());
+            game.doSeed(new String[] { "2983847" });
+            MCTS player = new MCTS(game, RED);
+            moves[k] = player.findMove(board);
+            assertEquals(MCTS.SEEDED_LIMITS.nodes(), player.playouts());
+        }
+        assertEquals(moves[0], moves[1]);
+    }
+
+    @Test public void testReuse() {
+        Board board = new Board();
+        MCTS red = new MCTS(RED, LIMITS, 1);
+        board.makeMove(red.findMove(board));
+        board.makeMove(new MCTS(BLUE, LIMITS, 1).findMove(board));
+        Move move = red.findMove(board);
+        assertTrue("illegal move", board.legalMove(move));
+    }
+
+}
@@ -2,70 +2,268 @@ package ataxx;
 
 import java.io.InputStreamReader;
 import java.io.IOException;
-import java.io.PipedReader;
-import java.io.PipedWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
 import java.awt.HeadlessException;
+import java.util.concurrent.Executors;
 
 /** The main program for Ataxx.
  *  @author Melissa Ly
  */
 public class Main {
 
-    /** Run Ataxx game.  Use display if ARGS[k] is '--display'. */
+    /** Run Ataxx game.  Use display if ARGS[k] is '--display'.  If
+     *  ARGS[k] is '--server' or '--server=PORT', instead serve games to
+     *  any number of connections on local port PORT.  If ARGS[k] is
+     *  '--timing', report statistics on each AI search.  If ARGS[k] is
+     *  '--uai', speak the UAI engine protocol on the standard input and
+     *  output instead of the command language.  If ARGS[k] is
+     *  '--metrics=FILE', periodically write latency and throughput
+     *  metrics to FILE in Prometheus text format.  If ARGS[k] is
+     *  '--cache=FILE', AI players record and reuse analyses in FILE,
+     *  which may be shared by other processes.  If ARGS[k] is
+     *  '--tablebase=FILE', AI players use the values of the positions
+     *  near the end of the game in FILE, built by TablebaseBuilder.  If
+     *  ARGS[k] is '--startup', report how long after launch the first
+     *  prompt for a command came.  If ARGS[k] is '--warmup' or
+     *  '--warmup=MILLIS', warm up the compiler for AI searches while the
+     *  game is being set up, using at most MILLIS (by default,
+     *  Warmup.DEFAULT_BUDGET) milliseconds of CPU time.  If ARGS[k] is
+     *  '--bench' or '--bench=DEPTH', instead run the fixed benchmark of
+     *  AI searches (see Bench), to depth DEPTH if given, print the
+     *  results, and exit. */
     public static void main(String[] args) {
         boolean useGUI;
         useGUI = false;
+        boolean uai = false;
+        boolean timing = false;
+        boolean startup = false;
+        long warmup = 0;
+        int bench = 0;
+        int serverPort = -1;
         for (int i = 0; i < args.length; i += 1) {
             switch (args[i]) {
             case "--display":
                 useGUI = true;
                 break;
+            case "--timing":
+                timing = true;
+                break;
+            case "--startup":
+                startup = true;
+                break;
+            case "--warmup":
+                warmup = Warmup.DEFAULT_BUDGET;
+                break;
+            case "--bench":
+                bench = Bench.DEFAULT_DEPTH;
+                break;
+            case "--uai":
+                uai = true;
+                break;
+            case "--server":
+                serverPort = GameServer.DEFAULT_PORT;
+                break;
             default:
-                usage();
+                if (args[i].startsWith("--server=")) {
+                    serverPort = parsePort(args[i].substring(9));
+                } else if (args[i].startsWith("--metrics=")
+                           && args[i].length() > 10) {
+                    Metrics.metrics().exportPeriodically(
+                        Paths.get(args[i].substring(10)),
+                        METRICS_PERIOD);
+                } else if (args[i].startsWith("--cache=")
+                           && args[i].length() > 8) {
+                    openCache(args[i].substring(8));
+                } else if (args[i].startsWith("--tablebase=")
+                           && args[i].length() > 12) {
+                    openTablebase(args[i].substring(12));
+                } else if (args[i].startsWith("--warmup=")) {
+                    warmup = parseMillis(args[i].substring(9));
+                } else if (args[i].startsWith("--bench=")) {
+                    bench = parseDepth(args[i].substring(8));
+                } else {
+                    usage();
+                }
                 break;
             }
         }
 
+        if (bench > 0) {
+            new Bench(bench).run(System.out);
+            System.exit(0);
+        }
+        if (serverPort >= 0) {
+            serve(serverPort);
+            return;
+        }
+        if (uai) {
+            new UAIProtocol(new InputStreamReader(System.in),
+                            System.out).run();
+            System.exit(0);
+        }
+
         Game game;
         Board board = new Board();
 
         game = null;
         if (useGUI) {
             try {
-                System.err.printf("Sorry, --display not implemented.%n");
-                System.exit(2);
-                PipedWriter writer = new PipedWriter();
-                AtaxxGUI display = new AtaxxGUI("Ataxx", board, writer);
-                game = new Game(board,
-                                new ReaderSource(new PipedReader(writer,
-                                                                 BUFFER_LEN),
-                                                 false),
+                QueueSource commands = new QueueSource();
+                AtaxxGUI display = new AtaxxGUI("Ataxx", board, commands);
+                game = new Game(board, startupSource(commands, startup),
                                 display);
+                game.setSearchExecutor(Executors.newSingleThreadExecutor(
+                    r -> {
+                        Thread t = new Thread(r, "ataxx-search");
+                        t.setDaemon(true);
+                        return t;
+                    }));
+                game.setSearchListener(display);
+                display.setGame(game);
                 display.display(true);
             } catch (HeadlessException excp) {
                 System.err.printf("Could not connect to display.%n");
                 System.exit(1);
-            } catch (IOException excp) {
-                System.err.printf("An internal error occurred.%n");
-                System.exit(1);
             }
         } else {
-            game = new Game(board,
-                            new ReaderSource(new InputStreamReader(System.in),
-                                             true),
+            CommandSource input =
+                new ReaderSource(new InputStreamReader(System.in), true);
+            game = new Game(board, startupSource(input, startup),
                             new TextReporter());
         }
+        game.setTiming(timing);
+        game.setWarmup(warmup);
         game.process(false);
+        System.exit(0);
+    }
+
+    /** Return SOURCE if not REPORT, and otherwise a source that reads
+     *  from SOURCE and, when first asked for a line, reports on the
+     *  standard error how long after the launch of the JVM that was. */
+    private static CommandSource startupSource(CommandSource source,
+                                               boolean report) {
+        if (!report) {
+            return source;
+        }
+        return new CommandSource() {
+            @Override
+            public String getLine(String prompt) {
+                if (!_reported) {
+                    long now = System.currentTimeMillis();
+                    long start =
+                        ManagementFactory.getRuntimeMXBean().getStartTime();
+                    System.err.printf("[startup] first prompt %d ms after"
+                                      + " launch%n", now - start);
+                    _reported = true;
+                }
+                return source.getLine(prompt);
+            }
+
+            /** True once the first prompt has been reported. */
+            private boolean _reported;
+        };
+    }
+
+    /** Serve games on PORT until killed. */
+    private static void serve(int port) {
+        try {
+            GameServer server =
+                new GameServer(port,
+                               Runtime.getRuntime().availableProcessors());
+            System.err.printf("Serving Ataxx on port %d.%n", server.port());
+            server.serve();
+        } catch (IOException excp) {
+            System.err.printf("Could not serve on port %d: %s%n",
+                              port, excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Return the port number denoted by TEXT, or give a usage message
+     *  and exit if it is not one. */
+    private static int parsePort(String text) {
+        try {
+            int port = Integer.parseInt(text);
+            if (port >= 0 && port <= MAX_PORT) {
+                return port;
+            }
+        } catch (NumberFormatException excp) {
+            /* Fall through to usage message. */
+        }
+        usage();
+        return -1;
+    }
+
+    /** Return the positive number of milliseconds denoted by TEXT, or
+     *  give a usage message and exit if it is not one. */
+    private static long parseMillis(String text) {
+        try {
+            long millis = Long.parseLong(text);
+            if (millis > 0) {
+                return millis;
+            }
+        } catch (NumberFormatException excp) {
+            /* Fall through to usage message. */
+        }
+        usage();
+        return -1;
+    }
+
+    /** Return the search depth denoted by TEXT, or give a usage message
+     *  and exit if it is not one. */
+    private static int parseDepth(String text) {
+        try {
+            int depth = Integer.parseInt(text);
+            if (depth >= 1 && depth <= AI.MAX_PLY) {
+                return depth;
+            }
+        } catch (NumberFormatException excp) {
+            /* Fall through to usage message. */
+        }
+        usage();
+        return -1;
+    }
+
+    /** Make the analysis cache in FILE the one shared by AI players, or
+     *  report an error and exit if it cannot be opened. */
+    private static void openCache(String file) {
+        try {
+            AnalysisCache.openShared(Paths.get(file));
+        } catch (IOException excp) {
+            System.err.printf("Could not open analysis cache %s: %s%n",
+                              file, excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Make the tablebase in FILE the one shared by AI players, or
+     *  report an error and exit if it cannot be opened. */
+    private static void openTablebase(String file) {
+        try {
+            Tablebase.openShared(Paths.get(file));
+        } catch (IOException excp) {
+            System.err.printf("Could not open tablebase %s: %s%n",
+                              file, excp.getMessage());
+            System.exit(1);
+        }
     }
 
     /** Give usage message and exit. */
     static void usage() {
         System.err.println("Usage: java ataxx.Main [--display] [--timing]"
-                           + " [--strict]");
+                           + " [--startup] [--warmup[=MILLIS]] [--strict]"
+                           + " [--uai]"
+                           + " [--server[=PORT]]"
+                           + " [--metrics=FILE] [--cache=FILE]"
+                           + " [--tablebase=FILE] [--bench[=DEPTH]]");
         System.exit(1);
     }
 
-    /** Size of the buffer for reading commands from a GUI (bytes). */
-    private static final int BUFFER_LEN = 128;
+    /** Largest TCP port number. */
+    private static final int MAX_PORT = 65535;
+
+    /** Interval between exports of metrics to a file (seconds). */
+    private static final long METRICS_PERIOD = 10;
 
 }
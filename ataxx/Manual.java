@@ -22,9 +22,9 @@ class Manual extends Player {
         }
         String[] myMove = cmd.operands();
         char col0 = myMove[0].charAt(0);
-        char row0 = myMove[1].charAt(0);
+        char row0 = Move.row(myMove[1]);
         char col1 = myMove[2].charAt(0);
-        char row1 = myMove[3].charAt(0);
+        char row1 = Move.row(myMove[3]);
         Move move = Move.move(col0, row0, col1, row1);
         if ((move == null) || !board().legalMove(move)) {
             throw error("Manual.java: Cannot move here");
@@ -0,0 +1,256 @@
+package ataxx;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Formatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/** A registry of named performance metrics: counters and latency
+ *  histograms.  Updating a metric is lock-free.  The registry can be
+ *  printed for the 'stats' command and exported in the Prometheus text
+ *  format.
+ *
+ *  All games in a process record into the same registry, metrics().
+ *  @author Melissa Ly
+ */
+class Metrics {
+
+    /** Latency of AI move searches (nanoseconds). */
+    static final String AI_MOVE = "ataxx_ai_move_seconds";
+    /** Latency of handling commands in Game.doCommand (nanoseconds). */
+    static final String COMMAND = "ataxx_command_seconds";
+    /** Nodes per second of AI move searches. */
+    static final String SEARCH_NPS = "ataxx_search_nodes_per_second";
+    /** Total positions searched by AI players. */
+    static final String NODES = "ataxx_search_nodes_total";
+    /** Total games finished. */
+    static final String GAMES = "ataxx_games_total";
+
+    /** Nanoseconds in a second. */
+    private static final double NANOS_PER_SECOND = 1e9;
+    /** Quantiles reported for histograms. */
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    /** Return the registry shared by all games in this process. */
+    static Metrics metrics() {
+        return PROCESS_METRICS;
+    }
+
+    /** A new registry containing the standard metrics. */
+    Metrics() {
+        _start = System.nanoTime();
+        histogram(AI_MOVE, "Time taken by AI move searches.", true);
+        histogram(COMMAND, "Time taken to handle a command.", true);
+        histogram(SEARCH_NPS, "Nodes per second of AI move searches.",
+                  false);
+        counter(NODES, "Positions searched by AI players.");
+        counter(GAMES, "Games finished.");
+    }
+
+    /** Return the counter named NAME, creating it with description HELP
+     *  if it does not exist. */
+    LongAdder counter(String name, String help) {
+        return ((CounterMetric) _metrics.computeIfAbsent(
+                    name, k -> new CounterMetric(help))).value;
+    }
+
+    /** Return the counter named NAME, which must exist. */
+    LongAdder counter(String name) {
+        return ((CounterMetric) _metrics.get(name)).value;
+    }
+
+    /** Return the histogram named NAME, creating it with description
+     *  HELP if it does not exist.  Iff NANOS, values are nanoseconds, to
+     *  be reported in seconds. */
+    Histogram histogram(String name, String help, boolean nanos) {
+        return ((HistogramMetric) _metrics.computeIfAbsent(
+                    name, k -> new HistogramMetric(help, nanos))).value;
+    }
+
+    /** Return the histogram named NAME, which must exist. */
+    Histogram histogram(String name) {
+        return ((HistogramMetric) _metrics.get(name)).value;
+    }
+
+    /** Record a duration of NANOS nanoseconds in histogram NAME. */
+    void recordTime(String name, long nanos) {
+        histogram(name).record(nanos);
+    }
+
+    /** Record the completion of an AI search that visited NODES positions
+     *  in NANOS nanoseconds. */
+    void recordSearch(long nodes, long nanos) {
+        recordTime(AI_MOVE, nanos);
+        counter(NODES).add(nodes);
+        if (nanos > 0) {
+            histogram(SEARCH_NPS).record((long) (nodes * NANOS_PER_SECOND
+                                                 / nanos));
+        }
+    }
+
+    /** Return a human-readable summary of all metrics. */
+    String summary() {
+        Formatter out = new Formatter();
+        double uptime = (System.nanoTime() - _start) / NANOS_PER_SECOND;
+        out.format("uptime %.1f s%n", uptime);
+        for (Map.Entry<String, Metric> entry : _metrics.entrySet()) {
+            out.format("%s: ", entry.getKey());
+            entry.getValue().summarize(out, uptime);
+            out.format("%n");
+        }
+        return out.toString();
+    }
+
+    /** Return all metrics in the Prometheus text exposition format. */
+    String prometheus() {
+        Formatter out = new Formatter();
+        for (Map.Entry<String, Metric> entry : _metrics.entrySet()) {
+            entry.getValue().export(out, entry.getKey());
+        }
+        return out.toString();
+    }
+
+    /** Write prometheus() to FILE, replacing it atomically. */
+    void export(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, prometheus().getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Export my metrics to FILE every PERIOD seconds on a daemon thread,
+     *  and once more when the process exits. */
+    void exportPeriodically(Path file, long period) {
+        ScheduledExecutorService timer =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "ataxx-metrics");
+                    t.setDaemon(true);
+                    return t;
+                });
+        timer.scheduleAtFixedRate(() -> {
+                try {
+                    export(file);
+                } catch (IOException excp) {
+                    System.err.printf("Could not export metrics to %s: %s%n",
+                                      file, excp.getMessage());
+                }
+            }, period, period, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        export(file);
+                    } catch (IOException excp) {
+                        /* Ignore: the process is exiting. */
+                    }
+                }));
+    }
+
+    /** A named metric. */
+    private abstract static class Metric {
+        /** A metric described by HELP. */
+        Metric(String help) {
+            this.help = help;
+        }
+
+        /** Append a one-line summary of me to OUT, given that the process
+         *  has been running UPTIME seconds. */
+        abstract void summarize(Formatter out, double uptime);
+
+        /** Append me, named NAME, to OUT in Prometheus format. */
+        abstract void export(Formatter out, String name);
+
+        /** Description. */
+        final String help;
+    }
+
+    /** A monotonically increasing count. */
+    private static class CounterMetric extends Metric {
+        /** A counter described by HELP. */
+        CounterMetric(String help) {
+            super(help);
+        }
+
+        @Override
+        void summarize(Formatter out, double uptime) {
+            long n = value.sum();
+            out.format("%d (%.2f/s)", n, n / Math.max(uptime, 1e-9));
+        }
+
+        @Override
+        void export(Formatter out, String name) {
+            out.format("# HELP %s %s%n# TYPE %s counter%n%s %d%n",
+                       name, help, name, name, value.sum());
+        }
+
+        /** The count. */
+        final LongAdder value = new LongAdder();
+    }
+
+    /** A distribution of values, exported as a Prometheus summary. */
+    private static class HistogramMetric extends Metric {
+        /** A histogram described by HELP, whose values are nanoseconds iff
+         *  NANOS. */
+        HistogramMetric(String help, boolean nanos) {
+            super(help);
+            _scale = nanos ? 1 / NANOS_PER_SECOND : 1;
+        }
+
+        @Override
+        void summarize(Formatter out, double uptime) {
+            out.format("count %d", value.count());
+            for (double q : QUANTILES) {
+                out.format(", p%s %s", percentile(q),
+                           format(value.quantile(q)));
+            }
+            out.format(", max %s", format(value.max()));
+        }
+
+        @Override
+        void export(Formatter out, String name) {
+            out.format("# HELP %s %s%n# TYPE %s summary%n", name, help, name);
+            for (double q : QUANTILES) {
+                out.format("%s{quantile=\"%s\"} %s%n", name, q,
+                           value.quantile(q) * _scale);
+            }
+            out.format("%s_sum %s%n%s_count %d%n", name,
+                       value.sum() * _scale, name, value.count());
+        }
+
+        /** Return VAL in my units, for summaries. */
+        private String format(long val) {
+            if (_scale == 1) {
+                return Long.toString(val);
+            }
+            return String.format("%.3f ms", val * _scale * 1000);
+        }
+
+        /** Return Q as a percentile label (e.g. 99 or 99.9). */
+        private static String percentile(double q) {
+            String label = Double.toString(q * 100);
+            return label.endsWith(".0")
+                ? label.substring(0, label.length() - 2) : label;
+        }
+
+        /** The distribution. */
+        final Histogram value = new Histogram();
+        /** Factor converting values to reported units. */
+        private final double _scale;
+    }
+
+    /** The process-wide registry. */
+    private static final Metrics PROCESS_METRICS = new Metrics();
+
+    /** All metrics, by name. */
+    private final Map<String, Metric> _metrics =
+        new ConcurrentSkipListMap<>();
+    /** Time of my creation (from System.nanoTime). */
+    private final long _start;
+
+}
@@ -14,32 +14,63 @@ class Move {
      * are immutable, and for any possible move, there is exactly one
      * object of type Move. */
 
-    /** The move COL0 ROW0 - COL1 ROW1.  This must be a legal move. */
+    /** The move COL0 ROW0 - COL1 ROW1, where columns and rows are
+     *  numbered from 0 ('a' and '1').  This must be a legal move. */
     private Move(int col0, int row0, int col1, int row1) {
-        _col0 = (char) (col0 + 'a' - 2);
-        _row0 = (char) (row0 + '1' - 2);
-        _col1 = (char) (col1 + 'a' - 2);
-        _row1 = (char) (row1 + '1' - 2);
-        _fromIndex = row0 * EXTENDED_SIDE + col0;
-        _toIndex = row1 * EXTENDED_SIDE + col1;
+        _col0 = (char) (col0 + 'a');
+        _row0 = (char) (row0 + '1');
+        _col1 = (char) (col1 + 'a');
+        _row1 = (char) (row1 + '1');
     }
 
     /** A pass. */
     private Move() {
         _col0 = _col1 = _row0 = _row1 = 0;
-        _fromIndex = _toIndex = -1;
     }
 
-    /** A factory method that returns a Move from COL0 ROW0 to COL1 ROW1,
-     *  assuming the column and row designations are valid. Returns null
-     *  if no such move is ever possible because it is more than 2 squares
-     *  in some direction.  The moves are on the extended board (i.e., they
-     *  may go into the border layers). */
+    /** A factory method that returns a Move from COL0 ROW0 to COL1 ROW1.
+     *  Returns null if no such move is ever possible because it is more
+     *  than 2 squares in some direction or does not start on a board of
+     *  the largest size.  Moves are not specific to a board size, and may
+     *  go into the border layers of a board. */
     static Move move(char col0, char row0, char col1, char row1) {
-        assert col0 >= 'a' && row0 >= '1' && col1 >= 'a' - 2 && row1 >= '1' - 2;
-        return
-            ALL_MOVES[col0 - 'a' + 2][row0 - '1' + 2]
-            [col1 - 'a' + 2][row1 - '1' + 2];
+        int c = col0 - 'a', r = row0 - '1';
+        int dc = col1 - col0, dr = row1 - row0;
+        if (c < 0 || r < 0 || c >= Board.MAX_SIDE || r >= Board.MAX_SIDE
+            || Math.abs(dc) > 2 || Math.abs(dr) > 2) {
+            return null;
+        }
+        int k = ((c * Board.MAX_SIDE + r) * 5 + dc + 2) * 5 + dr + 2;
+        Move result = ALL_MOVES[k];
+        return result != null ? result : create(k);
+    }
+
+    /** Return ALL_MOVES[K], first filling it in if need be.  Returns
+     *  null for the entries for zero offsets.  Moves are created under a
+     *  lock so that there is only ever one of each, and may be read from
+     *  ALL_MOVES without one because their fields are final. */
+    private static synchronized Move create(int k) {
+        if (ALL_MOVES[k] == null) {
+            int dr = k % 5 - 2, dc = k / 5 % 5 - 2;
+            int r = k / 25 % Board.MAX_SIDE, c = k / 25 / Board.MAX_SIDE;
+            if (dc != 0 || dr != 0) {
+                ALL_MOVES[k] = new Move(c, r, c + dc, r + dr);
+            }
+        }
+        return ALL_MOVES[k];
+    }
+
+    /** Return the row designation denoted by DIGITS, a row number in
+     *  decimal: '1' for "1", ..., '9' for "9", (char) ('0' + 10) for
+     *  "10", and so on. */
+    static char row(String digits) {
+        return (char) ('0' + Integer.parseInt(digits));
+    }
+
+    /** Return the decimal row number of row designation ROW (the inverse
+     *  of row(String)). */
+    static String rowName(char row) {
+        return Integer.toString(row - '0');
     }
 
     /** Returns a pass. */
@@ -89,62 +120,25 @@ class Move {
         return _row1;
     }
 
-    /** Return the linearized index of my 'from' square,
-     *  or -1 if I am a pass. */
-    int fromIndex() {
-        return _fromIndex;
-    }
-
-    /** Return The linearized index of my 'to' square,
-     *  or -1 if I am a pass. */
-    int toIndex() {
-        return _toIndex;
-    }
-
     @Override
     public String toString() {
         if (isPass()) {
             return "-";
         }
-        char[] moveArray = {_col0, _row0, '-', _col1, _row1};
-        String moveString = new String(moveArray);
-        return moveString;
+        return "" + _col0 + rowName(_row0) + '-' + _col1 + rowName(_row1);
     }
 
-    /** Size of a side of the board. */
-    static final int SIDE = 7;
-
-    /** Size of side of a board plus 2-deep boundary. */
-    static final int EXTENDED_SIDE = SIDE + 4;
-
     /** The pass. */
     static final Move PASS = new Move();
 
-    /** Linearized indices. */
-    private final int _fromIndex, _toIndex;
-
     /** From and two squares, or 0s if a pass. */
-    private char _col0, _row0, _col1, _row1;
-
-    /** The set of all Moves other than pass, indexed by from and to row and
-     *  column positions. */
-    private static final Move[][][][] ALL_MOVES =
-        new Move[EXTENDED_SIDE][EXTENDED_SIDE][EXTENDED_SIDE][EXTENDED_SIDE];
-
-    /* A "static initializer".  These code sections are run when the class
-     * is initialized and are intended to initialize static variables. */
-    static {
-        for (int c = 2; c < SIDE + 2; c += 1) {
-            for (int r = 2; r < SIDE + 2; r += 1) {
-                for (int dc = -2; dc <= 2; dc += 1) {
-                    for (int dr = -2; dr <= 2; dr += 1) {
-                        if (dc != 0 || dr != 0) {
-                            ALL_MOVES[c][r][c + dc][r + dr] =
-                                new Move(c, r, c + dc, r + dr);
-                        }
-                    }
-                }
-            }
-        }
-    }
+    private final char _col0, _row0, _col1, _row1;
+
+    /** The Moves other than pass that have been requested so far.  The
+     *  move from column C and row R (numbered from 0) by column and row
+     *  offsets DC and DR has index ((C * MAX_SIDE + R) * 5 + DC + 2) * 5
+     *  + DR + 2.  Filling this in only as moves are asked for keeps
+     *  start-up fast, since a game on a small board uses few of them. */
+    private static final Move[] ALL_MOVES =
+        new Move[Board.MAX_SIDE * Board.MAX_SIDE * 5 * 5];
 }
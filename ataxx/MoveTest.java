@@ -42,5 +42,49 @@ public class MoveTest {
         assertFalse("move is pass", m.isPass());
     }
 
+    @Test
+    public void testLargeBoard() {
+        Move m = move('i', row("9"), 'k', row("11"));
+        assertNotNull(m);
+        assertTrue("move is jump", m.isJump());
+        assertEquals("i9-k11", m.toString());
+        assertNull("move too long", move('a', '1', 'a', '4'));
+        assertNull("off largest board", move('p', '1', 'o', '1'));
+    }
+
+    @Test
+    public void testUnique() throws InterruptedException {
+        Move[][] found = new Move[4][];
+        Thread[] threads = new Thread[found.length];
+        for (int i = 0; i < found.length; i += 1) {
+            Move[] moves = found[i] = new Move[15 * 15 * 25];
+            threads[i] = new Thread(() -> {
+                int k = 0;
+                for (char c = 'a'; c <= 'o'; c += 1) {
+                    for (char r = '1'; r < '1' + 15; r += 1) {
+                        for (int dc = -2; dc <= 2; dc += 1) {
+                            for (int dr = -2; dr <= 2; dr += 1) {
+                                moves[k] = move(c, r, (char) (c + dc),
+                                                (char) (r + dr));
+                                k += 1;
+                            }
+                        }
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int k = 0; k < found[0].length; k += 1) {
+            assertEquals(k % 25 != 12, found[0][k] != null);
+            for (Move[] moves : found) {
+                assertSame(found[0][k], moves[k]);
+            }
+        }
+        assertEquals("c3-e5", move('c', '3', 'e', '5').toString());
+    }
+
 
 }
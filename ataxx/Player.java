@@ -31,6 +31,12 @@ abstract class Player {
      *  board.whoseMove() == myColor and that !board.gameOver(). */
     abstract Move myMove();
 
+    /** Cause a call to myMove in progress on another thread to return
+     *  as soon as possible with the best move it has found.  By
+     *  default, does nothing. */
+    void stop() {
+    }
+
     /** The game I am playing in. */
     private final Game _game;
     /** The color of my pieces. */
@@ -0,0 +1,60 @@
+package ataxx;
+
+import java.io.PrintStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/** Provides command input from a queue of lines filled by another
+ *  thread, such as a network connection or a GUI.
+ *  @author Melissa Ly
+ */
+class QueueSource implements CommandSource {
+
+    /** A new, empty source that prints no prompts. */
+    QueueSource() {
+        this(null);
+    }
+
+    /** A new, empty source that prints prompts on PROMPTOUT, unless it
+     *  is null. */
+    QueueSource(PrintStream promptOut) {
+        _promptOut = promptOut;
+    }
+
+    /** Add LINE to the end of my input. */
+    void add(String line) {
+        _lines.add(line);
+    }
+
+    /** Indicate that no input will follow what has already been added. */
+    void close() {
+        _lines.add(END);
+    }
+
+    @Override
+    public String getLine(String prompt) {
+        if (_promptOut != null) {
+            _promptOut.print(prompt);
+            _promptOut.flush();
+        }
+        try {
+            String line = _lines.take();
+            if (line == END) {
+                _lines.add(END);
+                return null;
+            }
+            return line;
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /** Marker placed in the queue at end of input. */
+    private static final String END = new String("<end of input>");
+
+    /** Lines not yet read. */
+    private final BlockingQueue<String> _lines = new LinkedBlockingQueue<>();
+    /** Where prompts are printed, or null. */
+    private final PrintStream _promptOut;
+}
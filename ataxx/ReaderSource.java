@@ -1,6 +1,7 @@
 package ataxx;
 
 import java.io.BufferedReader;
+import java.io.PrintStream;
 import java.io.Reader;
 import java.io.IOException;
 
@@ -12,8 +13,15 @@ class ReaderSource implements CommandSource {
     /** A new source that reads from INPUT and prints prompts
      *  if SHOULDPROMPT. */
     ReaderSource(Reader input, boolean shouldPrompt) {
+        this(input, shouldPrompt, System.out);
+    }
+
+    /** A new source that reads from INPUT and prints prompts on
+     *  PROMPTOUT if SHOULDPROMPT. */
+    ReaderSource(Reader input, boolean shouldPrompt, PrintStream promptOut) {
         _input = new BufferedReader(input);
         _shouldPrompt = shouldPrompt;
+        _promptOut = promptOut;
     }
 
     @Override
@@ -24,8 +32,8 @@ class ReaderSource implements CommandSource {
 
         try {
             if (_shouldPrompt) {
-                System.out.print(prompt);
-                System.out.flush();
+                _promptOut.print(prompt);
+                _promptOut.flush();
             }
             String result = _input.readLine();
             if (result == null) {
@@ -41,5 +49,7 @@ class ReaderSource implements CommandSource {
     private BufferedReader _input;
     /** True if we request a prompt for each getLine. */
     private boolean _shouldPrompt;
+    /** Where prompts are printed. */
+    private PrintStream _promptOut;
 }
 
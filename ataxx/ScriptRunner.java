@@ -0,0 +1,773 @@
+package ataxx;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/** Runs integration-test scripts in the format read by
+ *  testing/test-ataxx.py (described in testing/README) without starting
+ *  a JVM for each program.  Each section of a script is played by its
+ *  own Game and Board in this process, on its own thread, with input
+ *  supplied through a QueueSource and output captured and filtered as
+ *  test-ataxx.py filters a program's output.  Scripts run concurrently.
+ *
+ *  The command that starts each section must run ataxx.Main with no
+ *  arguments.  Unlike test-ataxx.py, moves may be on boards larger than
+ *  7x7, and '@total-time' lines set the limit on the whole test.
+ *  @author Melissa Ly
+ */
+public class ScriptRunner {
+
+    /** Outcomes of a test, as reported by test-ataxx.py. */
+    enum Status {
+        OK, FAIL, ERROR
+    }
+
+    /** Default limit on the time for one test (seconds). */
+    static final int DEFAULT_TOTAL_TIME = 120;
+    /** Time allowed the second program of a test to finish after the
+     *  first does (seconds). */
+    static final int CLEANUP_TIME = 2;
+    /** Default limit on the time for one move or output (seconds). */
+    static final double DEFAULT_OP_LIMIT = 10;
+
+    /** Run the test scripts named by ARGS, reporting the outcome of each
+     *  and a summary on the standard error, and exit with status 0 iff
+     *  all pass.  If an argument is '--jobs=N', run N scripts at a time
+     *  (by default, one per processor). */
+    public static void main(String[] args) {
+        int jobs = Runtime.getRuntime().availableProcessors();
+        List<Path> scripts = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--jobs=")) {
+                try {
+                    jobs = Integer.parseInt(arg.substring(7));
+                } catch (NumberFormatException excp) {
+                    usage();
+                }
+                if (jobs <= 0) {
+                    usage();
+                }
+            } else if (arg.startsWith("-")) {
+                usage();
+            } else {
+                scripts.add(Paths.get(arg));
+            }
+        }
+
+        long start = System.nanoTime();
+        ScriptRunner runner = new ScriptRunner(jobs);
+        List<Future<Outcome>> results = new ArrayList<>();
+        for (Path script : scripts) {
+            results.add(runner._pool.submit(() -> runner.run(script)));
+        }
+        int errors, problems;
+        errors = problems = 0;
+        for (int i = 0; i < scripts.size(); i += 1) {
+            Outcome outcome;
+            try {
+                outcome = results.get(i).get();
+            } catch (InterruptedException | ExecutionException excp) {
+                outcome = new Outcome(Status.FAIL, excp.toString());
+            }
+            System.err.printf("%s: %s%n", scripts.get(i).getFileName(),
+                              outcome);
+            if (outcome.status() == Status.ERROR) {
+                errors += 1;
+            } else if (outcome.status() == Status.FAIL) {
+                problems += 1;
+            }
+        }
+        System.err.printf("%nSummary:%n   %3d tests%n   %3d passed%n"
+                          + "   %3d errors%n   %3d problematic tests%n"
+                          + "   %.1f seconds%n",
+                          scripts.size(),
+                          scripts.size() - errors - problems,
+                          errors, problems,
+                          (System.nanoTime() - start) * 1e-9);
+        System.exit(errors + problems == 0 ? 0 : 1);
+    }
+
+    /** Give usage message and exit. */
+    private static void usage() {
+        System.err.println("Usage: java ataxx.ScriptRunner [--jobs=N]"
+                           + " SCRIPT ...");
+        System.exit(1);
+    }
+
+    /** A runner that runs up to JOBS scripts at a time. */
+    ScriptRunner(int jobs) {
+        _pool = Executors.newFixedThreadPool(jobs, r -> {
+                Thread t = new Thread(r, "ataxx-script");
+                t.setDaemon(true);
+                return t;
+            });
+    }
+
+    /** Return the outcome of running the test script in FILE. */
+    Outcome run(Path file) {
+        String text;
+        try {
+            text = new String(Files.readAllBytes(file),
+                              StandardCharsets.UTF_8);
+        } catch (IOException excp) {
+            return new Outcome(Status.FAIL, excp.toString());
+        }
+        return runScript(text);
+    }
+
+    /** Return the outcome of running the test script TEXT. */
+    Outcome runScript(String text) {
+        int totalLimit = DEFAULT_TOTAL_TIME;
+        Matcher total = TOTAL_TIME.matcher(text);
+        if (total.find()) {
+            totalLimit = Integer.parseInt(total.group(1));
+        }
+        BlockingQueue<Program> finished = new LinkedBlockingQueue<>();
+        List<Program> programs = new ArrayList<>();
+        Matcher sections = SECTIONS.matcher(text);
+        if (sections.matches()) {
+            List<String> sect1 = breakup(sections.group(1)),
+                sect2 = breakup(sections.group(2));
+            Program prog1 = new Program("Prog1", sect1, 0, finished),
+                prog2 = new Program("Prog2", sect2, sect1.size() + 1,
+                                    finished);
+            prog1.connect(prog2);
+            programs.add(prog1);
+            programs.add(prog2);
+        } else {
+            programs.add(new Program("Prog1", breakup(text), 0, finished));
+        }
+        for (Program prog : programs) {
+            prog.start();
+        }
+
+        try {
+            List<Program> done = new ArrayList<>();
+            Program first = finished.poll(totalLimit, TimeUnit.SECONDS);
+            if (first == null) {
+                return new Outcome(Status.ERROR,
+                                   String.format("test time exceeded %d"
+                                                 + " seconds", totalLimit));
+            }
+            done.add(first);
+            if (programs.size() > 1) {
+                Program second = finished.poll(CLEANUP_TIME,
+                                               TimeUnit.SECONDS);
+                if (second == null) {
+                    return new Outcome(Status.ERROR,
+                                       "other program fails to finish");
+                }
+                done.add(second);
+            }
+            done.sort(Comparator.comparing(p -> p._title));
+            return combine(done);
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+            return new Outcome(Status.ERROR, "interrupted");
+        } finally {
+            for (Program prog : programs) {
+                prog.stop();
+            }
+        }
+    }
+
+    /** Return the outcome of a test whose programs are DONE. */
+    private static Outcome combine(List<Program> done) {
+        Status status = Status.OK;
+        List<String> msgs = new ArrayList<>();
+        for (Program prog : done) {
+            Outcome outcome = prog._outcome;
+            if (outcome.status() == Status.FAIL
+                || outcome.status() == Status.ERROR && status == Status.OK) {
+                status = outcome.status();
+            }
+            msgs.add(outcome.message());
+        }
+        return new Outcome(status,
+                           status == Status.OK ? "" : String.join("/", msgs));
+    }
+
+    /** Return the lines of TEXT, less trailing whitespace. */
+    private static List<String> breakup(String text) {
+        List<String> lines = new ArrayList<>();
+        text = text.stripTrailing();
+        if (!text.isEmpty()) {
+            for (String line : text.split("\n")) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    /** Return script line TEXT with tabs and runs of blanks replaced by
+     *  single blanks, surrounding whitespace removed, and comments
+     *  emptied. */
+    private static String clean(String text) {
+        text = text.replace('\t', ' ').strip();
+        if (text.startsWith("#")) {
+            return "";
+        }
+        return BLANKS.matcher(text).replaceAll(" ");
+    }
+
+    /** Return output LINE with trailing whitespace removed, and tabs and
+     *  runs of blanks replaced by single blanks. */
+    private static String squeeze(String line) {
+        return BLANKS.matcher(line.stripTrailing().replace('\t', ' '))
+            .replaceAll(" ");
+    }
+
+    /** The outcome of a test or of one of its programs. */
+    static final class Outcome {
+
+        /** An outcome with given STATUS, described by MESSAGE. */
+        Outcome(Status status, String message) {
+            _status = status;
+            _message = message;
+        }
+
+        /** Return my status. */
+        Status status() {
+            return _status;
+        }
+
+        /** Return my description, which is empty for success. */
+        String message() {
+            return _message;
+        }
+
+        @Override
+        public String toString() {
+            if (_status == Status.OK) {
+                return "OK";
+            }
+            return String.format("%s (%s)", _status, _message);
+        }
+
+        /** My status. */
+        private final Status _status;
+        /** My description. */
+        private final String _message;
+    }
+
+    /** Signals the failure of a test, with status STATUS. */
+    private static class ScriptException extends RuntimeException {
+        /** An exception with STATUS and message MSG. */
+        ScriptException(Status status, String msg) {
+            super(msg);
+            _status = status;
+        }
+
+        /** The outcome this signals. */
+        private final Status _status;
+    }
+
+    /** Return an exception reporting an error in the program under test,
+     *  with message String.format(FORMAT, ARGS). */
+    private static ScriptException error(String format, Object... args) {
+        return new ScriptException(Status.ERROR,
+                                   String.format(format, args));
+    }
+
+    /** Return an exception reporting a problem with the test script,
+     *  with message String.format(FORMAT, ARGS). */
+    private static ScriptException fail(String format, Object... args) {
+        return new ScriptException(Status.FAIL, String.format(format, args));
+    }
+
+    /** One section of a test: a Game and the thread that plays the
+     *  section's script against it. */
+    private static class Program {
+
+        /** A program titled TITLE whose section is SCRIPT, which starts
+         *  at line START of its test (counting from 0), and which adds
+         *  itself to FINISHED when done. */
+        Program(String title, List<String> script, int start,
+                BlockingQueue<Program> finished) {
+            _title = title;
+            _script = script;
+            _start = start;
+            _finished = finished;
+            _out = new PrintStream(new Capture(), true,
+                                   StandardCharsets.UTF_8);
+            _input = new QueueSource(_out);
+            _game = new Game(new Board(), _input, new TextReporter(_out),
+                             _out);
+            _gameThread = new Thread(this::play, title + "-game");
+            _gameThread.setDaemon(true);
+            _runner = new Thread(this::runScript, title + "-runner");
+            _runner.setDaemon(true);
+        }
+
+        /** Arrange that OTHER and I exchange moves. */
+        void connect(Program other) {
+            _inbox = new ArrayBlockingQueue<>(INBOX_SIZE);
+            other._inbox = new ArrayBlockingQueue<>(INBOX_SIZE);
+            _outbox = other._inbox;
+            other._outbox = _inbox;
+        }
+
+        /** Start running my script. */
+        void start() {
+            _runner.start();
+        }
+
+        /** Stop my game if it is still running. */
+        void stop() {
+            _input.close();
+            _game.stopSearch();
+            _gameThread.interrupt();
+        }
+
+        /** Play my game to the end of its input, as ataxx.Main does. */
+        private void play() {
+            try {
+                _game.process(false);
+            } catch (Throwable excp) {
+                _crashed = true;
+                _out.printf("Exception in thread \"%s\" ",
+                            Thread.currentThread().getName());
+                excp.printStackTrace(_out);
+            } finally {
+                _out.close();
+            }
+        }
+
+        /** Run my script, and record its outcome. */
+        private void runScript() {
+            Outcome outcome;
+            try {
+                String command = nextCommand();
+                if (command == null) {
+                    throw fail("No command found");
+                } else if (!MAIN_COMMAND.matcher(command).matches()) {
+                    throw fail("cannot run '%s' in-process", command);
+                }
+                _gameThread.start();
+                for (String cmnd = nextCommand(); cmnd != null;
+                     cmnd = nextCommand()) {
+                    execute(cmnd);
+                }
+                finish();
+                outcome = new Outcome(Status.OK, "");
+            } catch (ScriptException excp) {
+                stop();
+                outcome = new Outcome(excp._status,
+                                      String.format("%s near line %d",
+                                                    excp.getMessage(),
+                                                    _k + _start));
+            } catch (RuntimeException excp) {
+                stop();
+                outcome = new Outcome(Status.FAIL,
+                                      String.format("%s near line %d", excp,
+                                                    _k + _start));
+            }
+            _outcome = outcome;
+            _finished.add(this);
+        }
+
+        /** Return my next non-blank script line, cleaned, or null if
+         *  there is none. */
+        private String nextCommand() {
+            while (_k < _script.size()) {
+                String cmnd = clean(_script.get(_k));
+                _k += 1;
+                if (!cmnd.isEmpty()) {
+                    return cmnd;
+                }
+            }
+            return null;
+        }
+
+        /** Perform script line CMND. */
+        private void execute(String cmnd) {
+            Matcher mat;
+            if ((mat = TIME.matcher(cmnd)).lookingAt()) {
+                try {
+                    _opLimit = (long) (Double.parseDouble(mat.group(1))
+                                       * 1000);
+                } catch (NumberFormatException excp) {
+                    throw fail("bad number");
+                }
+            } else if (TOTAL.matcher(cmnd).lookingAt()) {
+                return;
+            } else if ((mat = CHECK.matcher(cmnd)).lookingAt()) {
+                checkOutput(mat.group(1).charAt(0), mat.group(2));
+            } else if ((mat = SELF.matcher(cmnd)).lookingAt()) {
+                playSelf(mat.group(1), mat.group(2));
+            } else if ((mat = SEND.matcher(cmnd)).lookingAt()) {
+                sendReceiveMoves(true, mat.group(1), mat.group(2));
+            } else if ((mat = RECEIVE.matcher(cmnd)).lookingAt()) {
+                sendReceiveMoves(false, mat.group(1), mat.group(2));
+            } else if (cmnd.startsWith("@")) {
+                throw fail("bad command in script");
+            } else {
+                _input.add(cmnd);
+            }
+        }
+
+        /** Check that my next line of output is PATN, if TYPE is '<', or
+         *  matches the pattern PATN, if TYPE is '?'. */
+        private void checkOutput(char type, String patn) {
+            Pattern regex = type == '?' ? checkPattern(patn) : null;
+            String line = get();
+            if (line == END) {
+                throw error("premature end of output");
+            } else if (line == null) {
+                throw error("timed out waiting for output");
+            } else if (line.contains("Exception")) {
+                throw error("uncaught exception occurred: %s",
+                            line.stripTrailing());
+            }
+            line = squeeze(line);
+            if (type == '<' ? !line.equals(patn)
+                : regex != null && !regex.matcher(line).lookingAt()) {
+                throw error("output mismatch (%s / %s)", line, patn);
+            }
+        }
+
+        /** Check that my output is a sequence of moves starting with one
+         *  by WHO and ending with the outcome of the game, which must
+         *  match ENDPATN unless it is blank. */
+        private void playSelf(String who, String endPatn) {
+            Pattern end = checkPattern(endPatn);
+            Matcher move;
+            while (true) {
+                move = getMove(who);
+                if (moveOf(move) == null) {
+                    break;
+                }
+                who = opponent(who);
+            }
+            if (end != null && !end.matcher(move.group()).lookingAt()) {
+                throw error("outcome does not match end pattern");
+            }
+        }
+
+        /** Exchange moves with the other program until the end of the
+         *  game, FIRSTMOVER moving first, and sending my moves first iff
+         *  SENDFIRST.  The outcome must match ENDPATN unless it is
+         *  blank. */
+        private void sendReceiveMoves(boolean sendFirst, String firstMover,
+                                      String endPatn) {
+            Pattern end = checkPattern(endPatn);
+            String secondMover = opponent(firstMover);
+            String sendMover = sendFirst ? firstMover : secondMover,
+                receiveMover = sendFirst ? secondMover : firstMover;
+            boolean send = sendFirst;
+            String msg = null;
+            while (true) {
+                if (send) {
+                    Matcher mine = getMove(sendMover);
+                    msg = mine.group();
+                    sendOther(msg, false);
+                    if (moveOf(mine) == null) {
+                        String otherMsg =
+                            getOtherMove(receiveMover).group();
+                        if (!msg.equals(otherMsg)) {
+                            throw error("game outcomes don't agree");
+                        }
+                        break;
+                    }
+                }
+                send = true;
+                Matcher theirs = getOtherMove(receiveMover);
+                if (moveOf(theirs) == null) {
+                    msg = getMove(sendMover).group();
+                    sendOther(msg, false);
+                    if (!msg.equals(theirs.group())) {
+                        throw error("game outcomes don't agree");
+                    }
+                    break;
+                }
+                _input.add(moveOf(theirs));
+            }
+            if (end != null && !end.matcher(msg).lookingAt()) {
+                throw error("outcome does not match end pattern");
+            }
+        }
+
+        /** Signal the end of my input and of my moves to the other
+         *  program, and check that my game then ends without further
+         *  output or error. */
+        private void finish() {
+            _input.close();
+            sendOther(END, true);
+            String line = get();
+            if (line == null) {
+                throw error("program did not terminate properly");
+            } else if (line != END) {
+                throw error("program produced extra output");
+            }
+            try {
+                _gameThread.join(_opLimit);
+            } catch (InterruptedException excp) {
+                Thread.currentThread().interrupt();
+            }
+            if (_gameThread.isAlive()) {
+                throw error("program did not terminate properly");
+            } else if (_crashed) {
+                throw error("program terminated with error exit");
+            }
+        }
+
+        /** Return my next line of filtered output, END if there is no
+         *  more, or null if none arrives within my time limit. */
+        private String get() {
+            if (_eof) {
+                return END;
+            }
+            try {
+                String line = _output.poll(_opLimit, TimeUnit.MILLISECONDS);
+                _eof = line == END;
+                return line;
+            } catch (InterruptedException excp) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        /** Return a matcher for my next line of output, which must be a
+         *  move or pass by WHO or the outcome of the game. */
+        private Matcher getMove(String who) {
+            String line = get();
+            if (line == END) {
+                throw error("game output truncated");
+            } else if (line == null) {
+                throw error("timed out waiting for my %s move", who);
+            }
+            return checkMove(who, line);
+        }
+
+        /** Return a matcher for the next message from the other program,
+         *  which must be a move or pass by WHO or the outcome of the
+         *  game. */
+        private Matcher getOtherMove(String who) {
+            if (_inbox == null) {
+                throw error("no other program");
+            }
+            String msg;
+            try {
+                msg = _inbox.poll(_opLimit, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException excp) {
+                Thread.currentThread().interrupt();
+                msg = null;
+            }
+            if (msg == END) {
+                _inbox = null;
+                throw error("game output truncated");
+            } else if (msg == null) {
+                throw error("timed out waiting for other's %s move", who);
+            }
+            return checkMove(who, msg);
+        }
+
+        /** Send MSG to the other program.  Unless IGNORE, it is an error
+         *  if there is none or it is not keeping up. */
+        private void sendOther(String msg, boolean ignore) {
+            if (_inbox != null && _outbox.offer(msg)) {
+                return;
+            }
+            if (!ignore) {
+                throw error("other program blocked");
+            }
+        }
+
+        /** Return a matcher for LINE, which must be a move or pass by WHO
+         *  or the outcome of the game. */
+        private Matcher checkMove(String who, String line) {
+            Matcher mat =
+                (who.equals("red") ? RED_MOVE : BLUE_MOVE).matcher(line);
+            if (!mat.matches()) {
+                throw error("invalid move for %s (%s)", who, line);
+            }
+            return mat;
+        }
+
+        /** Return the pattern PATN, or null if it is blank. */
+        private Pattern checkPattern(String patn) {
+            if (patn.isBlank()) {
+                return null;
+            }
+            try {
+                return Pattern.compile(patn);
+            } catch (PatternSyntaxException excp) {
+                throw fail("bad test pattern: %s", patn);
+            }
+        }
+
+        /** Add output line LINE to my filtered output if test-ataxx.py
+         *  would: that is, board dumps, and lines reporting moves and
+         *  outcomes, less any prompt. */
+        private void filter(String line) {
+            if (_inDump) {
+                _output.add(line);
+                _inDump = !DUMP_EDGE.matcher(line).lookingAt();
+                return;
+            }
+            line = squeeze(PROMPT.matcher(line).replaceFirst(""));
+            if (DUMP_EDGE.matcher(line).lookingAt()) {
+                _output.add(line);
+                _inDump = true;
+            } else if (REPORT.matcher(line).find()) {
+                _output.add(line);
+            }
+        }
+
+        /** The output stream of my game, which passes each line to
+         *  filter, and ends my output when closed. */
+        private class Capture extends OutputStream {
+            @Override
+            public synchronized void write(int b) {
+                if (b == '\n') {
+                    filter(_line.toString(StandardCharsets.UTF_8));
+                    _line.reset();
+                } else {
+                    _line.write(b);
+                }
+            }
+
+            @Override
+            public synchronized void close() {
+                if (!_closed) {
+                    if (_line.size() > 0) {
+                        filter(_line.toString(StandardCharsets.UTF_8));
+                    }
+                    _output.add(END);
+                    _closed = true;
+                }
+            }
+
+            /** The current, incomplete line. */
+            private final ByteArrayOutputStream _line =
+                new ByteArrayOutputStream();
+            /** True once I have been closed. */
+            private boolean _closed;
+        }
+
+        /** My title. */
+        private final String _title;
+        /** The lines of my section of the script. */
+        private final List<String> _script;
+        /** Line number of the start of my section. */
+        private final int _start;
+        /** Where I add myself when done. */
+        private final BlockingQueue<Program> _finished;
+        /** My game's output stream. */
+        private final PrintStream _out;
+        /** My game's input. */
+        private final QueueSource _input;
+        /** My game. */
+        private final Game _game;
+        /** Thread running my game. */
+        private final Thread _gameThread;
+        /** Thread running my script. */
+        private final Thread _runner;
+        /** Filtered lines of my game's output, ending with END. */
+        private final BlockingQueue<String> _output =
+            new LinkedBlockingQueue<>();
+        /** True iff my game's output is in the middle of a board dump. */
+        private boolean _inDump;
+        /** True iff my get() has returned END. */
+        private boolean _eof;
+        /** True iff my game ended with an uncaught exception. */
+        private volatile boolean _crashed;
+        /** Index of my next script line. */
+        private int _k;
+        /** Limit on the time for one move or output (milliseconds). */
+        private long _opLimit = (long) (DEFAULT_OP_LIMIT * 1000);
+        /** Messages from the other program, or null if none. */
+        private BlockingQueue<String> _inbox;
+        /** Messages to the other program. */
+        private BlockingQueue<String> _outbox;
+        /** My outcome, once finished. */
+        private Outcome _outcome;
+    }
+
+    /** Return the move to send to a program for the move, pass, or
+     *  outcome matched by MOVE: null for an outcome, and "-" for a
+     *  pass. */
+    private static String moveOf(Matcher move) {
+        if (move.group(1) != null) {
+            return null;
+        } else if (move.group(2) != null) {
+            return "-";
+        } else {
+            return move.group(3);
+        }
+    }
+
+    /** Return the player other than WHO ("red" or "blue"). */
+    private static String opponent(String who) {
+        return who.equals("red") ? "blue" : "red";
+    }
+
+    /** Marks the end of a program's output or moves. */
+    private static final String END = new String("<end of output>");
+
+    /** Number of moves a program may send ahead of the other. */
+    private static final int INBOX_SIZE = 4;
+
+    /** A move, on boards of any size. */
+    private static final String MOVE_FORMAT =
+        "[a-o](?:1[0-5]|[1-9])-[a-o](?:1[0-5]|[1-9])";
+    /** A move or pass by Red, or the outcome of a game. */
+    private static final Pattern RED_MOVE =
+        Pattern.compile("(?:((?:Red|Blue) wins|Draw)|Red (passes)|Red moves ("
+                        + MOVE_FORMAT + "))\\.");
+    /** A move or pass by Blue, or the outcome of a game. */
+    private static final Pattern BLUE_MOVE =
+        Pattern.compile("(?:((?:Red|Blue) wins|Draw)|Blue (passes)"
+                        + "|Blue moves (" + MOVE_FORMAT + "))\\.");
+
+    /** The command that starts a program. */
+    private static final Pattern MAIN_COMMAND =
+        Pattern.compile("java(?: -\\S+)* ataxx\\.Main");
+    /** Script lines. */
+    private static final Pattern
+        TIME = Pattern.compile("@time ([\\d.]+)"),
+        TOTAL = Pattern.compile("@total-time (\\d+)"),
+        CHECK = Pattern.compile("@([<?])(.*)"),
+        SELF = Pattern.compile("@(red|blue)\\.\\.\\.\\s*(.*)"),
+        SEND = Pattern.compile("@send (red|blue)\\.\\.\\.\\s*(.*)"),
+        RECEIVE = Pattern.compile("@recv (red|blue)\\.\\.\\.\\s*(.*)");
+    /** A limit on the time for a whole test. */
+    private static final Pattern TOTAL_TIME =
+        Pattern.compile("(?m)^\\s*@total-time\\s+(\\d+)");
+    /** A script divided into two sections. */
+    private static final Pattern SECTIONS =
+        Pattern.compile("(?sm)(.*?)^ *----------+ *\n(.*)");
+
+    /** A prompt at the start of an output line. */
+    private static final Pattern PROMPT = Pattern.compile("^.*:\\s*");
+    /** The first or last line of a board dump. */
+    private static final Pattern DUMP_EDGE = Pattern.compile("\\s*===");
+    /** Output lines that are checked. */
+    private static final Pattern REPORT =
+        Pattern.compile("(?i)wins|passes|moves|draw|Exception in thread");
+    /** A run of blanks. */
+    private static final Pattern BLANKS = Pattern.compile("  +");
+
+    /** Runs scripts. */
+    private final ExecutorService _pool;
+}
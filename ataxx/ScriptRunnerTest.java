@@ -0,0 +1,57 @@
+package ataxx;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import ataxx.ScriptRunner.Outcome;
+import ataxx.ScriptRunner.Status;
+
+/** Tests of the ScriptRunner class.
+ *  @author Melissa Ly
+ */
+public class ScriptRunnerTest {
+
+    /** The script for a test whose program blocks c1 and then shows the
+     *  board, and whose next line of output must be LAST. */
+    private static String blockScript(String last) {
+        return String.join("\n",
+                           "# Block a square.", "java -ea ataxx.Main",
+                           "block c1", "dump",
+                           "@<===",
+                           "@<  r - X - X - b",
+                           "@<  - - - - - - -",
+                           "@<  - - - - - - -",
+                           "@<  - - - - - - -",
+                           "@<  - - - - - - -",
+                           "@<  - - - - - - -",
+                           "@<  b - X - X - r",
+                           "@<" + last,
+                           "quit", "");
+    }
+
+    @Test public void testOutput() {
+        ScriptRunner runner = new ScriptRunner(1);
+        assertEquals(Status.OK, runner.runScript(blockScript("===")).status());
+        Outcome outcome = runner.runScript(blockScript("=== extra"));
+        assertEquals(Status.ERROR, outcome.status());
+        assertTrue(outcome.message().startsWith("output mismatch"));
+        outcome = runner.runScript("java -ea ataxx.Main\nquit\n@?.\n");
+        assertEquals(Status.ERROR, outcome.status());
+        assertEquals(Status.FAIL,
+                     runner.runScript("java Other\nquit\n").status());
+    }
+
+    @Test public void testTwoPrograms() {
+        String setup = "java ataxx.Main\nsize 5\nblock b2\nseed 1\n";
+        String script = setup
+            + "auto red\nmanual blue\nstart\n@send red...\n"
+            + "-----------\n"
+            + setup + "start\n@recv red...\n";
+        Outcome outcome = new ScriptRunner(1).runScript(script);
+        assertEquals(outcome.toString(), Status.OK, outcome.status());
+        outcome = new ScriptRunner(1).runScript(
+            script.replace("@recv red", "@recv blue"));
+        assertEquals(Status.ERROR, outcome.status());
+    }
+
+}
@@ -0,0 +1,64 @@
+package ataxx;
+
+/** Limits on a search by an AI or Engine.  A search ends when any of
+ *  its limits is reached, but always completes at least a one-ply
+ *  search so that it has a move to return.
+ *  @author Melissa Ly
+ */
+public class SearchLimits {
+
+    /** Limits to a search to at most DEPTH plies (no limit if <= 0),
+     *  visiting at most NODES positions (no limit if <= 0) and taking at
+     *  most MOVETIME milliseconds (no limit if <= 0). */
+    public SearchLimits(int depth, long nodes, long moveTime) {
+        this(depth, nodes, moveTime, 1);
+    }
+
+    /** Limits as for SearchLimits(DEPTH, NODES, MOVETIME) on a search
+     *  that finds the best MULTIPV moves (at least 1), each with its
+     *  exact value and principal variation. */
+    public SearchLimits(int depth, long nodes, long moveTime, int multiPV) {
+        _depth = depth > 0 ? depth : Integer.MAX_VALUE;
+        _nodes = Math.max(nodes, 0);
+        _moveTime = Math.max(moveTime, 0);
+        _multiPV = Math.max(multiPV, 1);
+    }
+
+    /** Return the maximum depth to be searched in plies. */
+    public int depth() {
+        return _depth;
+    }
+
+    /** Return the maximum number of positions to visit, or 0 if
+     *  unlimited. */
+    public long nodes() {
+        return _nodes;
+    }
+
+    /** Return the maximum search time in milliseconds, or 0 if
+     *  unlimited. */
+    public long moveTime() {
+        return _moveTime;
+    }
+
+    /** Return the number of best moves to be found. */
+    public int multiPV() {
+        return _multiPV;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("depth %s nodes %d movetime %d multipv %d",
+                             _depth == Integer.MAX_VALUE ? "-" : _depth,
+                             _nodes, _moveTime, _multiPV);
+    }
+
+    /** Maximum depth. */
+    private final int _depth;
+    /** Maximum node count, or 0. */
+    private final long _nodes;
+    /** Maximum time in milliseconds, or 0. */
+    private final long _moveTime;
+    /** Number of best moves to find. */
+    private final int _multiPV;
+}
@@ -0,0 +1,11 @@
+package ataxx;
+
+/** Receives progress reports from a search in progress.
+ *  @author Melissa Ly
+ */
+public interface SearchListener {
+
+    /** Called on the searching thread with the result INFO of each
+     *  completed iteration of a search. */
+    void progress(SearchResult info);
+}
@@ -0,0 +1,123 @@
+package ataxx;
+
+import java.util.Collections;
+import java.util.List;
+
+/** The outcome of a search, or of one iteration of an iterative-deepening
+ *  search.  Scores are from the point of view of the player to move.
+ *  @author Melissa Ly
+ */
+public class SearchResult {
+
+    /** A result recommending MOVE with value SCORE, found by a search to
+     *  DEPTH plies that visited NODES positions in MILLIS
+     *  milliseconds, with principal variation PV (starting with MOVE). */
+    SearchResult(Move move, int score, int depth, long nodes, long millis,
+                 List<Move> pv) {
+        this(move, score, depth, nodes, millis, pv, null);
+    }
+
+    /** A result as for SearchResult(MOVE, SCORE, DEPTH, NODES, MILLIS,
+     *  PV) that also found LINES, the best moves in decreasing order of
+     *  value, the first of which is MOVE.  If LINES is null, the only
+     *  line is this result's own. */
+    SearchResult(Move move, int score, int depth, long nodes, long millis,
+                 List<Move> pv, List<SearchResult> lines) {
+        _lines = lines != null ? lines
+            : move == null ? Collections.emptyList()
+            : Collections.singletonList(this);
+        _move = move;
+        _pv = pv;
+        _score = score;
+        _depth = depth;
+        _nodes = nodes;
+        _millis = millis;
+    }
+
+    /** Return the best move found, or null if there is none. */
+    Move move() {
+        return _move;
+    }
+
+    /** Return the best move found, in the notation of the command
+     *  language (c0r0-c1r1, or - for a pass), or null if the position has
+     *  no moves. */
+    public String bestMove() {
+        return _move == null ? null : _move.toString();
+    }
+
+    /** Return the expected line of play, starting with move(). */
+    List<Move> principalVariation() {
+        return _pv;
+    }
+
+    /** Return the expected line of play, starting with bestMove(), as a
+     *  sequence of moves separated by blanks. */
+    public String pv() {
+        StringBuilder line = new StringBuilder();
+        for (Move move : _pv) {
+            if (line.length() > 0) {
+                line.append(' ');
+            }
+            line.append(move);
+        }
+        return line.toString();
+    }
+
+    /** Return the best lines found, each with its own move, value, and
+     *  principal variation, best first.  There is more than one only if
+     *  the search was asked to find several (SearchLimits.multiPV), and
+     *  none if there is no move. */
+    public List<SearchResult> lines() {
+        return _lines;
+    }
+
+    /** Return the nodes searched per second. */
+    public long nps() {
+        return _nodes * MILLIS_PER_SECOND / Math.max(_millis, 1);
+    }
+
+    /** Return the value of the best move. */
+    public int score() {
+        return _score;
+    }
+
+    /** Return the depth searched in plies. */
+    public int depth() {
+        return _depth;
+    }
+
+    /** Return the number of positions visited. */
+    public long nodes() {
+        return _nodes;
+    }
+
+    /** Return the time taken in milliseconds. */
+    public long millis() {
+        return _millis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("move %s score %d depth %d nodes %d time %d",
+                             bestMove(), _score, _depth, _nodes, _millis);
+    }
+
+    /** Milliseconds in a second. */
+    private static final long MILLIS_PER_SECOND = 1000;
+
+    /** Best move found. */
+    private final Move _move;
+    /** Its value. */
+    private final int _score;
+    /** Depth searched. */
+    private final int _depth;
+    /** Positions visited. */
+    private final long _nodes;
+    /** Time taken (milliseconds). */
+    private final long _millis;
+    /** Principal variation. */
+    private final List<Move> _pv;
+    /** Best lines found. */
+    private final List<SearchResult> _lines;
+}
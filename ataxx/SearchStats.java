@@ -0,0 +1,198 @@
+package ataxx;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Formatter;
+
+/** Statistics gathered by an AI during one or more searches, as printed
+ *  under the --timing option.  Times are in nanoseconds.
+ *  @author Melissa Ly
+ */
+class SearchStats {
+
+    /** Time categories: generating moves, making (copying) moves, and
+     *  static evaluation including game-over tests. */
+    static final int MOVEGEN = 0, MAKE = 1, EVAL = 2;
+
+    /** Number of time categories. */
+    private static final int CATEGORIES = 3;
+    /** Nanoseconds in a millisecond. */
+    private static final double NANOS_PER_MILLI = 1e6;
+    /** Nanoseconds in a second. */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /** Return the CPU time used so far by the current thread, or 0 if
+     *  that is not available. */
+    static long cpuTime() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!threads.isCurrentThreadCpuTimeSupported()) {
+            return 0;
+        }
+        return threads.getCurrentThreadCpuTime();
+    }
+
+    /** Charge NANOS to CATEGORY. */
+    void addTime(int category, long nanos) {
+        _times[category] += nanos;
+    }
+
+    /** Record a beta cutoff, which was caused by the first move tried iff
+     *  FIRST. */
+    void addCutoff(boolean first) {
+        _cutoffs += 1;
+        if (first) {
+            _firstCutoffs += 1;
+        }
+    }
+
+    /** Record a transposition-table probe, which found an entry iff
+     *  HIT. */
+    void addProbe(boolean hit) {
+        _probes += 1;
+        if (hit) {
+            _hits += 1;
+        }
+    }
+
+    /** Record the completion of an iteration to DEPTH, after a total of
+     *  NODES nodes had been searched. */
+    void addIteration(int depth, long nodes) {
+        _depth = depth;
+        _prevIterationNodes = _iterationNodes;
+        _iterationNodes = nodes - _nodesBefore;
+        _nodesBefore = nodes;
+    }
+
+    /** Record the end of a search that visited NODES nodes in WALL
+     *  elapsed and CPU time. */
+    void finishSearch(long nodes, long wall, long cpu) {
+        _searches += 1;
+        _nodes += nodes;
+        _wall += wall;
+        _cpu += cpu;
+        _maxWall = Math.max(_maxWall, wall);
+        _maxDepth = Math.max(_maxDepth, _depth);
+        _depthSum += _depth;
+        if (_prevIterationNodes > 0) {
+            _branchingSum += (double) _iterationNodes / _prevIterationNodes;
+            _branchingCount += 1;
+        }
+    }
+
+    /** Add the totals of OTHER into mine. */
+    void add(SearchStats other) {
+        _searches += other._searches;
+        _nodes += other._nodes;
+        _wall += other._wall;
+        _cpu += other._cpu;
+        _maxWall = Math.max(_maxWall, other._maxWall);
+        _maxDepth = Math.max(_maxDepth, other._maxDepth);
+        _depthSum += other._depthSum;
+        _branchingSum += other._branchingSum;
+        _branchingCount += other._branchingCount;
+        _cutoffs += other._cutoffs;
+        _firstCutoffs += other._firstCutoffs;
+        _probes += other._probes;
+        _hits += other._hits;
+        for (int k = 0; k < CATEGORIES; k += 1) {
+            _times[k] += other._times[k];
+        }
+    }
+
+    /** Return the number of searches recorded. */
+    int searches() {
+        return _searches;
+    }
+
+    /** Return the number of nodes searched. */
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Return a one-line report of a single search. */
+    String report() {
+        Formatter out = new Formatter();
+        out.format("wall %.1f ms, cpu %.1f ms, %d nodes, %.0f nps,"
+                   + " depth %d, EBF %s, ",
+                   _wall / NANOS_PER_MILLI, _cpu / NANOS_PER_MILLI, _nodes,
+                   nps(), _depth, branching());
+        details(out);
+        return out.toString();
+    }
+
+    /** Return a report summarizing all searches recorded. */
+    String summary() {
+        Formatter out = new Formatter();
+        out.format("%d searches, wall %.1f ms (max %.1f), cpu %.1f ms,"
+                   + " %d nodes, %.0f nps, depth avg %.1f max %d,"
+                   + " EBF %s, ",
+                   _searches, _wall / NANOS_PER_MILLI,
+                   _maxWall / NANOS_PER_MILLI, _cpu / NANOS_PER_MILLI,
+                   _nodes, nps(), (double) _depthSum / Math.max(1, _searches),
+                   _maxDepth, branching());
+        details(out);
+        return out.toString();
+    }
+
+    /** Append cutoff, transposition, and time-split statistics to OUT. */
+    private void details(Formatter out) {
+        out.format("first-move cutoffs %s of %d, TT hits %s of %d,"
+                   + " time: movegen %s, make %s, eval %s",
+                   percent(_firstCutoffs, _cutoffs), _cutoffs,
+                   percent(_hits, _probes), _probes,
+                   percent(_times[MOVEGEN], _wall),
+                   percent(_times[MAKE], _wall),
+                   percent(_times[EVAL], _wall));
+    }
+
+    /** Return nodes per second. */
+    private double nps() {
+        return _wall == 0 ? 0 : _nodes * NANOS_PER_SECOND / _wall;
+    }
+
+    /** Return the average effective branching factor (ratio of the nodes
+     *  in the last iteration to those in the one before), or "-". */
+    private String branching() {
+        if (_branchingCount == 0) {
+            return "-";
+        }
+        return String.format("%.2f", _branchingSum / _branchingCount);
+    }
+
+    /** Return PART as a percentage of WHOLE, or "-" if WHOLE is 0. */
+    private static String percent(long part, long whole) {
+        if (whole == 0) {
+            return "-";
+        }
+        return String.format("%.1f%%", 100.0 * part / whole);
+    }
+
+    /** Number of searches. */
+    private int _searches;
+    /** Total nodes. */
+    private long _nodes;
+    /** Total elapsed and CPU time. */
+    private long _wall, _cpu;
+    /** Longest elapsed time of any search. */
+    private long _maxWall;
+    /** Depth of the last completed iteration of the current search. */
+    private int _depth;
+    /** Greatest depth reached by any search. */
+    private int _maxDepth;
+    /** Sum of depths reached by all searches. */
+    private long _depthSum;
+    /** Nodes in the last and next-to-last completed iterations of the
+     *  current search, and nodes searched before the last. */
+    private long _iterationNodes, _prevIterationNodes, _nodesBefore;
+    /** Sum and number of per-search effective branching factors. */
+    private double _branchingSum;
+    /** Number of searches contributing to _branchingSum. */
+    private int _branchingCount;
+    /** Beta cutoffs, and those caused by the first move tried. */
+    private long _cutoffs, _firstCutoffs;
+    /** Transposition-table probes and hits. */
+    private long _probes, _hits;
+    /** Time charged to each category. */
+    private final long[] _times = new long[CATEGORIES];
+
+}
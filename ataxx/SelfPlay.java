@@ -0,0 +1,549 @@
+package ataxx;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static ataxx.PieceColor.*;
+
+/** Generates training samples for evaluation functions by having AI
+ *  players play each other.  Games start from the block layouts in
+ *  TablebaseBuilder.LAYOUTS, in turn, and their first few moves are
+ *  random, so that games differ.  Each position in a game, including
+ *  those where the move actually played was random, gives a sample: the
+ *  position, the value the AI's search found for it and the move it
+ *  chose, and the final result of the game, all from the point of view
+ *  of the player to move.  Some samples are skipped at random, and a
+ *  sample is written only for the first occurrence of a position.
+ *
+ *  Games are played on as many threads as there are processors.  Each
+ *  thread writes its samples to its own sequence of shards, named
+ *  samples-T-N.bin for thread T and shard N, through a buffered
+ *  FileChannel.  A shard is a header of HEADER_BYTES followed by at most
+ *  a fixed number of records, all the same size.  The header holds the
+ *  magic number 0x4174617878535031 ("AtaxxSP1"), the board side, the
+ *  record size, and the number of records, as a long and three ints in
+ *  big-endian order.  A record holds, in order:
+ *  <pre>
+ *      key       8 bytes   Board.key of the position
+ *      squares   (side^2 + 3) / 4 bytes, 2 bits per square, a1, b1,
+ *                ..., from the high-order bits: 0 empty, 1 the
+ *                player to move, 2 the opponent, 3 blocked
+ *      color     1 byte    player to move: 0 red, 1 blue
+ *      jumps     1 byte    consecutive jumps so far
+ *      score     2 bytes   signed; pieces ahead, or +-(MATE_SCORE - N)
+ *                          for a win or loss in N plies
+ *      move      2 bytes   from and to squares (column + row * side),
+ *                          or 0xffff for a pass
+ *      result    1 byte    signed; final result: 1, 0, or -1
+ *  </pre>
+ *  @author Melissa Ly
+ */
+public class SelfPlay {
+
+    /** Default number of games. */
+    static final int DEFAULT_GAMES = 100;
+    /** Default depth of each search. */
+    static final int DEFAULT_DEPTH = 3;
+    /** Default number of random moves at the start of each game. */
+    static final int DEFAULT_RANDOM_MOVES = 4;
+    /** Default number of records in a shard. */
+    static final int DEFAULT_SHARD_SAMPLES = 1 << 20;
+    /** Default number of positions remembered for removing duplicates. */
+    static final int DEFAULT_DEDUP = 1 << 22;
+    /** Magnitude of the score of a win in 0 plies. */
+    static final int MATE_SCORE = 30000;
+    /** Size of the header of a shard. */
+    static final int HEADER_BYTES = 20;
+
+    /** Generate samples as directed by ARGS, and write them in shards to
+     *  the directory named by the last of them, which is created if
+     *  necessary.  The others may be '--games=N' (the number of games),
+     *  '--depth=N' (the depth of each search), '--nodes=N' (the limit on
+     *  each search), '--random=N' (the number of random moves that start
+     *  each game), '--skip=P' (the probability of skipping a sample),
+     *  '--shard=N' (the number of records in a shard), '--dedup=N' (the
+     *  number of positions remembered for removing duplicates, or 0 to
+     *  keep them all), '--size=N' (the board size), '--seed=N', and
+     *  '--jobs=N' (the number of threads). */
+    public static void main(String[] args) {
+        int jobs = Runtime.getRuntime().availableProcessors();
+        int games = DEFAULT_GAMES, depth = DEFAULT_DEPTH,
+            shardSamples = DEFAULT_SHARD_SAMPLES;
+        int randomMoves = DEFAULT_RANDOM_MOVES, dedup = DEFAULT_DEDUP;
+        int side = Board.SIDE;
+        long nodes = 0, seed = 0;
+        double skip = 0;
+        Path dir = null;
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--games=")) {
+                games = (int) parse(value, 1, Integer.MAX_VALUE);
+            } else if (arg.startsWith("--depth=")) {
+                depth = (int) parse(value, 1, AI.MAX_PLY);
+            } else if (arg.startsWith("--nodes=")) {
+                nodes = parse(value, 0, Long.MAX_VALUE);
+            } else if (arg.startsWith("--random=")) {
+                randomMoves = (int) parse(value, 0, MAX_RANDOM);
+            } else if (arg.startsWith("--skip=")) {
+                skip = parseProbability(value);
+            } else if (arg.startsWith("--shard=")) {
+                shardSamples = (int) parse(value, 1, Integer.MAX_VALUE);
+            } else if (arg.startsWith("--dedup=")) {
+                dedup = (int) parse(value, 0, 1 << 30);
+            } else if (arg.startsWith("--size=")) {
+                side = (int) parse(value, Board.MIN_SIDE, Board.MAX_SIDE);
+            } else if (arg.startsWith("--seed=")) {
+                seed = parse(value, 0, Long.MAX_VALUE);
+            } else if (arg.startsWith("--jobs=")) {
+                jobs = (int) parse(value, 1, Short.MAX_VALUE);
+            } else if (arg.startsWith("-") || dir != null) {
+                usage();
+            } else {
+                dir = Paths.get(arg);
+            }
+        }
+        if (dir == null) {
+            usage();
+        }
+        SelfPlay generator = new SelfPlay(games, depth, shardSamples);
+        generator._nodes = nodes;
+        generator._randomMoves = randomMoves;
+        generator._skip = skip;
+        generator._dedup = dedup;
+        generator._side = side;
+        generator._seed = seed;
+
+        long start = System.nanoTime();
+        try {
+            generator.run(dir, jobs);
+        } catch (IOException excp) {
+            System.err.printf("Could not write samples to %s: %s%n", dir,
+                              excp.getMessage());
+            System.exit(1);
+        }
+        double seconds = (System.nanoTime() - start) * 1e-9;
+        long written = generator._written.get();
+        System.err.printf("%d games, %d positions: %d samples written,"
+                          + " %d duplicates, %d skipped%n"
+                          + "%.1f seconds, %.0f samples per hour%n",
+                          generator._gamesPlayed.get(),
+                          generator._positions.get(), written,
+                          generator._duplicates.get(),
+                          generator._skipped.get(), seconds,
+                          written * SECONDS_PER_HOUR / seconds);
+        System.exit(0);
+    }
+
+    /** Return the number denoted by TEXT, or give a usage message and
+     *  exit if it is not one between LOW and HIGH. */
+    private static long parse(String text, long low, long high) {
+        try {
+            long value = Long.parseLong(text);
+            if (value >= low && value <= high) {
+                return value;
+            }
+        } catch (NumberFormatException excp) {
+            /* Fall through to usage message. */
+        }
+        usage();
+        return -1;
+    }
+
+    /** Return the probability denoted by TEXT, or give a usage message
+     *  and exit if it is not one. */
+    private static double parseProbability(String text) {
+        try {
+            double value = Double.parseDouble(text);
+            if (value >= 0 && value < 1) {
+                return value;
+            }
+        } catch (NumberFormatException excp) {
+            /* Fall through to usage message. */
+        }
+        usage();
+        return -1;
+    }
+
+    /** Give usage message and exit. */
+    private static void usage() {
+        System.err.println("Usage: java ataxx.SelfPlay [--games=N]"
+                           + " [--depth=N] [--nodes=N] [--random=N]"
+                           + " [--skip=P] [--shard=N] [--dedup=N]"
+                           + " [--size=N] [--seed=N] [--jobs=N] DIR");
+        System.exit(1);
+    }
+
+    /** A generator that plays GAMES games, searching each position to
+     *  DEPTH, and writes SHARDSAMPLES records to each shard.  Its other
+     *  parameters have their default values. */
+    SelfPlay(int games, int depth, int shardSamples) {
+        _games = games;
+        _depth = depth;
+        _shardSamples = shardSamples;
+    }
+
+    /** Play my games on JOBS threads, writing shards to DIR, and return
+     *  the number of samples written. */
+    long run(Path dir, int jobs) throws IOException {
+        Files.createDirectories(dir);
+        _seen = _dedup == 0 ? null : new KeySet(_dedup);
+        List<Thread> threads = new ArrayList<>();
+        List<IOException> failures = new ArrayList<>();
+        for (int k = 0; k < jobs; k += 1) {
+            int worker = k;
+            Thread thread = new Thread(() -> {
+                try {
+                    play(dir, worker);
+                } catch (IOException excp) {
+                    synchronized (failures) {
+                        failures.add(excp);
+                    }
+                }
+            }, "ataxx-selfplay-" + k);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException excp) {
+                throw new IOException("interrupted", excp);
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw failures.get(0);
+        }
+        return _written.get();
+    }
+
+    /** Play games until all have been started, as worker number WORKER,
+     *  writing shards to DIR. */
+    private void play(Path dir, int worker) throws IOException {
+        Random random = new Random(_seed * WORKER_SEED_STRIDE + worker);
+        AnalysisCache cache = new AnalysisCache(CACHE_BUCKETS);
+        SearchLimits limits = new SearchLimits(_depth, _nodes, 0);
+        try (ShardWriter out = new ShardWriter(dir, worker)) {
+            for (int game = _nextGame.getAndIncrement(); game < _games;
+                 game = _nextGame.getAndIncrement()) {
+                playGame(game, random, cache, limits, out);
+                _gamesPlayed.incrementAndGet();
+            }
+        }
+    }
+
+    /** Play game number GAME, searching within LIMITS using CACHE and
+     *  making random choices with RANDOM, and write its samples to OUT. */
+    private void playGame(int game, Random random, AnalysisCache cache,
+                          SearchLimits limits, ShardWriter out)
+        throws IOException {
+        Board board = new Board(_side);
+        String[] layout =
+            TablebaseBuilder.LAYOUTS[game % TablebaseBuilder.LAYOUTS.length];
+        for (String block : layout) {
+            char c = block.charAt(0), r = block.charAt(1);
+            if (board.legalBlock(c, r)) {
+                board.setBlock(c, r);
+            }
+        }
+        List<Board> positions = new ArrayList<>();
+        List<SearchResult> results = new ArrayList<>();
+        while (!board.gameOver()) {
+            AI ai = new AI(board.whoseMove());
+            ai.useCache(cache);
+            ai.useTablebase(null);
+            SearchResult result = ai.search(board, limits, null);
+            Move move = result.move();
+            _positions.incrementAndGet();
+            if (random.nextDouble() < _skip) {
+                _skipped.incrementAndGet();
+            } else if (_seen != null && !_seen.add(board.key())) {
+                _duplicates.incrementAndGet();
+            } else {
+                positions.add(new Board(board));
+                results.add(result);
+            }
+            if (board.allMoves().size() < _randomMoves) {
+                move = randomMove(board, random);
+            }
+            board.makeMove(move);
+        }
+        int redMargin = board.redPieces() - board.bluePieces();
+        for (int k = 0; k < positions.size(); k += 1) {
+            Board position = positions.get(k);
+            int result = Integer.signum(redMargin);
+            out.write(position, results.get(k),
+                      position.whoseMove() == RED ? result : -result);
+        }
+        _written.addAndGet(positions.size());
+    }
+
+    /** Return a random legal move on BOARD, chosen using RANDOM. */
+    private static Move randomMove(Board board, Random random) {
+        List<Move> moves = new ArrayList<>();
+        for (char c = 'a'; c <= board.lastCol(); c += 1) {
+            for (char r = '1'; r <= board.lastRow(); r += 1) {
+                if (board.get(c, r) != board.whoseMove()) {
+                    continue;
+                }
+                for (int dc = -2; dc <= 2; dc += 1) {
+                    for (int dr = -2; dr <= 2; dr += 1) {
+                        Move move = Move.move(c, r, (char) (c + dc),
+                                              (char) (r + dr));
+                        if (board.legalMove(move)) {
+                            moves.add(move);
+                        }
+                    }
+                }
+            }
+        }
+        return moves.isEmpty() ? Move.pass()
+            : moves.get(random.nextInt(moves.size()));
+    }
+
+    /** Return SCORE, a value from AI.search, as stored in a record. */
+    static int storedScore(int score) {
+        if (score >= AI.WINNING_VALUE - AI.MAX_PLY) {
+            return MATE_SCORE - (AI.WINNING_VALUE - score);
+        } else if (score <= -AI.WINNING_VALUE + AI.MAX_PLY) {
+            return -MATE_SCORE + (AI.WINNING_VALUE + score);
+        }
+        int limit = MATE_SCORE - AI.MAX_PLY - 1;
+        return Math.max(-limit, Math.min(limit, score));
+    }
+
+    /** Return the size of a record for boards with SIDE squares on a
+     *  side. */
+    static int recordBytes(int side) {
+        return Long.BYTES + (side * side + 3) / 4 + SMALL_FIELD_BYTES;
+    }
+
+    /** A set of position keys that holds a limited number of them, to
+     *  which any number of threads may add at once. */
+    static final class KeySet {
+
+        /** A set able to hold about CAPACITY keys. */
+        KeySet(int capacity) {
+            int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) * 2;
+            _keys = new AtomicLongArray(size);
+            _mask = size - 1;
+        }
+
+        /** Add KEY to me, and return true iff it was not already
+         *  present.  Once I am nearly full, keys that do not fit are
+         *  treated as new. */
+        boolean add(long key) {
+            key = key == 0 ? 1 : key;
+            int slot = (int) (key ^ key >>> 32) & _mask;
+            for (int probes = 0; probes < MAX_PROBES; probes += 1) {
+                long present = _keys.get(slot);
+                if (present == key) {
+                    return false;
+                } else if (present == 0) {
+                    if (_keys.compareAndSet(slot, 0, key)) {
+                        return true;
+                    }
+                    continue;
+                }
+                slot = (slot + 1) & _mask;
+            }
+            return true;
+        }
+
+        /** Greatest number of slots examined by add. */
+        private static final int MAX_PROBES = 32;
+
+        /** The keys, with 0 marking an empty slot and standing for
+         *  1. */
+        private final AtomicLongArray _keys;
+        /** Number of slots - 1. */
+        private final int _mask;
+    }
+
+    /** Writes records to a sequence of shards through a buffer. */
+    private final class ShardWriter implements AutoCloseable {
+
+        /** A writer of the shards of worker WORKER in DIR. */
+        ShardWriter(Path dir, int worker) {
+            _dir = dir;
+            _worker = worker;
+            _recordBytes = recordBytes(_side);
+            _buffer = ByteBuffer.allocateDirect(
+                Math.max(BUFFER_BYTES / _recordBytes, 1) * _recordBytes);
+        }
+
+        /** Write a record for POSITION, searched with RESULT, in a game
+         *  whose final result was OUTCOME for the player to move. */
+        void write(Board position, SearchResult result, int outcome)
+            throws IOException {
+            if (_channel == null || _count == _shardSamples) {
+                nextShard();
+            }
+            if (_buffer.remaining() < _recordBytes) {
+                flush();
+            }
+            PieceColor player = position.whoseMove();
+            _buffer.putLong(position.key());
+            int bits = 0, n = 0;
+            for (char r = '1'; r <= position.lastRow(); r += 1) {
+                for (char c = 'a'; c <= position.lastCol(); c += 1) {
+                    PieceColor piece = position.get(c, r);
+                    bits = bits << 2
+                        | (piece == player ? 1
+                           : piece == player.opposite() ? 2
+                           : piece == BLOCKED ? 3 : 0);
+                    n += 1;
+                    if (n == 4) {
+                        _buffer.put((byte) bits);
+                        bits = n = 0;
+                    }
+                }
+            }
+            if (n > 0) {
+                _buffer.put((byte) (bits << 2 * (4 - n)));
+            }
+            _buffer.put((byte) (player == RED ? 0 : 1))
+                .put((byte) position.numJumps())
+                .putShort((short) storedScore(result.score()));
+            Move move = result.move();
+            if (move == null || move.isPass()) {
+                _buffer.putShort((short) -1);
+            } else {
+                _buffer.put((byte) square(move.col0(), move.row0()))
+                    .put((byte) square(move.col1(), move.row1()));
+            }
+            _buffer.put((byte) outcome);
+            _count += 1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (_channel != null) {
+                finishShard();
+            }
+        }
+
+        /** Return the number of square C R in a record. */
+        private int square(char c, char r) {
+            return (c - 'a') + (r - '1') * _side;
+        }
+
+        /** Finish the current shard, if any, and begin the next. */
+        private void nextShard() throws IOException {
+            if (_channel != null) {
+                finishShard();
+            }
+            Path file = _dir.resolve(String.format("samples-%d-%d.bin",
+                                                   _worker, _shards));
+            _shards += 1;
+            _channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                        StandardOpenOption.WRITE,
+                                        StandardOpenOption.TRUNCATE_EXISTING);
+            _count = 0;
+            _buffer.clear();
+            _buffer.put(header());
+        }
+
+        /** Write out the current shard, with the number of its records
+         *  in its header, and close it. */
+        private void finishShard() throws IOException {
+            flush();
+            ByteBuffer header = header();
+            while (header.hasRemaining()) {
+                _channel.write(header, header.position());
+            }
+            _channel.close();
+            _channel = null;
+        }
+
+        /** Return the header of the current shard. */
+        private ByteBuffer header() {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putLong(MAGIC).putInt(_side).putInt(_recordBytes)
+                .putInt(_count).flip();
+            return header;
+        }
+
+        /** Write out the contents of my buffer. */
+        private void flush() throws IOException {
+            _buffer.flip();
+            while (_buffer.hasRemaining()) {
+                _channel.write(_buffer);
+            }
+            _buffer.clear();
+        }
+
+        /** Directory of the shards. */
+        private final Path _dir;
+        /** Number of the worker whose shards I write. */
+        private final int _worker;
+        /** Size of a record. */
+        private final int _recordBytes;
+        /** Records not yet written. */
+        private final ByteBuffer _buffer;
+        /** The current shard, or null if none has begun. */
+        private FileChannel _channel;
+        /** Number of records in the current shard. */
+        private int _count;
+        /** Number of shards begun. */
+        private int _shards;
+    }
+
+    /** Identifies a shard. */
+    private static final long MAGIC = 0x4174617878535031L;
+    /** Size of the fields of a record after the squares. */
+    private static final int SMALL_FIELD_BYTES = 7;
+    /** Size of the buffer through which each worker writes. */
+    private static final int BUFFER_BYTES = 1 << 16;
+    /** Number of buckets in the cache of each worker. */
+    private static final int CACHE_BUCKETS = 1 << 16;
+    /** Greatest number of random moves at the start of a game. */
+    private static final int MAX_RANDOM = 20;
+    /** Multiplier of the seed in the seeds of the workers. */
+    private static final long WORKER_SEED_STRIDE = 1 << 16;
+    /** Seconds in an hour. */
+    private static final double SECONDS_PER_HOUR = 3600;
+
+    /** Number of games to play. */
+    private final int _games;
+    /** Depth of each search. */
+    private final int _depth;
+    /** Limit on the positions visited by each search (0 if none). */
+    private long _nodes;
+    /** Number of random moves that start each game. */
+    private int _randomMoves = DEFAULT_RANDOM_MOVES;
+    /** Probability of skipping a sample. */
+    private double _skip;
+    /** Number of records in a shard. */
+    private final int _shardSamples;
+    /** Board size. */
+    private int _side = Board.SIDE;
+    /** Seed for random choices. */
+    private long _seed;
+    /** Number of positions remembered for removing duplicates (0 if
+     *  duplicates are kept). */
+    private int _dedup = DEFAULT_DEDUP;
+    /** Positions already sampled, or null if duplicates are kept. */
+    private KeySet _seen;
+
+    /** Number of the next game to start. */
+    private final AtomicInteger _nextGame = new AtomicInteger();
+    /** Number of games played. */
+    private final AtomicInteger _gamesPlayed = new AtomicInteger();
+    /** Numbers of positions reached, samples written, positions seen
+     *  before, and positions skipped. */
+    private final AtomicLong _positions = new AtomicLong(),
+        _written = new AtomicLong(), _duplicates = new AtomicLong(),
+        _skipped = new AtomicLong();
+
+}
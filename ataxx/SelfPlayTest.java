@@ -0,0 +1,75 @@
+package ataxx;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+/** Tests of the SelfPlay class.
+ *  @author Melissa Ly
+ */
+public class SelfPlayTest {
+
+    @Test public void testShards() throws IOException {
+        Path dir = Files.createTempDirectory("ataxx");
+        try {
+            long written = new SelfPlay(3, 1, 16).run(dir, 2);
+            assertTrue(written > 0);
+            int recordBytes = SelfPlay.recordBytes(Board.SIDE);
+            Set<Long> keys = new HashSet<>();
+            long total = 0;
+            try (DirectoryStream<Path> shards =
+                 Files.newDirectoryStream(dir, "samples-*.bin")) {
+                for (Path shard : shards) {
+                    ByteBuffer data =
+                        ByteBuffer.wrap(Files.readAllBytes(shard));
+                    assertEquals(0x4174617878535031L, data.getLong());
+                    assertEquals(Board.SIDE, data.getInt());
+                    assertEquals(recordBytes, data.getInt());
+                    int count = data.getInt();
+                    assertTrue(count > 0 && count <= 16);
+                    assertEquals(SelfPlay.HEADER_BYTES + count * recordBytes,
+                                 data.capacity());
+                    for (int k = 0; k < count; k += 1) {
+                        int record = SelfPlay.HEADER_BYTES + k * recordBytes;
+                        assertTrue(keys.add(data.getLong(record)));
+                        int result = data.get(record + recordBytes - 1);
+                        assertTrue(Math.abs(result) <= 1);
+                    }
+                    total += count;
+                }
+            }
+            assertEquals(written, total);
+        } finally {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                for (Path file : files) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    @Test public void testKeySet() {
+        SelfPlay.KeySet keys = new SelfPlay.KeySet(4);
+        assertTrue(keys.add(0));
+        assertFalse(keys.add(0));
+        assertTrue(keys.add(new Board().key()));
+        assertFalse(keys.add(new Board().key()));
+    }
+
+    @Test public void testScores() {
+        assertEquals(5, SelfPlay.storedScore(5));
+        assertEquals(SelfPlay.MATE_SCORE - 3,
+                     SelfPlay.storedScore(AI.WINNING_VALUE - 3));
+        assertEquals(-SelfPlay.MATE_SCORE + 2,
+                     SelfPlay.storedScore(-AI.WINNING_VALUE + 2));
+    }
+
+}
@@ -0,0 +1,348 @@
+package ataxx;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+
+/** A read-only table of the game-theoretic values of positions near the
+ *  end of a game, kept in a memory-mapped file built by TablebaseBuilder.
+ *  Each entry maps a position key (Board.key) to the result of the game
+ *  with best play by both sides for the player to move in that position:
+ *  the final margin (the player's pieces less the opponent's) if it is
+ *  known, and otherwise only whether the player wins or loses.  Every
+ *  position in the table is on a board of size side() and has at most
+ *  maxEmpty() empty squares and maxJumps() consecutive jumps.
+ *
+ *  The file holds a header, an index, and the entries, in increasing
+ *  order of key, in blocks of BLOCK_ENTRIES.  The index gives the first
+ *  key of each block and where it starts, so that a lookup is a binary
+ *  search of the index followed by a scan of one block.  Within a block,
+ *  each key after the first is stored as its difference from the one
+ *  before in a Rice code, with a parameter chosen from the density of
+ *  the keys, and each value in two bits (draw, win, or loss) followed
+ *  by eight more for the margin of a win or loss if it is known.  Since
+ *  keys are effectively random, that takes a little more than 64 - lg N
+ *  bits for the key of each of N entries: less than three-quarters of
+ *  what storing it whole would.
+ *
+ *  Reads use only absolute positions in the mapped buffer, so that any
+ *  number of threads may probe a Tablebase at once.
+ *  @author Melissa Ly
+ */
+class Tablebase {
+
+    /** Values returned by probe: a win or loss of unknown margin for
+     *  the player to move, and a position not in the table.  Any other
+     *  value is the exact final margin for the player to move. */
+    static final int WIN = 127, LOSS = -127, MISSING = Integer.MIN_VALUE;
+
+    /** Return the table shared by all AI players in this process, or null
+     *  if there is none. */
+    static Tablebase shared() {
+        return _shared;
+    }
+
+    /** Make the table in FILE the one returned by shared(). */
+    static void openShared(Path file) throws IOException {
+        _shared = new Tablebase(file);
+    }
+
+    /** A table mapped from FILE, which must have been written by
+     *  write(). */
+    Tablebase(Path file) throws IOException {
+        try (FileChannel channel =
+             FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES
+                || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is not a tablebase");
+            }
+            _map = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                               channel.size());
+        }
+        _side = _map.getInt(SIDE_OFFSET);
+        _maxEmpty = _map.getInt(EMPTY_OFFSET);
+        _maxJumps = _map.getInt(JUMPS_OFFSET);
+        _size = _map.getInt(SIZE_OFFSET);
+        _blocks = (_size + BLOCK_ENTRIES - 1) / BLOCK_ENTRIES;
+        _riceBits = _map.getInt(RICE_OFFSET);
+        _data = HEADER_BYTES + _blocks * INDEX_BYTES;
+        if (_map.getLong(0) != MAGIC || _side < Board.MIN_SIDE
+            || _side > MAX_SIDE || _size < 0 || _data > _map.capacity()
+            || _riceBits < 0 || _riceBits > Long.SIZE - 1) {
+            throw new IOException(file + " is not a tablebase");
+        }
+        if (_map.getLong(CHECK_OFFSET) != new Board(_side).key()) {
+            throw new IOException(file + " was built with different"
+                                  + " position keys");
+        }
+    }
+
+    /** Return the number of squares on a side of the boards of my
+     *  positions. */
+    int side() {
+        return _side;
+    }
+
+    /** Return the greatest number of empty squares in my positions. */
+    int maxEmpty() {
+        return _maxEmpty;
+    }
+
+    /** Return the greatest number of consecutive jumps in my
+     *  positions. */
+    int maxJumps() {
+        return _maxJumps;
+    }
+
+    /** Return the number of positions in me. */
+    int size() {
+        return _size;
+    }
+
+    /** Return true iff BOARD could be one of my positions: it has my
+     *  size, no more than maxEmpty() empty squares, and no more than
+     *  maxJumps() consecutive jumps. */
+    boolean covers(Board board) {
+        return board.side() == _side && board.numJumps() <= _maxJumps
+            && board.numPieces(PieceColor.EMPTY) <= _maxEmpty;
+    }
+
+    /** Return the value for the player to move of the position with key
+     *  KEY: its final margin, WIN, or LOSS; or MISSING if it is not in
+     *  me. */
+    int probe(long key) {
+        int lo = 0, hi = _blocks - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (_map.getLong(HEADER_BYTES + mid * INDEX_BYTES) <= key) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        if (hi < 0) {
+            return MISSING;
+        }
+        int index = HEADER_BYTES + hi * INDEX_BYTES;
+        long entryKey = _map.getLong(index);
+        long bit = 8L * (_data + _map.getInt(index + Long.BYTES));
+        int count = Math.min(BLOCK_ENTRIES, _size - hi * BLOCK_ENTRIES);
+        for (int k = 0; k < count; k += 1) {
+            if (k > 0) {
+                long quotient = 0;
+                while (readBits(bit, 1) == 1) {
+                    quotient += 1;
+                    bit += 1;
+                }
+                bit += 1;
+                entryKey += (quotient << _riceBits | readBits(bit, _riceBits))
+                    + 1;
+                bit += _riceBits;
+                if (entryKey > key) {
+                    return MISSING;
+                }
+            }
+            int kind = (int) readBits(bit, 2);
+            bit += 2;
+            int value = kind == DRAW_CODE ? 0 : kind == WIN_CODE ? WIN : LOSS;
+            if (kind == EXACT_CODE) {
+                value = (byte) readBits(bit, Byte.SIZE);
+                bit += Byte.SIZE;
+            }
+            if (entryKey == key) {
+                return value;
+            }
+        }
+        return MISSING;
+    }
+
+    /** Return the result for the player to move, 1 (win), 0 (draw), or
+     *  -1 (loss), of a position with value VALUE from probe. */
+    static int result(int value) {
+        return Integer.signum(value);
+    }
+
+    /** Return true iff VALUE, from probe, is an exact margin rather than
+     *  WIN or LOSS. */
+    static boolean exact(int value) {
+        return value != WIN && value != LOSS;
+    }
+
+    /** Return whichever of the values A and B of the same position says
+     *  more: an exact margin rather than WIN or LOSS. */
+    static int better(int a, int b) {
+        return exact(a) ? a : b;
+    }
+
+    /** Write the positions in ENTRIES, which maps keys to values as
+     *  returned by probe, to FILE as a table of positions with at most
+     *  MAXEMPTY empty squares and MAXJUMPS consecutive jumps on boards
+     *  with SIDE squares on a side. */
+    static void write(Path file, int side, int maxEmpty, int maxJumps,
+                      SortedMap<Long, Integer> entries) throws IOException {
+        int size = entries.size();
+        int blocks = (size + BLOCK_ENTRIES - 1) / BLOCK_ENTRIES;
+        int riceBits =
+            Math.min(Long.SIZE - 1,
+                     Long.numberOfLeadingZeros(Math.max(size, 1)));
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES
+                                                + blocks * INDEX_BYTES);
+        header.putLong(MAGIC).putLong(new Board(side).key()).putInt(side)
+            .putInt(maxEmpty).putInt(size).putInt(riceBits)
+            .putInt(maxJumps).putInt(0);
+        BitWriter data = new BitWriter();
+        int k = 0;
+        long prev = 0;
+        for (Map.Entry<Long, Integer> entry : entries.entrySet()) {
+            long key = entry.getKey();
+            int value = entry.getValue();
+            if (k % BLOCK_ENTRIES == 0) {
+                data.align();
+                header.putLong(key).putInt(data.bytes());
+            } else {
+                long delta = key - prev - 1;
+                for (long q = delta >>> riceBits; q > 0; q -= 1) {
+                    data.write(1, 1);
+                }
+                data.write(0, 1);
+                data.write(delta, riceBits);
+            }
+            if (value == 0) {
+                data.write(DRAW_CODE, 2);
+            } else if (!exact(value)) {
+                data.write(value == WIN ? WIN_CODE : LOSS_CODE, 2);
+            } else if (Math.abs(value) > MAX_MARGIN) {
+                throw new IllegalArgumentException("margin out of range");
+            } else {
+                data.write(EXACT_CODE, 2);
+                data.write(value, Byte.SIZE);
+            }
+            prev = key;
+            k += 1;
+        }
+        header.flip();
+        try (FileChannel channel =
+             FileChannel.open(file, StandardOpenOption.CREATE,
+                              StandardOpenOption.WRITE,
+                              StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            ByteBuffer body = data.buffer();
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+        }
+    }
+
+    /** Return the N (< 64) bits of my data starting at bit BIT of my
+     *  file, most significant first. */
+    private long readBits(long bit, int n) {
+        long result = 0;
+        while (n > 0) {
+            int b = _map.get((int) (bit >>> 3)) & 0xff;
+            int avail = 8 - (int) (bit & 7);
+            int take = Math.min(avail, n);
+            result = result << take
+                | (b >>> (avail - take)) & ((1 << take) - 1);
+            bit += take;
+            n -= take;
+        }
+        return result;
+    }
+
+    /** Accumulates a sequence of bits, most significant first. */
+    private static class BitWriter {
+
+        /** Append the N low-order bits of BITS. */
+        void write(long bits, int n) {
+            for (int k = n - 1; k >= 0; k -= 1) {
+                if (_bit == 0) {
+                    ensure(_length + 1);
+                    _length += 1;
+                }
+                if ((bits >>> k & 1) != 0) {
+                    _bytes[_length - 1] |= (byte) (0x80 >>> _bit);
+                }
+                _bit = (_bit + 1) & 7;
+            }
+        }
+
+        /** Pad with zero bits to the next byte boundary. */
+        void align() {
+            _bit = 0;
+        }
+
+        /** Return the number of bytes written so far. */
+        int bytes() {
+            return _length;
+        }
+
+        /** Return a buffer containing the bytes written. */
+        ByteBuffer buffer() {
+            return ByteBuffer.wrap(_bytes, 0, _length);
+        }
+
+        /** Make room for at least N bytes. */
+        private void ensure(int n) {
+            if (n > _bytes.length) {
+                _bytes = Arrays.copyOf(_bytes, Math.max(n, 2 * _bytes.length));
+            }
+        }
+
+        /** The bytes written, in _bytes[0 .. _length-1]. */
+        private byte[] _bytes = new byte[1024];
+        /** Number of bytes begun. */
+        private int _length;
+        /** Number of bits used in the last byte begun (0 if it is
+         *  full). */
+        private int _bit;
+    }
+
+    /** Identifies a file in this format. */
+    private static final long MAGIC = 0x4174617878544231L;
+    /** Number of entries in a block. */
+    private static final int BLOCK_ENTRIES = 64;
+    /** Largest board side for which margins are at most MAX_MARGIN. */
+    private static final int MAX_SIDE = 11;
+    /** Largest magnitude of a stored margin. */
+    private static final int MAX_MARGIN = WIN - 1;
+    /** Two-bit codes for a draw, a win or loss of unknown margin, and a
+     *  margin that follows as a signed byte. */
+    private static final int DRAW_CODE = 0, WIN_CODE = 1, LOSS_CODE = 2,
+        EXACT_CODE = 3;
+    /** Offsets in the header of the key of the initial position (which
+     *  detects a change to Board.key), the board side, the greatest
+     *  number of empty squares, the number of entries, the Rice
+     *  parameter, and the greatest number of consecutive jumps. */
+    private static final int CHECK_OFFSET = 8, SIDE_OFFSET = 16,
+        EMPTY_OFFSET = 20, SIZE_OFFSET = 24, RICE_OFFSET = 28,
+        JUMPS_OFFSET = 32;
+    /** Size of the file header. */
+    private static final int HEADER_BYTES = 40;
+    /** Size of an index entry: the block's first key and the offset of
+     *  its data. */
+    private static final int INDEX_BYTES = 12;
+
+    /** The table returned by shared(). */
+    private static volatile Tablebase _shared;
+
+    /** The mapped file. */
+    private final MappedByteBuffer _map;
+    /** Board side and greatest numbers of empty squares and of
+     *  consecutive jumps of my positions. */
+    private final int _side, _maxEmpty, _maxJumps;
+    /** Number of entries and of blocks. */
+    private final int _size, _blocks;
+    /** Number of low-order bits of a key difference stored in binary. */
+    private final int _riceBits;
+    /** Offset of the first block. */
+    private final int _data;
+
+}
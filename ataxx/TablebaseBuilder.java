@@ -0,0 +1,266 @@
+package ataxx;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static ataxx.PieceColor.*;
+
+/** Builds a Tablebase of positions near the end of a game.
+ *
+ *  There are far too many positions with even a few empty squares to
+ *  solve them all: 2 to the 45th colorings of the pieces on a 7x7 board
+ *  with four empty squares, for each arrangement of blocks and each
+ *  count of consecutive jumps, and Board.JUMP_LIMIT allows long chains
+ *  of jumps below each one.  So rather than enumerating positions and
+ *  working back from the ends of games, a TablebaseBuilder solves the
+ *  positions that games actually reach.  It plays games from the
+ *  common block layouts in LAYOUTS, choosing greedy moves with a little
+ *  randomness, collects the positions in them with few enough empty
+ *  squares, and solves each with an EndgameSolver, on as many threads
+ *  as there are processors.  Every position the solvers prove a value
+ *  for, including those in the trees below the ones collected, goes in
+ *  the table.
+ *  @author Melissa Ly
+ */
+public class TablebaseBuilder {
+
+    /** Default greatest number of empty squares in a position. */
+    static final int DEFAULT_EMPTY = 4;
+    /** Default number of games played from each layout. */
+    static final int DEFAULT_GAMES = 20;
+    /** Default greatest number of positions visited by each search. */
+    static final long DEFAULT_NODES = 200_000;
+    /** Default greatest number of consecutive jumps in a position. */
+    static final int DEFAULT_JUMPS = 0;
+
+    /** Block layouts from which games are played, each given by the
+     *  squares passed to Board.setBlock, for a 7x7 board.  Squares on
+     *  which a block cannot go on other boards are left out. */
+    static final String[][] LAYOUTS = {
+        {}, {"d4"}, {"c3"}, {"b4"}, {"d2"}, {"c3", "d4"},
+    };
+
+    /** Build a tablebase as directed by ARGS and write it to the file
+     *  named by the last of them.  The others may be '--empty=K' (the
+     *  greatest number of empty squares), '--games=N' (the number of
+     *  games played from each layout), '--nodes=N' (the limit on each
+     *  search), '--jumps=N' (the greatest number of consecutive jumps
+     *  in a position), '--size=N' (the board size), '--seed=N' (for the random
+     *  choices of moves), and '--jobs=N' (the number of threads). */
+    public static void main(String[] args) {
+        int maxEmpty = DEFAULT_EMPTY, games = DEFAULT_GAMES;
+        int side = Board.SIDE, maxJumps = DEFAULT_JUMPS;
+        int jobs = Runtime.getRuntime().availableProcessors();
+        long nodes = DEFAULT_NODES, seed = 0;
+        Path file = null;
+        for (String arg : args) {
+            if (arg.startsWith("--empty=")) {
+                maxEmpty = (int) parse(arg.substring(8), 0, 20);
+            } else if (arg.startsWith("--games=")) {
+                games = (int) parse(arg.substring(8), 1, Integer.MAX_VALUE);
+            } else if (arg.startsWith("--nodes=")) {
+                nodes = parse(arg.substring(8), 1, EndgameSolver.MAX_BUDGET);
+            } else if (arg.startsWith("--jumps=")) {
+                maxJumps = (int) parse(arg.substring(8), 0,
+                                       Board.JUMP_LIMIT);
+            } else if (arg.startsWith("--size=")) {
+                side = (int) parse(arg.substring(7), Board.MIN_SIDE,
+                                   MAX_SIDE);
+            } else if (arg.startsWith("--seed=")) {
+                seed = parse(arg.substring(7), 0, Long.MAX_VALUE);
+            } else if (arg.startsWith("--jobs=")) {
+                jobs = (int) parse(arg.substring(7), 1, Short.MAX_VALUE);
+            } else if (arg.startsWith("-") || file != null) {
+                usage();
+            } else {
+                file = Paths.get(arg);
+            }
+        }
+        if (file == null) {
+            usage();
+        }
+
+        long start = System.nanoTime();
+        TablebaseBuilder builder =
+            new TablebaseBuilder(side, maxEmpty, maxJumps, nodes);
+        List<Board> seeds = builder.seeds(games, new Random(seed));
+        try {
+            Map<Long, Integer> results = builder.solve(seeds, jobs);
+            Tablebase.write(file, side, maxEmpty, maxJumps,
+                            new TreeMap<>(results));
+            System.err.printf("%d positions collected: %d won, %d drawn,"
+                              + " %d lost, %d unsolved%n"
+                              + "%d positions in %s (%d bytes)"
+                              + " in %.1f seconds%n",
+                              seeds.size(), builder._tally.get(WON),
+                              builder._tally.get(DRAWN),
+                              builder._tally.get(LOST),
+                              builder._tally.get(UNSOLVED),
+                              results.size(), file, Files.size(file),
+                              (System.nanoTime() - start) * 1e-9);
+        } catch (IOException excp) {
+            System.err.printf("Could not write %s: %s%n", file,
+                              excp.getMessage());
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /** Return the number denoted by TEXT, or give a usage message and
+     *  exit if it is not one between LOW and HIGH. */
+    private static long parse(String text, long low, long high) {
+        try {
+            long value = Long.parseLong(text);
+            if (value >= low && value <= high) {
+                return value;
+            }
+        } catch (NumberFormatException excp) {
+            /* Fall through to usage message. */
+        }
+        usage();
+        return -1;
+    }
+
+    /** Give usage message and exit. */
+    private static void usage() {
+        System.err.println("Usage: java ataxx.TablebaseBuilder [--empty=K]"
+                           + " [--games=N] [--nodes=N] [--jumps=N]"
+                           + " [--size=N]"
+                           + " [--seed=N] [--jobs=N] FILE");
+        System.exit(1);
+    }
+
+    /** A builder of tables of positions with at most MAXEMPTY empty
+     *  squares and MAXJUMPS consecutive jumps on boards with SIDE squares
+     *  on a side, whose searches visit at most NODES positions each. */
+    TablebaseBuilder(int side, int maxEmpty, int maxJumps, long nodes) {
+        _side = side;
+        _maxEmpty = maxEmpty;
+        _maxJumps = maxJumps;
+        _nodes = nodes;
+    }
+
+    /** Return the positions with at most my number of empty squares in
+     *  GAMES games from each of LAYOUTS, without repetitions and leaving
+     *  out those whose games are over, choosing moves using RANDOM. */
+    List<Board> seeds(int games, Random random) {
+        Map<Long, Board> seeds = new LinkedHashMap<>();
+        for (String[] layout : LAYOUTS) {
+            for (int k = 0; k < games; k += 1) {
+                Board board = new Board(_side);
+                for (String block : layout) {
+                    char c = block.charAt(0), r = block.charAt(1);
+                    if (board.legalBlock(c, r)) {
+                        board.setBlock(c, r);
+                    }
+                }
+                while (!board.gameOver()) {
+                    if (board.numPieces(EMPTY) <= _maxEmpty) {
+                        seeds.putIfAbsent(board.key(), new Board(board));
+                    }
+                    board.makeMove(chooseMove(board, random));
+                }
+            }
+        }
+        return new ArrayList<>(seeds.values());
+    }
+
+    /** Solve SEEDS on JOBS threads, and return the values of all the
+     *  positions proved, keyed by Board.key. */
+    Map<Long, Integer> solve(List<Board> seeds, int jobs) {
+        Map<Long, Integer> results = new ConcurrentHashMap<>();
+        ThreadLocal<EndgameSolver> solvers =
+            ThreadLocal.withInitial(
+                () -> new EndgameSolver(_side, _nodes, _maxJumps));
+        ForkJoinPool pool = new ForkJoinPool(jobs);
+        try {
+            pool.submit(() -> seeds.parallelStream().forEach(seed -> {
+                int value = solvers.get().solve(seed, results);
+                _tally.incrementAndGet(
+                    value == Tablebase.MISSING ? UNSOLVED
+                    : Tablebase.result(value) > 0 ? WON
+                    : Tablebase.result(value) < 0 ? LOST : DRAWN);
+            })).get();
+        } catch (InterruptedException | ExecutionException excp) {
+            throw new IllegalStateException(excp);
+        } finally {
+            pool.shutdown();
+        }
+        return results;
+    }
+
+    /** Return a move for the player to move on BOARD: one that gains
+     *  the most pieces, preferring extends to jumps, with ties and near
+     *  ties broken using RANDOM. */
+    private static Move chooseMove(Board board, Random random) {
+        PieceColor player = board.whoseMove();
+        Move best = Move.pass();
+        int bestScore = -1;
+        for (char c = 'a'; c <= board.lastCol(); c += 1) {
+            for (char r = '1'; r <= board.lastRow(); r += 1) {
+                if (board.get(c, r) != player) {
+                    continue;
+                }
+                for (int dc = -2; dc <= 2; dc += 1) {
+                    for (int dr = -2; dr <= 2; dr += 1) {
+                        Move move = Move.move(c, r, (char) (c + dc),
+                                              (char) (r + dr));
+                        if (!board.legalMove(move)) {
+                            continue;
+                        }
+                        int sq = board.index(move.col1(), move.row1());
+                        int score = random.nextInt(NOISE)
+                            + (move.isExtend() ? EXTEND_BONUS : 0);
+                        for (int c1 = -1; c1 <= 1; c1 += 1) {
+                            for (int r1 = -1; r1 <= 1; r1 += 1) {
+                                if (board.get(board.neighbor(sq, c1, r1))
+                                    == player.opposite()) {
+                                    score += 2;
+                                }
+                            }
+                        }
+                        if (score > bestScore) {
+                            best = move;
+                            bestScore = score;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /** Largest board size for which an EndgameSolver works. */
+    private static final int MAX_SIDE = 8;
+    /** Range of the random part of the score of a move. */
+    private static final int NOISE = 3;
+    /** Score added for an extend, which gains a piece and leaves no hole
+     *  behind. */
+    private static final int EXTEND_BONUS = 2;
+    /** Indices in _tally of the numbers of seeds won, drawn, lost, and
+     *  left unsolved by the player to move. */
+    private static final int WON = 0, DRAWN = 1, LOST = 2, UNSOLVED = 3;
+
+    /** Number of squares on a side. */
+    private final int _side;
+    /** Greatest numbers of empty squares and of consecutive jumps in a
+     *  position. */
+    private final int _maxEmpty, _maxJumps;
+    /** Greatest number of positions visited by a search. */
+    private final long _nodes;
+    /** Numbers of seeds with each outcome, indexed by WON, etc. */
+    private final AtomicIntegerArray _tally = new AtomicIntegerArray(4);
+
+}
@@ -0,0 +1,98 @@
+package ataxx;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static ataxx.PieceColor.*;
+
+/** Tests of the Tablebase and EndgameSolver classes.
+ *  @author Melissa Ly
+ */
+public class TablebaseTest {
+
+    @Test public void testReadBack() throws IOException {
+        Path file = Files.createTempFile("ataxx", ".tb");
+        try {
+            Random random = new Random(61);
+            TreeMap<Long, Integer> entries = new TreeMap<>();
+            int[] values = { Tablebase.WIN, Tablebase.LOSS, 0, 49, -3 };
+            while (entries.size() < 1000) {
+                entries.put(random.nextLong(),
+                            values[random.nextInt(values.length)]);
+            }
+            entries.put(Long.MIN_VALUE, 1);
+            entries.put(Long.MAX_VALUE, -1);
+            Tablebase.write(file, 7, 4, 0, entries);
+            Tablebase table = new Tablebase(file);
+            assertEquals(7, table.side());
+            assertEquals(4, table.maxEmpty());
+            assertEquals(entries.size(), table.size());
+            for (Map.Entry<Long, Integer> entry : entries.entrySet()) {
+                assertEquals((int) entry.getValue(),
+                             table.probe(entry.getKey()));
+            }
+            for (int k = 0; k < 1000; k += 1) {
+                long key = random.nextLong();
+                if (!entries.containsKey(key)) {
+                    assertEquals(Tablebase.MISSING, table.probe(key));
+                }
+            }
+            assertTrue(Files.size(file) < entries.size() * Long.BYTES);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test public void testSolve() {
+        Board board = new Board(5);
+        PieceColor[][] contents = new PieceColor[5][5];
+        for (PieceColor[] row : contents) {
+            java.util.Arrays.fill(row, RED);
+        }
+        contents[0][0] = EMPTY;
+        contents[0][1] = contents[1][1] = BLUE;
+        board.setPosition(contents, RED, 0);
+        Map<Long, Integer> results = new HashMap<>();
+        EndgameSolver solver = new EndgameSolver(5, 1000, 0);
+        assertEquals(25, solver.solve(board, results));
+        assertEquals(25, (int) results.get(board.key()));
+        board.setPosition(contents, BLUE, 0);
+        assertEquals(-17, solver.solve(board, results));
+        assertEquals(-17, (int) results.get(board.key()));
+        assertEquals(-17, Tablebase.better(Tablebase.LOSS, -17));
+        assertEquals(-17, Tablebase.better(-17, Tablebase.LOSS));
+    }
+
+    @Test public void testSearchUsesTable() throws IOException {
+        Path file = Files.createTempFile("ataxx", ".tb");
+        try {
+            Board board = Engine.position(java.util.Arrays.asList(
+                "a7-b6", "a1-a2"));
+            SearchLimits limits = new SearchLimits(1, 0, 0);
+            AI ai = new AI(RED);
+            ai.useCache(null);
+            ai.useTablebase(null);
+            Move greedy = ai.search(board, limits, null).move();
+            Board after = new Board(board);
+            after.makeMove(greedy);
+            TreeMap<Long, Integer> entries = new TreeMap<>();
+            entries.put(after.key(), Tablebase.WIN);
+            Tablebase.write(file, 7, 49, 0, entries);
+            ai.useTablebase(new Tablebase(file));
+            SearchResult result = ai.search(board, limits, null);
+            assertNotEquals(greedy, result.move());
+            assertTrue(board.legalMove(result.move()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+}
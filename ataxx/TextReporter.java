@@ -1,27 +1,42 @@
 package ataxx;
 
-/** A Reporter that uses System.out for messages.
+import java.io.PrintStream;
+
+/** A Reporter that uses a PrintStream (by default System.out) for
+ *  messages.
  *  @author P. N. Hilfinger
  */
 class TextReporter implements Reporter {
 
+    /** A Reporter that prints on System.out. */
+    TextReporter() {
+        this(System.out);
+    }
+
+    /** A Reporter that prints on OUT. */
+    TextReporter(PrintStream out) {
+        _out = out;
+    }
+
     @Override
     public void errMsg(String format, Object... args) {
-        System.out.printf(format, args);
-        System.out.println();
+        _out.printf(format, args);
+        _out.println();
     }
 
     @Override
     public void outcomeMsg(String format, Object... args) {
-        System.out.printf(format, args);
-        System.out.println();
+        _out.printf(format, args);
+        _out.println();
     }
 
     @Override
     public void moveMsg(String format, Object... args) {
-        System.out.printf(format, args);
-        System.out.println();
+        _out.printf(format, args);
+        _out.println();
     }
 
-}
+    /** Destination of my messages. */
+    private final PrintStream _out;
 
+}
@@ -0,0 +1,177 @@
+package ataxx;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static ataxx.GameException.error;
+
+/** The moves of a game, with random access to the positions between
+ *  them.  A Timeline drives a Board, which it can set to the position
+ *  after any number of its moves: seek(K) goes to the position after K
+ *  moves, and undo and redo step back and forward by one.  Playing a
+ *  move anywhere but at the end discards the moves after it; to keep
+ *  them, first branch() to start a variation.
+ *
+ *  Every INTERVAL moves, a Timeline records a Board.Snapshot of the
+ *  position, so that reaching any position takes restoring one snapshot
+ *  and replaying fewer than INTERVAL moves, however long the game.
+ *  Snapshots are immutable, so variations share them.
+ *
+ *  While a Timeline drives a Board, nothing else should change it.
+ *  @author Melissa Ly
+ */
+class Timeline {
+
+    /** Default number of moves between snapshots. */
+    static final int DEFAULT_INTERVAL = 16;
+
+    /** A timeline with no moves, starting from the current position of
+     *  BOARD, which it drives. */
+    Timeline(Board board) {
+        this(board, DEFAULT_INTERVAL);
+    }
+
+    /** A timeline with no moves, starting from the current position of
+     *  BOARD, which it drives, taking a snapshot every INTERVAL moves. */
+    Timeline(Board board, int interval) {
+        if (interval < 1) {
+            throw error("snapshot interval must be positive");
+        }
+        _board = board;
+        _interval = interval;
+        _history = new ArrayList<>(board.allMoves());
+        _snapshots.add(board.snapshot());
+    }
+
+    /** A copy of TIMELINE, positioned as it is and driving BOARD, whose
+     *  moves end at TIMELINE's current position. */
+    private Timeline(Timeline timeline, Board board) {
+        _board = board;
+        _interval = timeline._interval;
+        _history = timeline._history;
+        _moves.addAll(timeline._moves.subList(0, timeline._position));
+        _snapshots.addAll(timeline._snapshots.subList(
+                              0, timeline._position / _interval + 1));
+        _position = timeline._position;
+    }
+
+    /** Return the board I drive. */
+    Board board() {
+        return _board;
+    }
+
+    /** Return the number of moves before my current position. */
+    int position() {
+        return _position;
+    }
+
+    /** Return my number of moves. */
+    int length() {
+        return _moves.size();
+    }
+
+    /** Return my moves (not modifiable). */
+    List<Move> moves() {
+        return Collections.unmodifiableList(_moves);
+    }
+
+    /** Make MOVE, which must be legal, at my current position.  If it
+     *  is my next move, this is the same as redo(); otherwise, it
+     *  replaces my moves from here on. */
+    void play(Move move) {
+        if (_position < _moves.size() && _moves.get(_position) == move) {
+            redo();
+            return;
+        }
+        if (!_board.legalMove(move)) {
+            throw error("illegal move: %s", move);
+        }
+        _moves.subList(_position, _moves.size()).clear();
+        int keep = _position / _interval + 1;
+        _snapshots.subList(keep, _snapshots.size()).clear();
+        advance(move);
+    }
+
+    /** Add MOVES, which must be legal, to my moves at my current
+     *  position, as for play. */
+    void playAll(List<Move> moves) {
+        for (Move move : moves) {
+            play(move);
+        }
+    }
+
+    /** Set my board to the position after the first K of my moves. */
+    void seek(int k) {
+        if (k < 0 || k > _moves.size()) {
+            throw error("no position %d: timeline has %d moves", k,
+                        _moves.size());
+        }
+        int checkpoint = k / _interval * _interval;
+        if (k < _position || _position < checkpoint) {
+            ArrayList<Move> history = new ArrayList<>(_history);
+            history.addAll(_moves.subList(0, checkpoint));
+            _board.restore(_snapshots.get(k / _interval), history);
+            _position = checkpoint;
+        }
+        while (_position < k) {
+            advance(_moves.get(_position));
+        }
+    }
+
+    /** Go back one move, returning false (and doing nothing) if I am at
+     *  the start. */
+    boolean undo() {
+        if (_position == 0) {
+            return false;
+        }
+        seek(_position - 1);
+        return true;
+    }
+
+    /** Go forward one move, returning false (and doing nothing) if I am
+     *  at the end. */
+    boolean redo() {
+        if (_position == _moves.size()) {
+            return false;
+        }
+        advance(_moves.get(_position));
+        return true;
+    }
+
+    /** Return a new timeline for a variation from my current position:
+     *  it drives a copy of my board and has my moves up to here, and
+     *  moves played on it do not affect me. */
+    Timeline branch() {
+        return new Timeline(this, new Board(_board));
+    }
+
+    /** Make MOVE, the next move, on my board, adding it to my moves if
+     *  I am at my end, and take a snapshot if this reaches a multiple of
+     *  my interval for which I have none. */
+    private void advance(Move move) {
+        _board.makeMove(move);
+        if (_position == _moves.size()) {
+            _moves.add(move);
+        }
+        _position += 1;
+        if (_position % _interval == 0
+            && _snapshots.size() == _position / _interval) {
+            _snapshots.add(_board.snapshot());
+        }
+    }
+
+    /** The board I drive. */
+    private final Board _board;
+    /** Number of moves between snapshots. */
+    private final int _interval;
+    /** The moves made on the board before my start, shared by my
+     *  branches. */
+    private final List<Move> _history;
+    /** My moves. */
+    private final ArrayList<Move> _moves = new ArrayList<>();
+    /** _snapshots.get(i) is the position after i * _interval moves. */
+    private final ArrayList<Board.Snapshot> _snapshots = new ArrayList<>();
+    /** Number of moves before my current position. */
+    private int _position;
+}
@@ -0,0 +1,102 @@
+package ataxx;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Tests of the Timeline class.
+ *  @author Melissa Ly
+ */
+public class TimelineTest {
+
+    /** Return the first legal move on BOARD other than EXCEPT, scanning
+     *  from a1. */
+    private static Move firstMove(Board board, Move except) {
+        for (char c0 = 'a'; c0 <= 'g'; c0 += 1) {
+            for (char r0 = '1'; r0 <= '7'; r0 += 1) {
+                for (int dc = -2; dc <= 2; dc += 1) {
+                    for (int dr = -2; dr <= 2; dr += 1) {
+                        Move move = Move.move(c0, r0, (char) (c0 + dc),
+                                              (char) (r0 + dr));
+                        if (move != except && board.legalMove(move)) {
+                            return move;
+                        }
+                    }
+                }
+            }
+        }
+        return Move.pass();
+    }
+
+    /** Return the first N moves of a game in which each side makes
+     *  firstMove. */
+    private static List<Move> game(int n) {
+        Board board = new Board();
+        List<Move> moves = new ArrayList<>();
+        for (int k = 0; k < n && !board.gameOver(); k += 1) {
+            Move move = firstMove(board, null);
+            moves.add(move);
+            board.makeMove(move);
+        }
+        return moves;
+    }
+
+    /** Return the board after the first K of MOVES. */
+    private static Board replay(List<Move> moves, int k) {
+        Board board = new Board();
+        for (Move move : moves.subList(0, k)) {
+            board.makeMove(move);
+        }
+        return board;
+    }
+
+    @Test public void testSeek() {
+        List<Move> moves = game(40);
+        Timeline timeline = new Timeline(new Board(), 8);
+        timeline.playAll(moves);
+        assertEquals(moves.size(), timeline.position());
+        for (int k : new int[] { 37, 3, 16, 15, 40, 0, 24 }) {
+            timeline.seek(k);
+            assertEquals(k, timeline.position());
+            assertEquals(replay(moves, k), timeline.board());
+            assertEquals(moves.subList(0, k), timeline.board().allMoves());
+        }
+        assertTrue(timeline.redo());
+        assertEquals(replay(moves, 25), timeline.board());
+        assertTrue(timeline.undo());
+        assertTrue(timeline.undo());
+        assertEquals(replay(moves, 23), timeline.board());
+        timeline.seek(0);
+        assertFalse(timeline.undo());
+        assertEquals(moves.size(), timeline.length());
+    }
+
+    @Test public void testBranch() {
+        List<Move> moves = game(30);
+        Timeline timeline = new Timeline(new Board(), 8);
+        timeline.playAll(moves);
+        timeline.seek(12);
+        Timeline variation = timeline.branch();
+        Move other = firstMove(variation.board(), moves.get(12));
+        variation.play(other);
+        assertEquals(13, variation.length());
+        assertEquals(30, timeline.length());
+        timeline.seek(30);
+        assertEquals(replay(moves, 30), timeline.board());
+        variation.seek(3);
+        variation.seek(13);
+        Board expected = replay(moves, 12);
+        expected.makeMove(other);
+        assertEquals(expected, variation.board());
+        timeline.seek(20);
+        timeline.play(moves.get(20));
+        assertEquals(30, timeline.length());
+        timeline.seek(12);
+        timeline.play(other);
+        assertEquals(13, timeline.length());
+        assertEquals(expected, timeline.board());
+    }
+
+}
@@ -0,0 +1,488 @@
+package ataxx;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static ataxx.PieceColor.*;
+
+/** Drives an Engine with a UCI-style text protocol for Ataxx ("UAI"), as
+ *  spoken by external GUIs and match managers.  Commands are read on the
+ *  calling thread while searches run on the Engine's threads, so that
+ *  'stop', 'isready', and 'quit' take effect during a search.
+ *
+ *  Recognized commands:
+ *      uai, isready, uainewgame, quit, stop,
+ *      setoption name MultiPV value K,
+ *      position (startpos | fen FEN) [moves M1 M2 ...],
+ *      go [wtime T] [btime T] [winc T] [binc T] [movestogo N]
+ *         [movetime T] [depth D] [nodes N] [infinite].
+ *  With MultiPV K > 1, searches find the K best moves, and each
+ *  iteration reports one info line for each, numbered by 'multipv'.
+ *  Times are in milliseconds.  In FENs and clocks, 'x' and "b" (black)
+ *  denote Red, who moves first, while 'o' and "w" (white) denote Blue.
+ *  Moves are written as a destination square for extends (b6), as from
+ *  and to squares for jumps (a7c5), and as 0000 for a pass.
+ *  @author Melissa Ly
+ */
+class UAIProtocol {
+
+    /** The initial position. */
+    static final String START_FEN = "x5o/7/7/7/7/7/o5x x 0 1";
+
+    /** Assumed number of moves remaining when dividing up a clock. */
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    /** Time reserved for communication on each move (milliseconds). */
+    private static final long MOVE_OVERHEAD = 50;
+    /** Centipawn-like units per piece in reported scores. */
+    private static final int CP_PER_PIECE = 100;
+    /** Greatest value of the MultiPV option. */
+    private static final int MAX_MULTI_PV = 64;
+
+    /** A protocol session reading commands from INPUT and writing
+     *  responses to OUT.  Its searches use the process's shared analysis
+     *  cache and tablebase, if any. */
+    UAIProtocol(Reader input, PrintStream out) {
+        _input = new BufferedReader(input);
+        _out = out;
+        _engine = new Engine(AnalysisCache.shared(), Tablebase.shared());
+        _board = new Board();
+    }
+
+    /** Read and execute commands until 'quit' or end of input. */
+    void run() {
+        try {
+            while (true) {
+                String line = _input.readLine();
+                if (line == null || !execute(line.trim())) {
+                    break;
+                }
+            }
+        } catch (IOException excp) {
+            /* Treat as end of input. */
+        }
+        finishSearch();
+    }
+
+    /** Execute the command LINE.  Return false iff it is 'quit'. */
+    private boolean execute(String line) {
+        String[] words = line.split("\\s+");
+        try {
+            switch (words[0]) {
+            case "uai":
+                respond("id name Ataxx");
+                respond("id author Melissa Ly");
+                respond("option name MultiPV type spin default 1 min 1 max %d",
+                        MAX_MULTI_PV);
+                respond("uaiok");
+                break;
+            case "isready":
+                respond("readyok");
+                break;
+            case "uainewgame":
+                finishSearch();
+                _board = new Board();
+                break;
+            case "setoption":
+                doSetOption(words);
+                break;
+            case "position":
+                doPosition(words);
+                break;
+            case "go":
+                doGo(words);
+                break;
+            case "stop":
+                doStop();
+                break;
+            case "quit":
+                return false;
+            case "":
+                break;
+            default:
+                respond("info string unknown command: %s", line);
+                break;
+            }
+        } catch (GameException excp) {
+            respond("info string %s", excp.getMessage());
+        }
+        return true;
+    }
+
+    /** Set the option described by WORDS, a 'setoption' command. */
+    private void doSetOption(String[] words) {
+        if (words.length != 5 || !words[1].equals("name")
+            || !words[3].equals("value")) {
+            throw GameException.error("bad setoption command");
+        } else if (!words[2].equalsIgnoreCase("MultiPV")) {
+            throw GameException.error("unknown option: %s", words[2]);
+        }
+        _multiPV = (int) Math.min(Math.max(parseNumber(words[4]), 1),
+                                  MAX_MULTI_PV);
+    }
+
+    /** Set up the position described by WORDS, a 'position' command. */
+    private void doPosition(String[] words) {
+        int k;
+        Board board;
+        if (words.length > 1 && words[1].equals("startpos")) {
+            board = new Board();
+            k = 2;
+        } else if (words.length > 1 && words[1].equals("fen")) {
+            StringBuilder fen = new StringBuilder();
+            for (k = 2; k < words.length && !words[k].equals("moves");
+                 k += 1) {
+                fen.append(words[k]).append(' ');
+            }
+            board = parseFen(fen.toString().trim());
+        } else {
+            throw GameException.error("bad position command");
+        }
+        if (k < words.length) {
+            if (!words[k].equals("moves")) {
+                throw GameException.error("bad position command");
+            }
+            for (k += 1; k < words.length; k += 1) {
+                Move move = parseMove(board, words[k]);
+                if (!move.isPass() && !board.legalMove(move)) {
+                    throw GameException.error("illegal move: %s", words[k]);
+                }
+                board.makeMove(move);
+            }
+        }
+        _board = board;
+    }
+
+    /** Start a search of the current position as directed by WORDS, a
+     *  'go' command. */
+    private void doGo(String[] words) {
+        finishSearch();
+        long[] clock = new long[2], inc = new long[2];
+        long moveTime = 0, nodes = 0, movesToGo = 0;
+        int depth = 0;
+        boolean infinite = false;
+        for (int k = 1; k < words.length; k += 1) {
+            String arg = words[k];
+            if (arg.equals("infinite")) {
+                infinite = true;
+                continue;
+            }
+            if (k + 1 >= words.length) {
+                throw GameException.error("missing value for %s", arg);
+            }
+            long val = parseNumber(words[k + 1]);
+            k += 1;
+            switch (arg) {
+            case "btime":
+                clock[0] = val;
+                break;
+            case "wtime":
+                clock[1] = val;
+                break;
+            case "binc":
+                inc[0] = val;
+                break;
+            case "winc":
+                inc[1] = val;
+                break;
+            case "movestogo":
+                movesToGo = val;
+                break;
+            case "movetime":
+                moveTime = val;
+                break;
+            case "depth":
+                depth = (int) Math.min(val, Integer.MAX_VALUE);
+                break;
+            case "nodes":
+                nodes = val;
+                break;
+            default:
+                throw GameException.error("unknown go parameter: %s", arg);
+            }
+        }
+        int side = _board.whoseMove() == RED ? 0 : 1;
+        if (moveTime == 0 && !infinite && clock[side] > 0) {
+            moveTime = allocateTime(clock[side], inc[side], movesToGo);
+        }
+        startSearch(new SearchLimits(depth, nodes, moveTime, _multiPV),
+                    infinite);
+    }
+
+    /** Return the time to spend on a move (milliseconds), given that
+     *  REMAINING milliseconds are left on the clock, INCREMENT are added
+     *  after each move, and MOVESTOGO moves (if positive) must be made
+     *  before the next time control. */
+    private static long allocateTime(long remaining, long increment,
+                                     long movesToGo) {
+        long moves = movesToGo > 0 ? movesToGo : DEFAULT_MOVES_TO_GO;
+        long time = remaining / moves + increment * 3 / 4;
+        time = Math.min(time, remaining - MOVE_OVERHEAD);
+        return Math.max(time, 1);
+    }
+
+    /** Start searching the current position within LIMITS.  If INFINITE,
+     *  do not report a best move until stopped. */
+    private synchronized void startSearch(SearchLimits limits,
+                                          boolean infinite) {
+        _infinite = infinite;
+        _finished = null;
+        Board board = _board;
+        Engine.Search search =
+            _engine.search(board, limits,
+                           info -> info(board, info, limits.multiPV()));
+        _search = search;
+        search.whenComplete((result, excp) -> searchDone(search, board,
+                                                         result));
+    }
+
+    /** Report the completion of SEARCH on BOARD with RESULT (null if it
+     *  failed). */
+    private synchronized void searchDone(Engine.Search search, Board board,
+                                         SearchResult result) {
+        if (search != _search) {
+            return;
+        }
+        if (_infinite && !search.isCancelled()) {
+            _finished = result;
+            _finishedBoard = board;
+        } else {
+            reportBest(board, result);
+        }
+        notifyAll();
+    }
+
+    /** Print the bestmove line for RESULT on BOARD, ending the current
+     *  search. */
+    private void reportBest(Board board, SearchResult result) {
+        Move move = result == null ? null : result.move();
+        respond("bestmove %s",
+                move == null ? "0000" : formatMove(board, move));
+        _search = null;
+        _finished = null;
+    }
+
+    /** Handle 'stop': end any current search, reporting its move. */
+    private synchronized void doStop() {
+        if (_search == null) {
+            return;
+        }
+        if (_finished != null) {
+            reportBest(_finishedBoard, _finished);
+        } else {
+            _infinite = false;
+            _search.stop();
+        }
+    }
+
+    /** Stop any current search and wait until its move is reported. */
+    private synchronized void finishSearch() {
+        doStop();
+        while (_search != null) {
+            try {
+                wait();
+            } catch (InterruptedException excp) {
+                return;
+            }
+        }
+    }
+
+    /** Print an info line for INFO, from an iteration of the current
+     *  search of POSITION for its MULTIPV best moves, or one for each
+     *  line if MULTIPV > 1. */
+    private void info(Board position, SearchResult info, int multiPV) {
+        if (multiPV == 1) {
+            respond("info depth %d score %s nodes %d nps %d time %d pv%s",
+                    info.depth(), formatScore(info.score()),
+                    info.nodes(), info.nps(), info.millis(),
+                    formatLine(position, info.principalVariation()));
+            return;
+        }
+        List<SearchResult> lines = info.lines();
+        for (int k = 0; k < lines.size(); k += 1) {
+            SearchResult line = lines.get(k);
+            respond("info depth %d multipv %d score %s nodes %d nps %d"
+                    + " time %d pv%s", info.depth(), k + 1,
+                    formatScore(line.score()), info.nodes(), info.nps(),
+                    info.millis(),
+                    formatLine(position, line.principalVariation()));
+        }
+    }
+
+    /** Return PV, a line of play from POSITION, in protocol notation,
+     *  with a blank before each move. */
+    private static String formatLine(Board position, List<Move> pv) {
+        Board board = new Board(position);
+        StringBuilder line = new StringBuilder();
+        for (Move move : pv) {
+            line.append(' ').append(formatMove(board, move));
+            board.makeMove(move);
+        }
+        return line.toString();
+    }
+
+    /** Return SCORE in protocol notation.  Scores within AI.MAX_PLY of
+     *  AI.WINNING_VALUE denote a game won in that many plies. */
+    static String formatScore(int score) {
+        int plies = AI.WINNING_VALUE - Math.abs(score);
+        if (plies <= AI.MAX_PLY) {
+            int moves = (plies + 1) / 2;
+            return "mate " + (score > 0 ? moves : -moves);
+        }
+        return "cp " + score * CP_PER_PIECE;
+    }
+
+    /** Return MOVE, made from BOARD, in protocol notation. */
+    static String formatMove(Board board, Move move) {
+        if (move.isPass()) {
+            return "0000";
+        } else if (move.isExtend()) {
+            return "" + move.col1() + Move.rowName(move.row1());
+        } else {
+            return "" + move.col0() + Move.rowName(move.row0())
+                + move.col1() + Move.rowName(move.row1());
+        }
+    }
+
+    /** Return the move denoted by TEXT in protocol notation on BOARD.
+     *  Also accepts the command-language notation C0R0-C1R1. */
+    static Move parseMove(Board board, String text) {
+        text = text.replace("-", "");
+        if (text.equals("0000") || text.isEmpty()) {
+            return Move.pass();
+        }
+        Matcher mat = MOVE_PATN.matcher(text);
+        if (!mat.matches()) {
+            throw GameException.error("bad move: %s", text);
+        }
+        if (mat.group(3) != null) {
+            return Move.move(mat.group(1).charAt(0), Move.row(mat.group(2)),
+                             mat.group(3).charAt(0), Move.row(mat.group(4)));
+        }
+        char c1 = mat.group(1).charAt(0), r1 = Move.row(mat.group(2));
+        for (int dc = -1; dc <= 1; dc += 1) {
+            for (int dr = -1; dr <= 1; dr += 1) {
+                char c0 = (char) (c1 + dc), r0 = (char) (r1 + dr);
+                if (board.get(c0, r0) == board.whoseMove()) {
+                    return Move.move(c0, r0, c1, r1);
+                }
+            }
+        }
+        throw GameException.error("illegal move: %s", text);
+    }
+
+    /** Return the board described by FEN, e.g. "x5o/7/7/7/7/7/o5x x 0 1".
+     *  The size of the board is the number of ranks in FEN.  Runs of
+     *  empty squares may have more than one digit. */
+    static Board parseFen(String fen) {
+        String[] fields = fen.split("\\s+");
+        String[] rows = fields[0].split("/");
+        int side = rows.length;
+        if (side < Board.MIN_SIDE || side > Board.MAX_SIDE
+            || fields.length < 2) {
+            throw GameException.error("bad FEN: %s", fen);
+        }
+        PieceColor[][] contents = new PieceColor[side][side];
+        for (int k = 0; k < side; k += 1) {
+            PieceColor[] row = contents[side - 1 - k];
+            String rank = rows[k];
+            int c;
+            c = 0;
+            for (int i = 0; i < rank.length(); i += 1) {
+                char ch = rank.charAt(i);
+                if (Character.isDigit(ch)) {
+                    int n;
+                    n = ch - '0';
+                    while (i + 1 < rank.length()
+                           && Character.isDigit(rank.charAt(i + 1))) {
+                        i += 1;
+                        n = 10 * n + rank.charAt(i) - '0';
+                    }
+                    for (; n > 0 && c < side; n -= 1) {
+                        row[c++] = EMPTY;
+                    }
+                    c += n;
+                } else if (c < side) {
+                    row[c++] = fenPiece(ch, fen);
+                } else {
+                    c += 1;
+                }
+            }
+            if (c != side) {
+                throw GameException.error("bad FEN: %s", fen);
+            }
+        }
+        PieceColor next = fenPiece(fields[1].charAt(0), fen);
+        if (!next.isPiece()) {
+            throw GameException.error("bad FEN: %s", fen);
+        }
+        int jumps = fields.length > 2 ? (int) parseNumber(fields[2]) : 0;
+        Board board = new Board(side);
+        board.setPosition(contents, next, jumps);
+        return board;
+    }
+
+    /** A move in protocol notation: a destination square, optionally
+     *  preceded by a source square. */
+    private static final Pattern MOVE_PATN =
+        Pattern.compile("([a-o])(1[0-5]|[1-9])(?:([a-o])(1[0-5]|[1-9]))?");
+
+    /** Return the contents denoted by CH in a FEN, reporting errors in
+     *  FEN. */
+    private static PieceColor fenPiece(char ch, String fen) {
+        switch (ch) {
+        case 'x':
+            return RED;
+        case 'o':
+            return BLUE;
+        case '-':
+            return BLOCKED;
+        default:
+            throw GameException.error("bad FEN: %s", fen);
+        }
+    }
+
+    /** Return the non-negative number denoted by TEXT. */
+    private static long parseNumber(String text) {
+        try {
+            return Math.max(0, Long.parseLong(text));
+        } catch (NumberFormatException excp) {
+            throw GameException.error("bad number: %s", text);
+        }
+    }
+
+    /** Print a line formed from FORMAT and ARGS as for String.format. */
+    private void respond(String format, Object... args) {
+        synchronized (_out) {
+            _out.printf(format, args);
+            _out.println();
+            _out.flush();
+        }
+    }
+
+    /** Source of commands. */
+    private final BufferedReader _input;
+    /** Destination of responses. */
+    private final PrintStream _out;
+    /** Does my searching. */
+    private final Engine _engine;
+    /** The current position. */
+    private Board _board;
+    /** The search in progress, or null. */
+    private Engine.Search _search;
+    /** True iff the current search should not report its move until
+     *  stopped. */
+    private boolean _infinite;
+    /** The result of a completed infinite search not yet stopped, or
+     *  null. */
+    private SearchResult _finished;
+    /** The position searched for _finished. */
+    private Board _finishedBoard;
+    /** Number of best moves each search finds. */
+    private int _multiPV = 1;
+
+}
@@ -0,0 +1,70 @@
+package ataxx;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+
+import static ataxx.PieceColor.*;
+
+/** Tests of the UAI protocol.
+ *  @author Melissa Ly
+ */
+public class UAIProtocolTest {
+
+    @Test public void testStartFen() {
+        assertEquals(new Board(), UAIProtocol.parseFen(UAIProtocol.START_FEN));
+    }
+
+    @Test public void testFen() {
+        Board b = UAIProtocol.parseFen("x5o/7/2-1-2/7/2-1-2/7/o5x o 3 10");
+        assertEquals(BLOCKED, b.get('c', '5'));
+        assertEquals(BLOCKED, b.get('e', '3'));
+        assertEquals(EMPTY, b.get('d', '5'));
+        assertEquals(BLUE, b.whoseMove());
+        assertEquals(3, b.numJumps());
+    }
+
+    @Test public void testMoves() {
+        Board b = new Board();
+        Move m = UAIProtocol.parseMove(b, "b6");
+        assertTrue(m.isExtend());
+        assertEquals("b6", UAIProtocol.formatMove(b, m));
+        m = UAIProtocol.parseMove(b, "a7c5");
+        assertTrue(m.isJump());
+        assertEquals("a7c5", UAIProtocol.formatMove(b, m));
+        assertEquals(m, UAIProtocol.parseMove(b, "a7-c5"));
+        assertTrue(UAIProtocol.parseMove(b, "0000").isPass());
+    }
+
+    @Test public void testSession() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true);
+        String input = "uai\nisready\nposition startpos moves g2\n"
+            + "go depth 2\nisready\nquit\n";
+        new UAIProtocol(new StringReader(input), out).run();
+        String[] lines = bytes.toString().split("\\R");
+        assertEquals("uaiok", lines[3]);
+        assertEquals("readyok", lines[4]);
+        assertTrue(bytes.toString().contains("\nbestmove "));
+    }
+
+    @Test public void testMultiPV() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true);
+        String input = "uai\nsetoption name MultiPV value 2\n"
+            + "position startpos\ngo depth 2\nisready\nquit\n";
+        new UAIProtocol(new StringReader(input), out).run();
+        String output = bytes.toString();
+        String[] lines = output.split("\\R");
+        assertEquals("option name MultiPV type spin default 1 min 1 max 64",
+                     lines[2]);
+        assertEquals("uaiok", lines[3]);
+        assertTrue(output.contains("info depth 1 multipv 1 "));
+        assertTrue(output.contains("info depth 1 multipv 2 "));
+        assertTrue(output.contains("\nbestmove "));
+    }
+
+}
@@ -11,7 +11,13 @@ public class UnitTest {
      *  the arguments of runClasses to run other JUnit tests. */
     public static void main(String[] ignored) {
         textui.runClasses(CommandTest.class, MoveTest.class,
-                          BoardTest.class);
+                          BoardTest.class, EngineTest.class,
+                          UAIProtocolTest.class, HistogramTest.class,
+                          MCTSTest.class, AnalysisCacheTest.class,
+                          TimelineTest.class, ScriptRunnerTest.class,
+                          TablebaseTest.class, SelfPlayTest.class,
+                          BenchTest.class, GameServerTest.class,
+                          AtaxxGUITest.class);
     }
 
 }
@@ -0,0 +1,179 @@
+package ataxx;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/** Warms up the JIT compiler for AI searches.  A Warmup searches
+ *  synthetic positions on a background thread until the just-in-time
+ *  compiler stops finding new work, so that the first move of a real
+ *  game runs compiled code rather than being several times slower than
+ *  the rest.  It stops sooner if it exhausts its budget of CPU time or
+ *  is told to stop.  It is meant to run while a Game waits for
+ *  commands in its set-up state, when the processor is otherwise idle.
+ *  @author Melissa Ly
+ */
+class Warmup {
+
+    /** Default limit on the CPU time a Warmup spends (milliseconds). */
+    static final long DEFAULT_BUDGET = 4000;
+
+    /** A Warmup that spends at most BUDGET milliseconds of CPU time, and
+     *  reports what it did on the standard error iff REPORT. */
+    Warmup(long budget, boolean report) {
+        _budget = budget * NANOS_PER_MILLI;
+        _report = report;
+        _thread = new Thread(this::run, "ataxx-warmup");
+        _thread.setDaemon(true);
+        _thread.setPriority(Thread.MIN_PRIORITY);
+    }
+
+    /** Start warming up in the background. */
+    void start() {
+        _thread.start();
+    }
+
+    /** Stop warming up, and wait for the current search to end. */
+    void stop() {
+        _stopped = true;
+        AI ai = _ai;
+        if (ai != null) {
+            ai.stop();
+        }
+        try {
+            _thread.join();
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Search synthetic positions until the compiler settles, my budget
+     *  is spent, or I am stopped.  The compiler has settled when the
+     *  compilations that finish during a period of QUIET_TIME took less
+     *  than QUIET_COMPILATION in all: by then, the hot methods of the
+     *  search have been through both compilers, and only stragglers are
+     *  left. */
+    private void run() {
+        CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+        boolean monitored =
+            jit != null && jit.isCompilationTimeMonitoringSupported();
+        long start = now(), nodes = 0;
+        long quietStart = start, compiled = monitored ? compileTime(jit) : 0;
+        boolean settled = false;
+        int searches = 0;
+        Random random = new Random(SEED);
+        while (!_stopped && !settled && now() - start < _budget) {
+            Board board = position(random);
+            if (board.gameOver()) {
+                continue;
+            }
+            AI ai = new AI(board.whoseMove());
+            ai.useTablebase(Tablebase.shared());
+            _ai = ai;
+            if (_stopped) {
+                break;
+            }
+            nodes += ai.search(board, LIMITS, null).nodes();
+            searches += 1;
+            if (monitored) {
+                long total = compileTime(jit);
+                if (total - compiled >= QUIET_COMPILATION) {
+                    quietStart = now();
+                    compiled = total;
+                } else {
+                    settled = now() - quietStart >= QUIET_TIME;
+                }
+            }
+        }
+        _ai = null;
+        if (_report) {
+            String ending =
+                _stopped ? "stopped"
+                : settled ? "compiler settled"
+                : monitored ? "budget spent" : "budget spent (no JIT data)";
+            System.err.printf("[timing] warm-up: %d searches, %d nodes,"
+                              + " %.1f ms cpu, %s%n", searches, nodes,
+                              (now() - start) / 1e6, ending);
+        }
+    }
+
+    /** Return the total time JIT has spent compiling so far
+     *  (nanoseconds). */
+    private static long compileTime(CompilationMXBean jit) {
+        return jit.getTotalCompilationTime() * NANOS_PER_MILLI;
+    }
+
+    /** Return the CPU time used by the current thread, or the time of
+     *  day if that is not available (nanoseconds). */
+    private static long now() {
+        long cpu = SearchStats.cpuTime();
+        return cpu == 0 ? System.nanoTime() : cpu;
+    }
+
+    /** Return a position made by placing a few random blocks on an
+     *  empty board and then making a random number of random moves,
+     *  choosing at random using RANDOM. */
+    private static Board position(Random random) {
+        Board board = new Board();
+        for (int k = random.nextInt(MAX_BLOCKS + 1); k > 0; k -= 1) {
+            char c = (char) ('a' + random.nextInt(board.side())),
+                r = (char) ('1' + random.nextInt(board.side()));
+            if (board.legalBlock(c, r)) {
+                board.setBlock(c, r);
+            }
+        }
+        for (int k = random.nextInt(MAX_MOVES + 1);
+             k > 0 && !board.gameOver(); k -= 1) {
+            board.makeMove(randomMove(board, random));
+        }
+        return board;
+    }
+
+    /** Return a random legal move on BOARD, chosen using RANDOM. */
+    private static Move randomMove(Board board, Random random) {
+        if (!board.canMove(board.whoseMove())) {
+            return Move.pass();
+        }
+        while (true) {
+            char c = (char) ('a' + random.nextInt(board.side())),
+                r = (char) ('1' + random.nextInt(board.side()));
+            Move move = Move.move(c, r, (char) (c + random.nextInt(5) - 2),
+                                  (char) (r + random.nextInt(5) - 2));
+            if (move != null && board.legalMove(move)) {
+                return move;
+            }
+        }
+    }
+
+    /** Nanoseconds in a millisecond. */
+    private static final long NANOS_PER_MILLI = 1_000_000;
+    /** Limits on each search.  They are small enough that stopping
+     *  takes little time even before a search notices it. */
+    private static final SearchLimits LIMITS =
+        new SearchLimits(4, 20_000, 0);
+    /** Length of warming up during which the compiler must do less than
+     *  QUIET_COMPILATION of work to be considered settled (nanoseconds of
+     *  CPU time). */
+    private static final long QUIET_TIME = 1000 * NANOS_PER_MILLI;
+    /** Compilation time below which the compiler is considered settled
+     *  (nanoseconds). */
+    private static final long QUIET_COMPILATION = 20 * NANOS_PER_MILLI;
+    /** Greatest number of blocks in a synthetic position. */
+    private static final int MAX_BLOCKS = 4;
+    /** Greatest number of moves made to reach a synthetic position. */
+    private static final int MAX_MOVES = 40;
+    /** Seed for choosing synthetic positions, which are the same for
+     *  each Warmup. */
+    private static final long SEED = 0x41746178L;
+
+    /** Limit on the CPU time I spend (nanoseconds). */
+    private final long _budget;
+    /** True iff I report on what I did. */
+    private final boolean _report;
+    /** The thread on which I run. */
+    private final Thread _thread;
+    /** The AI doing my current search, if any. */
+    private volatile AI _ai;
+    /** True once I have been told to stop. */
+    private volatile boolean _stopped;
+}